@@ -0,0 +1,73 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import usgaard.jacob.rest.RestService;
+
+/**
+ * Measures a whole request against HSQLDB: parsing, planning, the query
+ * itself and hydrating every column of every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertBenchmark {
+
+	@Param({ "narrow", "wide" })
+	private String entity;
+
+	@Param({ "100", "10000" })
+	private int rows;
+
+	private RestService restService;
+	private SessionFactory sessionFactory;
+	private Session session;
+	private Class<?> clazz;
+	private String query;
+
+	@Setup
+	public void setup() throws Throwable {
+		restService = new RestService();
+		sessionFactory = Database.buildSessionFactory();
+		clazz = Queries.entity(entity);
+		Database.populate(sessionFactory, clazz, rows);
+
+		session = sessionFactory.openSession();
+		query = "id>=0&order=id+&limit=" + rows;
+	}
+
+	@TearDown
+	public void tearDown() {
+		session.close();
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public List<?> convert() throws Exception {
+		List<?> results = restService.convert(query, clazz, session);
+
+		// nothing is loaded into the session, but keep it from growing anyway
+		session.clear();
+		return results;
+	}
+
+}
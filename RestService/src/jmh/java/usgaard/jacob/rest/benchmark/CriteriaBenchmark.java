@@ -0,0 +1,70 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.beans.PropertyDescriptor;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import usgaard.jacob.rest.RestService;
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.request.RestRequest;
+
+/**
+ * Measures turning a converted request into a Hibernate {@link Criteria}
+ * without executing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CriteriaBenchmark {
+
+	@Param({ "narrow", "wide" })
+	private String entity;
+
+	@Param({ "1", "12", "48" })
+	private int filters;
+
+	private RestService restService;
+	private SessionFactory sessionFactory;
+	private Session session;
+	private RestRequest<PropertyDescriptor, Operator, Object> restRequest;
+
+	@Setup
+	public void setup() throws Exception {
+		restService = new RestService();
+		sessionFactory = Database.buildSessionFactory();
+		session = sessionFactory.openSession();
+
+		Class<?> clazz = Queries.entity(entity);
+		restRequest = restService.convert(Queries.filterQuery(clazz, filters), clazz);
+	}
+
+	@TearDown
+	public void tearDown() {
+		session.close();
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public Criteria generateCriteria() {
+		return restService.getCriteriaGenerator().generateCriteria(session, restRequest);
+	}
+
+}
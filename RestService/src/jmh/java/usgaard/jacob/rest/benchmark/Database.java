@@ -0,0 +1,66 @@
+package usgaard.jacob.rest.benchmark;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Configuration;
+
+import usgaard.jacob.rest.benchmark.domain.NarrowObject;
+import usgaard.jacob.rest.benchmark.domain.WideObject;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+
+/**
+ * The in-memory HSQLDB database behind the benchmarks that talk to Hibernate.
+ */
+final class Database {
+
+	private static final int BATCH_SIZE = 100;
+
+	private Database() {
+	}
+
+	static SessionFactory buildSessionFactory() {
+		Configuration configuration = new Configuration().configure("hibernate-benchmark.cfg.xml");
+		configuration.addAnnotatedClass(NarrowObject.class);
+		configuration.addAnnotatedClass(WideObject.class);
+
+		return configuration.buildSessionFactory(
+				new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build());
+	}
+
+	/**
+	 * Inserts rows instances of clazz with ids 0 to rows - 1. Column n of row i
+	 * holds (i + n) % 100.
+	 */
+	static void populate(SessionFactory sessionFactory, Class<?> clazz, int rows) throws Throwable {
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+
+			for (int row = 0; row < rows; row++) {
+				Object object = clazz.newInstance();
+
+				int column = 0;
+				for (PropertyMetadata propertyMetadata : ClassMetadataRegistry.getClassMetadata(clazz)
+						.getProperties()) {
+					Object value = "id".equals(propertyMetadata.getName()) ? (Object) Long.valueOf(row)
+							: (Object) Integer.valueOf((row + ++column) % 100);
+					propertyMetadata.getSetter().invokeExact(object, value);
+				}
+				session.save(object);
+
+				if (row % BATCH_SIZE == BATCH_SIZE - 1) {
+					session.flush();
+					session.clear();
+				}
+			}
+
+			session.getTransaction().commit();
+		} finally {
+			session.close();
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import usgaard.jacob.rest.QueryTokenizer;
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.benchmark.domain.WideObject;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * Measures parsing a query string into parameter mappings as the query grows.
+ * The tokenizer is called directly, as the mapper of a RestService does; the
+ * public mappers copy each value into a String on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	@Param({ "1", "12", "48" })
+	private int filters;
+
+	private String query;
+
+	@Setup
+	public void setup() throws Exception {
+		query = Queries.filterQuery(WideObject.class, filters);
+	}
+
+	@Benchmark
+	public List<ParameterMapping<String, Operator, Object>> parse() throws Exception {
+		return QueryTokenizer.tokenize(query);
+	}
+
+}
@@ -0,0 +1,73 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import usgaard.jacob.rest.QueryTokenizer;
+import usgaard.jacob.rest.RestService;
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.request.IndexedParameterMappings;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * Measures how resolving parameters against properties scales with the width
+ * of the entity and the number of filters in the query. The cost should grow
+ * with the number of filters only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyResolutionBenchmark {
+
+	@Param({ "narrow", "wide" })
+	private String entity;
+
+	@Param({ "1", "12", "48" })
+	private int filters;
+
+	private RestService restService;
+	private Class<?> clazz;
+	private List<ParameterMapping<String, Operator, Object>> parameterMappings;
+
+	@Setup
+	public void setup() throws Exception {
+		restService = new RestService();
+		clazz = Queries.entity(entity);
+
+		// make sure the parsing stage and the introspection are not measured
+		parameterMappings = QueryTokenizer.tokenize(Queries.filterQuery(clazz, filters));
+		ClassMetadataRegistry.warmUp(clazz);
+	}
+
+	@Benchmark
+	public void resolve(Blackhole blackhole) throws Exception {
+		// indexing is part of the per-request cost
+		List<ParameterMapping<String, Operator, Object>> parameterMappings = IndexedParameterMappings
+				.of(this.parameterMappings);
+
+		blackhole.consume(restService.getSearchCriteriaGenerator().generateSearchCriteria(clazz, parameterMappings,
+				restService.getTypeGenerator()));
+		blackhole.consume(restService.getFieldMapper().generateFieldMappings(clazz, parameterMappings,
+				restService.getTypeGenerator(), "fields"));
+		blackhole.consume(restService.getOrderMapper().generateOrderMappings(clazz, parameterMappings,
+				restService.getTypeGenerator(), "order"));
+	}
+
+}
@@ -0,0 +1,53 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.beans.IntrospectionException;
+
+import usgaard.jacob.rest.benchmark.domain.NarrowObject;
+import usgaard.jacob.rest.benchmark.domain.WideObject;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+
+/**
+ * Builds the queries used by the benchmarks. Filters cycle through the integer
+ * columns of the benchmark entities, so a query can have more filters than the
+ * entity has columns.
+ */
+final class Queries {
+
+	private Queries() {
+	}
+
+	/**
+	 * @param entity
+	 *            "narrow" or "wide"
+	 */
+	static Class<?> entity(String entity) {
+		return "wide".equals(entity) ? WideObject.class : NarrowObject.class;
+	}
+
+	static int columns(Class<?> clazz) throws IntrospectionException {
+		// every property but the id is a column
+		return ClassMetadataRegistry.getClassMetadata(clazz).getProperties().size() - 1;
+	}
+
+	static String column(int index) {
+		return String.format("column%03d", index);
+	}
+
+	static String filterQuery(Class<?> clazz, int filters) throws IntrospectionException {
+		int columns = columns(clazz);
+		StringBuilder query = new StringBuilder();
+
+		for (int filter = 0; filter < filters; filter++) {
+			query.append(column(filter % columns + 1)).append(filter % 2 == 0 ? ">=" : "!=").append(filter)
+					.append('&');
+		}
+
+		query.append("fields=id");
+		for (int column = 1; column <= Math.min(8, columns); column++) {
+			query.append(',').append(column(column));
+		}
+
+		return query.append("&order=").append(column(1)).append("+,id-").toString();
+	}
+
+}
@@ -0,0 +1,125 @@
+package usgaard.jacob.rest.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import usgaard.jacob.rest.RestService;
+
+/**
+ * Compares the heap a request for 10k rows retains on a session with that on a
+ * stateless session. The score is the time of the request; the retained heap
+ * is measured after a full collection with the results and the still open
+ * session reachable, and its median is printed at the end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RetainedHeapBenchmark {
+
+	private static final int ROWS = 10000;
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	@Param({ "narrow", "wide" })
+	private String entity;
+
+	@Param({ "session", "stateless" })
+	private String mode;
+
+	private RestService restService;
+	private SessionFactory sessionFactory;
+	private Class<?> clazz;
+	private String query;
+
+	private Session session;
+	private StatelessSession statelessSession;
+	private List<?> results;
+	private long baseline;
+	private final List<Long> retained = new ArrayList<Long>();
+
+	@Setup
+	public void setup() throws Throwable {
+		restService = new RestService();
+		sessionFactory = Database.buildSessionFactory();
+		clazz = Queries.entity(entity);
+		Database.populate(sessionFactory, clazz, ROWS);
+
+		query = "id>=0&order=id+&limit=" + ROWS;
+	}
+
+	@Setup(Level.Invocation)
+	public void open() {
+		baseline = usedHeap();
+
+		if ("stateless".equals(mode)) {
+			statelessSession = sessionFactory.openStatelessSession();
+		} else {
+			session = sessionFactory.openSession();
+		}
+	}
+
+	@Benchmark
+	public List<?> convert() throws Exception {
+		results = statelessSession != null ? restService.convert(query, clazz, statelessSession)
+				: restService.convert(query, clazz, session);
+		return results;
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() {
+		// results and session are still reachable here
+		retained.add(usedHeap() - baseline);
+		results = null;
+
+		if (statelessSession != null) {
+			statelessSession.close();
+			statelessSession = null;
+		} else {
+			session.close();
+			session = null;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		Collections.sort(retained);
+		System.out.println("retained bytes per " + ROWS + " rows (" + entity + ", " + mode + "): "
+				+ retained.get(retained.size() / 2));
+
+		sessionFactory.close();
+	}
+
+	private static long usedHeap() {
+		// one collection may leave garbage promoted during it
+		for (int collection = 0; collection < 3; collection++) {
+			System.gc();
+		}
+
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+
+}
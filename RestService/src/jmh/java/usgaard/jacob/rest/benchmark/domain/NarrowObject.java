@@ -0,0 +1,192 @@
+package usgaard.jacob.rest.benchmark.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A benchmark entity with an id and 15 integer columns.
+ */
+@Entity
+@Table
+public class NarrowObject {
+
+	@Id
+	@Column
+	private Long id;
+
+	@Column
+	private Integer column001;
+
+	@Column
+	private Integer column002;
+
+	@Column
+	private Integer column003;
+
+	@Column
+	private Integer column004;
+
+	@Column
+	private Integer column005;
+
+	@Column
+	private Integer column006;
+
+	@Column
+	private Integer column007;
+
+	@Column
+	private Integer column008;
+
+	@Column
+	private Integer column009;
+
+	@Column
+	private Integer column010;
+
+	@Column
+	private Integer column011;
+
+	@Column
+	private Integer column012;
+
+	@Column
+	private Integer column013;
+
+	@Column
+	private Integer column014;
+
+	@Column
+	private Integer column015;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Integer getColumn001() {
+		return column001;
+	}
+
+	public void setColumn001(Integer column001) {
+		this.column001 = column001;
+	}
+
+	public Integer getColumn002() {
+		return column002;
+	}
+
+	public void setColumn002(Integer column002) {
+		this.column002 = column002;
+	}
+
+	public Integer getColumn003() {
+		return column003;
+	}
+
+	public void setColumn003(Integer column003) {
+		this.column003 = column003;
+	}
+
+	public Integer getColumn004() {
+		return column004;
+	}
+
+	public void setColumn004(Integer column004) {
+		this.column004 = column004;
+	}
+
+	public Integer getColumn005() {
+		return column005;
+	}
+
+	public void setColumn005(Integer column005) {
+		this.column005 = column005;
+	}
+
+	public Integer getColumn006() {
+		return column006;
+	}
+
+	public void setColumn006(Integer column006) {
+		this.column006 = column006;
+	}
+
+	public Integer getColumn007() {
+		return column007;
+	}
+
+	public void setColumn007(Integer column007) {
+		this.column007 = column007;
+	}
+
+	public Integer getColumn008() {
+		return column008;
+	}
+
+	public void setColumn008(Integer column008) {
+		this.column008 = column008;
+	}
+
+	public Integer getColumn009() {
+		return column009;
+	}
+
+	public void setColumn009(Integer column009) {
+		this.column009 = column009;
+	}
+
+	public Integer getColumn010() {
+		return column010;
+	}
+
+	public void setColumn010(Integer column010) {
+		this.column010 = column010;
+	}
+
+	public Integer getColumn011() {
+		return column011;
+	}
+
+	public void setColumn011(Integer column011) {
+		this.column011 = column011;
+	}
+
+	public Integer getColumn012() {
+		return column012;
+	}
+
+	public void setColumn012(Integer column012) {
+		this.column012 = column012;
+	}
+
+	public Integer getColumn013() {
+		return column013;
+	}
+
+	public void setColumn013(Integer column013) {
+		this.column013 = column013;
+	}
+
+	public Integer getColumn014() {
+		return column014;
+	}
+
+	public void setColumn014(Integer column014) {
+		this.column014 = column014;
+	}
+
+	public Integer getColumn015() {
+		return column015;
+	}
+
+	public void setColumn015(Integer column015) {
+		this.column015 = column015;
+	}
+
+}
@@ -0,0 +1,1776 @@
+package usgaard.jacob.rest.benchmark.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A benchmark entity with an id and 159 integer columns.
+ */
+@Entity
+@Table
+public class WideObject {
+
+	@Id
+	@Column
+	private Long id;
+
+	@Column
+	private Integer column001;
+
+	@Column
+	private Integer column002;
+
+	@Column
+	private Integer column003;
+
+	@Column
+	private Integer column004;
+
+	@Column
+	private Integer column005;
+
+	@Column
+	private Integer column006;
+
+	@Column
+	private Integer column007;
+
+	@Column
+	private Integer column008;
+
+	@Column
+	private Integer column009;
+
+	@Column
+	private Integer column010;
+
+	@Column
+	private Integer column011;
+
+	@Column
+	private Integer column012;
+
+	@Column
+	private Integer column013;
+
+	@Column
+	private Integer column014;
+
+	@Column
+	private Integer column015;
+
+	@Column
+	private Integer column016;
+
+	@Column
+	private Integer column017;
+
+	@Column
+	private Integer column018;
+
+	@Column
+	private Integer column019;
+
+	@Column
+	private Integer column020;
+
+	@Column
+	private Integer column021;
+
+	@Column
+	private Integer column022;
+
+	@Column
+	private Integer column023;
+
+	@Column
+	private Integer column024;
+
+	@Column
+	private Integer column025;
+
+	@Column
+	private Integer column026;
+
+	@Column
+	private Integer column027;
+
+	@Column
+	private Integer column028;
+
+	@Column
+	private Integer column029;
+
+	@Column
+	private Integer column030;
+
+	@Column
+	private Integer column031;
+
+	@Column
+	private Integer column032;
+
+	@Column
+	private Integer column033;
+
+	@Column
+	private Integer column034;
+
+	@Column
+	private Integer column035;
+
+	@Column
+	private Integer column036;
+
+	@Column
+	private Integer column037;
+
+	@Column
+	private Integer column038;
+
+	@Column
+	private Integer column039;
+
+	@Column
+	private Integer column040;
+
+	@Column
+	private Integer column041;
+
+	@Column
+	private Integer column042;
+
+	@Column
+	private Integer column043;
+
+	@Column
+	private Integer column044;
+
+	@Column
+	private Integer column045;
+
+	@Column
+	private Integer column046;
+
+	@Column
+	private Integer column047;
+
+	@Column
+	private Integer column048;
+
+	@Column
+	private Integer column049;
+
+	@Column
+	private Integer column050;
+
+	@Column
+	private Integer column051;
+
+	@Column
+	private Integer column052;
+
+	@Column
+	private Integer column053;
+
+	@Column
+	private Integer column054;
+
+	@Column
+	private Integer column055;
+
+	@Column
+	private Integer column056;
+
+	@Column
+	private Integer column057;
+
+	@Column
+	private Integer column058;
+
+	@Column
+	private Integer column059;
+
+	@Column
+	private Integer column060;
+
+	@Column
+	private Integer column061;
+
+	@Column
+	private Integer column062;
+
+	@Column
+	private Integer column063;
+
+	@Column
+	private Integer column064;
+
+	@Column
+	private Integer column065;
+
+	@Column
+	private Integer column066;
+
+	@Column
+	private Integer column067;
+
+	@Column
+	private Integer column068;
+
+	@Column
+	private Integer column069;
+
+	@Column
+	private Integer column070;
+
+	@Column
+	private Integer column071;
+
+	@Column
+	private Integer column072;
+
+	@Column
+	private Integer column073;
+
+	@Column
+	private Integer column074;
+
+	@Column
+	private Integer column075;
+
+	@Column
+	private Integer column076;
+
+	@Column
+	private Integer column077;
+
+	@Column
+	private Integer column078;
+
+	@Column
+	private Integer column079;
+
+	@Column
+	private Integer column080;
+
+	@Column
+	private Integer column081;
+
+	@Column
+	private Integer column082;
+
+	@Column
+	private Integer column083;
+
+	@Column
+	private Integer column084;
+
+	@Column
+	private Integer column085;
+
+	@Column
+	private Integer column086;
+
+	@Column
+	private Integer column087;
+
+	@Column
+	private Integer column088;
+
+	@Column
+	private Integer column089;
+
+	@Column
+	private Integer column090;
+
+	@Column
+	private Integer column091;
+
+	@Column
+	private Integer column092;
+
+	@Column
+	private Integer column093;
+
+	@Column
+	private Integer column094;
+
+	@Column
+	private Integer column095;
+
+	@Column
+	private Integer column096;
+
+	@Column
+	private Integer column097;
+
+	@Column
+	private Integer column098;
+
+	@Column
+	private Integer column099;
+
+	@Column
+	private Integer column100;
+
+	@Column
+	private Integer column101;
+
+	@Column
+	private Integer column102;
+
+	@Column
+	private Integer column103;
+
+	@Column
+	private Integer column104;
+
+	@Column
+	private Integer column105;
+
+	@Column
+	private Integer column106;
+
+	@Column
+	private Integer column107;
+
+	@Column
+	private Integer column108;
+
+	@Column
+	private Integer column109;
+
+	@Column
+	private Integer column110;
+
+	@Column
+	private Integer column111;
+
+	@Column
+	private Integer column112;
+
+	@Column
+	private Integer column113;
+
+	@Column
+	private Integer column114;
+
+	@Column
+	private Integer column115;
+
+	@Column
+	private Integer column116;
+
+	@Column
+	private Integer column117;
+
+	@Column
+	private Integer column118;
+
+	@Column
+	private Integer column119;
+
+	@Column
+	private Integer column120;
+
+	@Column
+	private Integer column121;
+
+	@Column
+	private Integer column122;
+
+	@Column
+	private Integer column123;
+
+	@Column
+	private Integer column124;
+
+	@Column
+	private Integer column125;
+
+	@Column
+	private Integer column126;
+
+	@Column
+	private Integer column127;
+
+	@Column
+	private Integer column128;
+
+	@Column
+	private Integer column129;
+
+	@Column
+	private Integer column130;
+
+	@Column
+	private Integer column131;
+
+	@Column
+	private Integer column132;
+
+	@Column
+	private Integer column133;
+
+	@Column
+	private Integer column134;
+
+	@Column
+	private Integer column135;
+
+	@Column
+	private Integer column136;
+
+	@Column
+	private Integer column137;
+
+	@Column
+	private Integer column138;
+
+	@Column
+	private Integer column139;
+
+	@Column
+	private Integer column140;
+
+	@Column
+	private Integer column141;
+
+	@Column
+	private Integer column142;
+
+	@Column
+	private Integer column143;
+
+	@Column
+	private Integer column144;
+
+	@Column
+	private Integer column145;
+
+	@Column
+	private Integer column146;
+
+	@Column
+	private Integer column147;
+
+	@Column
+	private Integer column148;
+
+	@Column
+	private Integer column149;
+
+	@Column
+	private Integer column150;
+
+	@Column
+	private Integer column151;
+
+	@Column
+	private Integer column152;
+
+	@Column
+	private Integer column153;
+
+	@Column
+	private Integer column154;
+
+	@Column
+	private Integer column155;
+
+	@Column
+	private Integer column156;
+
+	@Column
+	private Integer column157;
+
+	@Column
+	private Integer column158;
+
+	@Column
+	private Integer column159;
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Integer getColumn001() {
+		return column001;
+	}
+
+	public void setColumn001(Integer column001) {
+		this.column001 = column001;
+	}
+
+	public Integer getColumn002() {
+		return column002;
+	}
+
+	public void setColumn002(Integer column002) {
+		this.column002 = column002;
+	}
+
+	public Integer getColumn003() {
+		return column003;
+	}
+
+	public void setColumn003(Integer column003) {
+		this.column003 = column003;
+	}
+
+	public Integer getColumn004() {
+		return column004;
+	}
+
+	public void setColumn004(Integer column004) {
+		this.column004 = column004;
+	}
+
+	public Integer getColumn005() {
+		return column005;
+	}
+
+	public void setColumn005(Integer column005) {
+		this.column005 = column005;
+	}
+
+	public Integer getColumn006() {
+		return column006;
+	}
+
+	public void setColumn006(Integer column006) {
+		this.column006 = column006;
+	}
+
+	public Integer getColumn007() {
+		return column007;
+	}
+
+	public void setColumn007(Integer column007) {
+		this.column007 = column007;
+	}
+
+	public Integer getColumn008() {
+		return column008;
+	}
+
+	public void setColumn008(Integer column008) {
+		this.column008 = column008;
+	}
+
+	public Integer getColumn009() {
+		return column009;
+	}
+
+	public void setColumn009(Integer column009) {
+		this.column009 = column009;
+	}
+
+	public Integer getColumn010() {
+		return column010;
+	}
+
+	public void setColumn010(Integer column010) {
+		this.column010 = column010;
+	}
+
+	public Integer getColumn011() {
+		return column011;
+	}
+
+	public void setColumn011(Integer column011) {
+		this.column011 = column011;
+	}
+
+	public Integer getColumn012() {
+		return column012;
+	}
+
+	public void setColumn012(Integer column012) {
+		this.column012 = column012;
+	}
+
+	public Integer getColumn013() {
+		return column013;
+	}
+
+	public void setColumn013(Integer column013) {
+		this.column013 = column013;
+	}
+
+	public Integer getColumn014() {
+		return column014;
+	}
+
+	public void setColumn014(Integer column014) {
+		this.column014 = column014;
+	}
+
+	public Integer getColumn015() {
+		return column015;
+	}
+
+	public void setColumn015(Integer column015) {
+		this.column015 = column015;
+	}
+
+	public Integer getColumn016() {
+		return column016;
+	}
+
+	public void setColumn016(Integer column016) {
+		this.column016 = column016;
+	}
+
+	public Integer getColumn017() {
+		return column017;
+	}
+
+	public void setColumn017(Integer column017) {
+		this.column017 = column017;
+	}
+
+	public Integer getColumn018() {
+		return column018;
+	}
+
+	public void setColumn018(Integer column018) {
+		this.column018 = column018;
+	}
+
+	public Integer getColumn019() {
+		return column019;
+	}
+
+	public void setColumn019(Integer column019) {
+		this.column019 = column019;
+	}
+
+	public Integer getColumn020() {
+		return column020;
+	}
+
+	public void setColumn020(Integer column020) {
+		this.column020 = column020;
+	}
+
+	public Integer getColumn021() {
+		return column021;
+	}
+
+	public void setColumn021(Integer column021) {
+		this.column021 = column021;
+	}
+
+	public Integer getColumn022() {
+		return column022;
+	}
+
+	public void setColumn022(Integer column022) {
+		this.column022 = column022;
+	}
+
+	public Integer getColumn023() {
+		return column023;
+	}
+
+	public void setColumn023(Integer column023) {
+		this.column023 = column023;
+	}
+
+	public Integer getColumn024() {
+		return column024;
+	}
+
+	public void setColumn024(Integer column024) {
+		this.column024 = column024;
+	}
+
+	public Integer getColumn025() {
+		return column025;
+	}
+
+	public void setColumn025(Integer column025) {
+		this.column025 = column025;
+	}
+
+	public Integer getColumn026() {
+		return column026;
+	}
+
+	public void setColumn026(Integer column026) {
+		this.column026 = column026;
+	}
+
+	public Integer getColumn027() {
+		return column027;
+	}
+
+	public void setColumn027(Integer column027) {
+		this.column027 = column027;
+	}
+
+	public Integer getColumn028() {
+		return column028;
+	}
+
+	public void setColumn028(Integer column028) {
+		this.column028 = column028;
+	}
+
+	public Integer getColumn029() {
+		return column029;
+	}
+
+	public void setColumn029(Integer column029) {
+		this.column029 = column029;
+	}
+
+	public Integer getColumn030() {
+		return column030;
+	}
+
+	public void setColumn030(Integer column030) {
+		this.column030 = column030;
+	}
+
+	public Integer getColumn031() {
+		return column031;
+	}
+
+	public void setColumn031(Integer column031) {
+		this.column031 = column031;
+	}
+
+	public Integer getColumn032() {
+		return column032;
+	}
+
+	public void setColumn032(Integer column032) {
+		this.column032 = column032;
+	}
+
+	public Integer getColumn033() {
+		return column033;
+	}
+
+	public void setColumn033(Integer column033) {
+		this.column033 = column033;
+	}
+
+	public Integer getColumn034() {
+		return column034;
+	}
+
+	public void setColumn034(Integer column034) {
+		this.column034 = column034;
+	}
+
+	public Integer getColumn035() {
+		return column035;
+	}
+
+	public void setColumn035(Integer column035) {
+		this.column035 = column035;
+	}
+
+	public Integer getColumn036() {
+		return column036;
+	}
+
+	public void setColumn036(Integer column036) {
+		this.column036 = column036;
+	}
+
+	public Integer getColumn037() {
+		return column037;
+	}
+
+	public void setColumn037(Integer column037) {
+		this.column037 = column037;
+	}
+
+	public Integer getColumn038() {
+		return column038;
+	}
+
+	public void setColumn038(Integer column038) {
+		this.column038 = column038;
+	}
+
+	public Integer getColumn039() {
+		return column039;
+	}
+
+	public void setColumn039(Integer column039) {
+		this.column039 = column039;
+	}
+
+	public Integer getColumn040() {
+		return column040;
+	}
+
+	public void setColumn040(Integer column040) {
+		this.column040 = column040;
+	}
+
+	public Integer getColumn041() {
+		return column041;
+	}
+
+	public void setColumn041(Integer column041) {
+		this.column041 = column041;
+	}
+
+	public Integer getColumn042() {
+		return column042;
+	}
+
+	public void setColumn042(Integer column042) {
+		this.column042 = column042;
+	}
+
+	public Integer getColumn043() {
+		return column043;
+	}
+
+	public void setColumn043(Integer column043) {
+		this.column043 = column043;
+	}
+
+	public Integer getColumn044() {
+		return column044;
+	}
+
+	public void setColumn044(Integer column044) {
+		this.column044 = column044;
+	}
+
+	public Integer getColumn045() {
+		return column045;
+	}
+
+	public void setColumn045(Integer column045) {
+		this.column045 = column045;
+	}
+
+	public Integer getColumn046() {
+		return column046;
+	}
+
+	public void setColumn046(Integer column046) {
+		this.column046 = column046;
+	}
+
+	public Integer getColumn047() {
+		return column047;
+	}
+
+	public void setColumn047(Integer column047) {
+		this.column047 = column047;
+	}
+
+	public Integer getColumn048() {
+		return column048;
+	}
+
+	public void setColumn048(Integer column048) {
+		this.column048 = column048;
+	}
+
+	public Integer getColumn049() {
+		return column049;
+	}
+
+	public void setColumn049(Integer column049) {
+		this.column049 = column049;
+	}
+
+	public Integer getColumn050() {
+		return column050;
+	}
+
+	public void setColumn050(Integer column050) {
+		this.column050 = column050;
+	}
+
+	public Integer getColumn051() {
+		return column051;
+	}
+
+	public void setColumn051(Integer column051) {
+		this.column051 = column051;
+	}
+
+	public Integer getColumn052() {
+		return column052;
+	}
+
+	public void setColumn052(Integer column052) {
+		this.column052 = column052;
+	}
+
+	public Integer getColumn053() {
+		return column053;
+	}
+
+	public void setColumn053(Integer column053) {
+		this.column053 = column053;
+	}
+
+	public Integer getColumn054() {
+		return column054;
+	}
+
+	public void setColumn054(Integer column054) {
+		this.column054 = column054;
+	}
+
+	public Integer getColumn055() {
+		return column055;
+	}
+
+	public void setColumn055(Integer column055) {
+		this.column055 = column055;
+	}
+
+	public Integer getColumn056() {
+		return column056;
+	}
+
+	public void setColumn056(Integer column056) {
+		this.column056 = column056;
+	}
+
+	public Integer getColumn057() {
+		return column057;
+	}
+
+	public void setColumn057(Integer column057) {
+		this.column057 = column057;
+	}
+
+	public Integer getColumn058() {
+		return column058;
+	}
+
+	public void setColumn058(Integer column058) {
+		this.column058 = column058;
+	}
+
+	public Integer getColumn059() {
+		return column059;
+	}
+
+	public void setColumn059(Integer column059) {
+		this.column059 = column059;
+	}
+
+	public Integer getColumn060() {
+		return column060;
+	}
+
+	public void setColumn060(Integer column060) {
+		this.column060 = column060;
+	}
+
+	public Integer getColumn061() {
+		return column061;
+	}
+
+	public void setColumn061(Integer column061) {
+		this.column061 = column061;
+	}
+
+	public Integer getColumn062() {
+		return column062;
+	}
+
+	public void setColumn062(Integer column062) {
+		this.column062 = column062;
+	}
+
+	public Integer getColumn063() {
+		return column063;
+	}
+
+	public void setColumn063(Integer column063) {
+		this.column063 = column063;
+	}
+
+	public Integer getColumn064() {
+		return column064;
+	}
+
+	public void setColumn064(Integer column064) {
+		this.column064 = column064;
+	}
+
+	public Integer getColumn065() {
+		return column065;
+	}
+
+	public void setColumn065(Integer column065) {
+		this.column065 = column065;
+	}
+
+	public Integer getColumn066() {
+		return column066;
+	}
+
+	public void setColumn066(Integer column066) {
+		this.column066 = column066;
+	}
+
+	public Integer getColumn067() {
+		return column067;
+	}
+
+	public void setColumn067(Integer column067) {
+		this.column067 = column067;
+	}
+
+	public Integer getColumn068() {
+		return column068;
+	}
+
+	public void setColumn068(Integer column068) {
+		this.column068 = column068;
+	}
+
+	public Integer getColumn069() {
+		return column069;
+	}
+
+	public void setColumn069(Integer column069) {
+		this.column069 = column069;
+	}
+
+	public Integer getColumn070() {
+		return column070;
+	}
+
+	public void setColumn070(Integer column070) {
+		this.column070 = column070;
+	}
+
+	public Integer getColumn071() {
+		return column071;
+	}
+
+	public void setColumn071(Integer column071) {
+		this.column071 = column071;
+	}
+
+	public Integer getColumn072() {
+		return column072;
+	}
+
+	public void setColumn072(Integer column072) {
+		this.column072 = column072;
+	}
+
+	public Integer getColumn073() {
+		return column073;
+	}
+
+	public void setColumn073(Integer column073) {
+		this.column073 = column073;
+	}
+
+	public Integer getColumn074() {
+		return column074;
+	}
+
+	public void setColumn074(Integer column074) {
+		this.column074 = column074;
+	}
+
+	public Integer getColumn075() {
+		return column075;
+	}
+
+	public void setColumn075(Integer column075) {
+		this.column075 = column075;
+	}
+
+	public Integer getColumn076() {
+		return column076;
+	}
+
+	public void setColumn076(Integer column076) {
+		this.column076 = column076;
+	}
+
+	public Integer getColumn077() {
+		return column077;
+	}
+
+	public void setColumn077(Integer column077) {
+		this.column077 = column077;
+	}
+
+	public Integer getColumn078() {
+		return column078;
+	}
+
+	public void setColumn078(Integer column078) {
+		this.column078 = column078;
+	}
+
+	public Integer getColumn079() {
+		return column079;
+	}
+
+	public void setColumn079(Integer column079) {
+		this.column079 = column079;
+	}
+
+	public Integer getColumn080() {
+		return column080;
+	}
+
+	public void setColumn080(Integer column080) {
+		this.column080 = column080;
+	}
+
+	public Integer getColumn081() {
+		return column081;
+	}
+
+	public void setColumn081(Integer column081) {
+		this.column081 = column081;
+	}
+
+	public Integer getColumn082() {
+		return column082;
+	}
+
+	public void setColumn082(Integer column082) {
+		this.column082 = column082;
+	}
+
+	public Integer getColumn083() {
+		return column083;
+	}
+
+	public void setColumn083(Integer column083) {
+		this.column083 = column083;
+	}
+
+	public Integer getColumn084() {
+		return column084;
+	}
+
+	public void setColumn084(Integer column084) {
+		this.column084 = column084;
+	}
+
+	public Integer getColumn085() {
+		return column085;
+	}
+
+	public void setColumn085(Integer column085) {
+		this.column085 = column085;
+	}
+
+	public Integer getColumn086() {
+		return column086;
+	}
+
+	public void setColumn086(Integer column086) {
+		this.column086 = column086;
+	}
+
+	public Integer getColumn087() {
+		return column087;
+	}
+
+	public void setColumn087(Integer column087) {
+		this.column087 = column087;
+	}
+
+	public Integer getColumn088() {
+		return column088;
+	}
+
+	public void setColumn088(Integer column088) {
+		this.column088 = column088;
+	}
+
+	public Integer getColumn089() {
+		return column089;
+	}
+
+	public void setColumn089(Integer column089) {
+		this.column089 = column089;
+	}
+
+	public Integer getColumn090() {
+		return column090;
+	}
+
+	public void setColumn090(Integer column090) {
+		this.column090 = column090;
+	}
+
+	public Integer getColumn091() {
+		return column091;
+	}
+
+	public void setColumn091(Integer column091) {
+		this.column091 = column091;
+	}
+
+	public Integer getColumn092() {
+		return column092;
+	}
+
+	public void setColumn092(Integer column092) {
+		this.column092 = column092;
+	}
+
+	public Integer getColumn093() {
+		return column093;
+	}
+
+	public void setColumn093(Integer column093) {
+		this.column093 = column093;
+	}
+
+	public Integer getColumn094() {
+		return column094;
+	}
+
+	public void setColumn094(Integer column094) {
+		this.column094 = column094;
+	}
+
+	public Integer getColumn095() {
+		return column095;
+	}
+
+	public void setColumn095(Integer column095) {
+		this.column095 = column095;
+	}
+
+	public Integer getColumn096() {
+		return column096;
+	}
+
+	public void setColumn096(Integer column096) {
+		this.column096 = column096;
+	}
+
+	public Integer getColumn097() {
+		return column097;
+	}
+
+	public void setColumn097(Integer column097) {
+		this.column097 = column097;
+	}
+
+	public Integer getColumn098() {
+		return column098;
+	}
+
+	public void setColumn098(Integer column098) {
+		this.column098 = column098;
+	}
+
+	public Integer getColumn099() {
+		return column099;
+	}
+
+	public void setColumn099(Integer column099) {
+		this.column099 = column099;
+	}
+
+	public Integer getColumn100() {
+		return column100;
+	}
+
+	public void setColumn100(Integer column100) {
+		this.column100 = column100;
+	}
+
+	public Integer getColumn101() {
+		return column101;
+	}
+
+	public void setColumn101(Integer column101) {
+		this.column101 = column101;
+	}
+
+	public Integer getColumn102() {
+		return column102;
+	}
+
+	public void setColumn102(Integer column102) {
+		this.column102 = column102;
+	}
+
+	public Integer getColumn103() {
+		return column103;
+	}
+
+	public void setColumn103(Integer column103) {
+		this.column103 = column103;
+	}
+
+	public Integer getColumn104() {
+		return column104;
+	}
+
+	public void setColumn104(Integer column104) {
+		this.column104 = column104;
+	}
+
+	public Integer getColumn105() {
+		return column105;
+	}
+
+	public void setColumn105(Integer column105) {
+		this.column105 = column105;
+	}
+
+	public Integer getColumn106() {
+		return column106;
+	}
+
+	public void setColumn106(Integer column106) {
+		this.column106 = column106;
+	}
+
+	public Integer getColumn107() {
+		return column107;
+	}
+
+	public void setColumn107(Integer column107) {
+		this.column107 = column107;
+	}
+
+	public Integer getColumn108() {
+		return column108;
+	}
+
+	public void setColumn108(Integer column108) {
+		this.column108 = column108;
+	}
+
+	public Integer getColumn109() {
+		return column109;
+	}
+
+	public void setColumn109(Integer column109) {
+		this.column109 = column109;
+	}
+
+	public Integer getColumn110() {
+		return column110;
+	}
+
+	public void setColumn110(Integer column110) {
+		this.column110 = column110;
+	}
+
+	public Integer getColumn111() {
+		return column111;
+	}
+
+	public void setColumn111(Integer column111) {
+		this.column111 = column111;
+	}
+
+	public Integer getColumn112() {
+		return column112;
+	}
+
+	public void setColumn112(Integer column112) {
+		this.column112 = column112;
+	}
+
+	public Integer getColumn113() {
+		return column113;
+	}
+
+	public void setColumn113(Integer column113) {
+		this.column113 = column113;
+	}
+
+	public Integer getColumn114() {
+		return column114;
+	}
+
+	public void setColumn114(Integer column114) {
+		this.column114 = column114;
+	}
+
+	public Integer getColumn115() {
+		return column115;
+	}
+
+	public void setColumn115(Integer column115) {
+		this.column115 = column115;
+	}
+
+	public Integer getColumn116() {
+		return column116;
+	}
+
+	public void setColumn116(Integer column116) {
+		this.column116 = column116;
+	}
+
+	public Integer getColumn117() {
+		return column117;
+	}
+
+	public void setColumn117(Integer column117) {
+		this.column117 = column117;
+	}
+
+	public Integer getColumn118() {
+		return column118;
+	}
+
+	public void setColumn118(Integer column118) {
+		this.column118 = column118;
+	}
+
+	public Integer getColumn119() {
+		return column119;
+	}
+
+	public void setColumn119(Integer column119) {
+		this.column119 = column119;
+	}
+
+	public Integer getColumn120() {
+		return column120;
+	}
+
+	public void setColumn120(Integer column120) {
+		this.column120 = column120;
+	}
+
+	public Integer getColumn121() {
+		return column121;
+	}
+
+	public void setColumn121(Integer column121) {
+		this.column121 = column121;
+	}
+
+	public Integer getColumn122() {
+		return column122;
+	}
+
+	public void setColumn122(Integer column122) {
+		this.column122 = column122;
+	}
+
+	public Integer getColumn123() {
+		return column123;
+	}
+
+	public void setColumn123(Integer column123) {
+		this.column123 = column123;
+	}
+
+	public Integer getColumn124() {
+		return column124;
+	}
+
+	public void setColumn124(Integer column124) {
+		this.column124 = column124;
+	}
+
+	public Integer getColumn125() {
+		return column125;
+	}
+
+	public void setColumn125(Integer column125) {
+		this.column125 = column125;
+	}
+
+	public Integer getColumn126() {
+		return column126;
+	}
+
+	public void setColumn126(Integer column126) {
+		this.column126 = column126;
+	}
+
+	public Integer getColumn127() {
+		return column127;
+	}
+
+	public void setColumn127(Integer column127) {
+		this.column127 = column127;
+	}
+
+	public Integer getColumn128() {
+		return column128;
+	}
+
+	public void setColumn128(Integer column128) {
+		this.column128 = column128;
+	}
+
+	public Integer getColumn129() {
+		return column129;
+	}
+
+	public void setColumn129(Integer column129) {
+		this.column129 = column129;
+	}
+
+	public Integer getColumn130() {
+		return column130;
+	}
+
+	public void setColumn130(Integer column130) {
+		this.column130 = column130;
+	}
+
+	public Integer getColumn131() {
+		return column131;
+	}
+
+	public void setColumn131(Integer column131) {
+		this.column131 = column131;
+	}
+
+	public Integer getColumn132() {
+		return column132;
+	}
+
+	public void setColumn132(Integer column132) {
+		this.column132 = column132;
+	}
+
+	public Integer getColumn133() {
+		return column133;
+	}
+
+	public void setColumn133(Integer column133) {
+		this.column133 = column133;
+	}
+
+	public Integer getColumn134() {
+		return column134;
+	}
+
+	public void setColumn134(Integer column134) {
+		this.column134 = column134;
+	}
+
+	public Integer getColumn135() {
+		return column135;
+	}
+
+	public void setColumn135(Integer column135) {
+		this.column135 = column135;
+	}
+
+	public Integer getColumn136() {
+		return column136;
+	}
+
+	public void setColumn136(Integer column136) {
+		this.column136 = column136;
+	}
+
+	public Integer getColumn137() {
+		return column137;
+	}
+
+	public void setColumn137(Integer column137) {
+		this.column137 = column137;
+	}
+
+	public Integer getColumn138() {
+		return column138;
+	}
+
+	public void setColumn138(Integer column138) {
+		this.column138 = column138;
+	}
+
+	public Integer getColumn139() {
+		return column139;
+	}
+
+	public void setColumn139(Integer column139) {
+		this.column139 = column139;
+	}
+
+	public Integer getColumn140() {
+		return column140;
+	}
+
+	public void setColumn140(Integer column140) {
+		this.column140 = column140;
+	}
+
+	public Integer getColumn141() {
+		return column141;
+	}
+
+	public void setColumn141(Integer column141) {
+		this.column141 = column141;
+	}
+
+	public Integer getColumn142() {
+		return column142;
+	}
+
+	public void setColumn142(Integer column142) {
+		this.column142 = column142;
+	}
+
+	public Integer getColumn143() {
+		return column143;
+	}
+
+	public void setColumn143(Integer column143) {
+		this.column143 = column143;
+	}
+
+	public Integer getColumn144() {
+		return column144;
+	}
+
+	public void setColumn144(Integer column144) {
+		this.column144 = column144;
+	}
+
+	public Integer getColumn145() {
+		return column145;
+	}
+
+	public void setColumn145(Integer column145) {
+		this.column145 = column145;
+	}
+
+	public Integer getColumn146() {
+		return column146;
+	}
+
+	public void setColumn146(Integer column146) {
+		this.column146 = column146;
+	}
+
+	public Integer getColumn147() {
+		return column147;
+	}
+
+	public void setColumn147(Integer column147) {
+		this.column147 = column147;
+	}
+
+	public Integer getColumn148() {
+		return column148;
+	}
+
+	public void setColumn148(Integer column148) {
+		this.column148 = column148;
+	}
+
+	public Integer getColumn149() {
+		return column149;
+	}
+
+	public void setColumn149(Integer column149) {
+		this.column149 = column149;
+	}
+
+	public Integer getColumn150() {
+		return column150;
+	}
+
+	public void setColumn150(Integer column150) {
+		this.column150 = column150;
+	}
+
+	public Integer getColumn151() {
+		return column151;
+	}
+
+	public void setColumn151(Integer column151) {
+		this.column151 = column151;
+	}
+
+	public Integer getColumn152() {
+		return column152;
+	}
+
+	public void setColumn152(Integer column152) {
+		this.column152 = column152;
+	}
+
+	public Integer getColumn153() {
+		return column153;
+	}
+
+	public void setColumn153(Integer column153) {
+		this.column153 = column153;
+	}
+
+	public Integer getColumn154() {
+		return column154;
+	}
+
+	public void setColumn154(Integer column154) {
+		this.column154 = column154;
+	}
+
+	public Integer getColumn155() {
+		return column155;
+	}
+
+	public void setColumn155(Integer column155) {
+		this.column155 = column155;
+	}
+
+	public Integer getColumn156() {
+		return column156;
+	}
+
+	public void setColumn156(Integer column156) {
+		this.column156 = column156;
+	}
+
+	public Integer getColumn157() {
+		return column157;
+	}
+
+	public void setColumn157(Integer column157) {
+		this.column157 = column157;
+	}
+
+	public Integer getColumn158() {
+		return column158;
+	}
+
+	public void setColumn158(Integer column158) {
+		this.column158 = column158;
+	}
+
+	public Integer getColumn159() {
+		return column159;
+	}
+
+	public void setColumn159(Integer column159) {
+		this.column159 = column159;
+	}
+
+}
@@ -0,0 +1,366 @@
+package usgaard.jacob.rest;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.request.RestRequest;
+
+/**
+ * Runs the queries of a {@link RestService} on an executor of its own, so the
+ * calling thread, e.g. a servlet request thread, is not held for the database
+ * round trip. Every query opens its own session from the session factory and
+ * closes it when done.
+ *
+ * <p>
+ * A query given a timeout is limited to it on the database through
+ * {@link org.hibernate.Criteria#setTimeout(int)} and, should the database not
+ * honour it, its future fails with a {@link TimeoutException} once the timeout
+ * passes. A future that is cancelled or times out cancels its statement if it
+ * is running and skips it if it is still queued.
+ * </p>
+ */
+public class AsyncRestService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRestService.class);
+
+	private static final ScheduledExecutorService TIMER = createTimer();
+
+	private final RestService restService;
+	private final SessionFactory sessionFactory;
+	private final Executor executor;
+
+	/**
+	 * @param restService
+	 * @param sessionFactory
+	 *            the factory of the session of each query
+	 * @param executor
+	 *            the executor queries run on, preferably bounded, see
+	 *            {@link #newBoundedExecutor(int, int)}
+	 */
+	public AsyncRestService(RestService restService, SessionFactory sessionFactory, Executor executor) {
+		this.restService = restService;
+		this.sessionFactory = sessionFactory;
+		this.executor = executor;
+	}
+
+	/**
+	 * @param threads
+	 *            the number of queries run at once, at most the number of
+	 *            connections the session factory may open
+	 * @param queueCapacity
+	 *            the number of queries waiting for a thread before further
+	 *            queries are rejected
+	 * @return an executor of daemon threads, to be shut down by the caller
+	 */
+	public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+		final AtomicInteger count = new AtomicInteger();
+
+		return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "rest-query-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * @param query
+	 * @param clazz
+	 * @return the future instances of clazz
+	 * @see RestService#convert(String, Class, Session)
+	 */
+	public <T> CompletableFuture<List<T>> convert(String query, Class<T> clazz) {
+		return this.convert(query, clazz, 0, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * @param query
+	 * @param clazz
+	 * @param timeout
+	 *            the time the query may take from submission on, or 0 for no
+	 *            limit
+	 * @param unit
+	 * @return the future instances of clazz, failing with a
+	 *         {@link RejectedExecutionException} if the executor is saturated
+	 * @see RestService#convert(String, Class, Session)
+	 */
+	public <T> CompletableFuture<List<T>> convert(final String query, final Class<T> clazz, long timeout,
+			TimeUnit unit) {
+		return this.submit(new Query<List<T>>(timeout, unit) {
+
+			@Override
+			protected List<T> execute(Integer timeoutSeconds, Session session)
+					throws IntrospectionException, ParameterException, ConversionException {
+				RestRequest<PropertyDescriptor, Operator, Object> restRequest = restService.convert(query, clazz);
+				restRequest.setTimeout(timeoutSeconds);
+				return restService.convert(restRequest, clazz, session);
+			}
+		});
+	}
+
+	/**
+	 * Writes the result of the request of asyncContext to its response as JSON
+	 * and completes asyncContext. A failure before anything was written is
+	 * sent as an error status instead: 400 for an invalid request, 503 for a
+	 * saturated executor, 504 for a timeout and 500 otherwise. A future
+	 * cancelled by the caller sends no status, the caller having given up on
+	 * the response.
+	 *
+	 * @param asyncContext
+	 *            the context of a request put into asynchronous mode
+	 * @param clazz
+	 * @param timeout
+	 *            the time the query may take from submission on, or 0 for no
+	 *            limit
+	 * @param unit
+	 * @return the future number of rows written
+	 * @see RestService#write(RestRequest, Class, Session, ServletResponse)
+	 */
+	public CompletableFuture<Integer> write(final AsyncContext asyncContext, final Class<?> clazz, long timeout,
+			TimeUnit unit) {
+		final Query<Integer> query = new Query<Integer>(timeout, unit) {
+
+			@Override
+			protected Integer execute(Integer timeoutSeconds, Session session) throws Exception {
+				try {
+					RestRequest<PropertyDescriptor, Operator, Object> restRequest = restService
+							.convert(asyncContext.getRequest(), clazz);
+					restRequest.setTimeout(timeoutSeconds);
+					return restService.write(restRequest, clazz, session, asyncContext.getResponse());
+				} catch (Exception e) {
+					// the statement fails however it was cancelled
+					Throwable cancellation = getCancellation();
+					sendError(asyncContext.getResponse(), cancellation != null ? cancellation : e);
+					throw e;
+				} finally {
+					asyncContext.complete();
+				}
+			}
+		};
+
+		CompletableFuture<Integer> future = this.submit(query);
+		future.whenComplete(new BiConsumer<Integer, Throwable>() {
+
+			@Override
+			public void accept(Integer rows, Throwable throwable) {
+				// a started query owns the response until it completes the context
+				if (throwable == null || query.isStarted()) {
+					return;
+				}
+
+				try {
+					sendError(asyncContext.getResponse(), throwable);
+				} finally {
+					asyncContext.complete();
+				}
+			}
+		});
+
+		return future;
+	}
+
+	private static void sendError(ServletResponse servletResponse, Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+				? throwable.getCause() : throwable;
+
+		if (cause instanceof CancellationException) {
+			LOGGER.debug("query cancelled");
+			return;
+		}
+
+		if (servletResponse.isCommitted() || !(servletResponse instanceof HttpServletResponse)) {
+			LOGGER.warn("query failed after writing began", cause);
+			return;
+		}
+
+		int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		if (cause instanceof ParameterException || cause instanceof ConversionException) {
+			status = HttpServletResponse.SC_BAD_REQUEST;
+		} else if (cause instanceof RejectedExecutionException) {
+			status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+		} else if (cause instanceof TimeoutException) {
+			status = HttpServletResponse.SC_GATEWAY_TIMEOUT;
+		} else {
+			LOGGER.warn("query failed", cause);
+		}
+
+		try {
+			servletResponse.reset();
+			((HttpServletResponse) servletResponse).sendError(status);
+		} catch (IOException | IllegalStateException e) {
+			LOGGER.debug("unable to send error: {}", status, e);
+		}
+	}
+
+	private <V> CompletableFuture<V> submit(final Query<V> query) {
+		final CompletableFuture<V> future = new CompletableFuture<V>();
+		final ScheduledFuture<?> timeout = query.timeoutNanos > 0 ? TIMER.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				future.completeExceptionally(new TimeoutException("Query timed out"));
+			}
+		}, query.timeoutNanos, TimeUnit.NANOSECONDS) : null;
+
+		future.whenComplete(new BiConsumer<V, Throwable>() {
+
+			@Override
+			public void accept(V value, Throwable throwable) {
+				if (timeout != null) {
+					timeout.cancel(false);
+				}
+
+				if (throwable != null) {
+					query.cancel(throwable);
+				}
+			}
+		});
+
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					query.run(future);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+
+		return future;
+	}
+
+	private static ScheduledExecutorService createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "rest-query-timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		// completed queries would otherwise keep their timeouts until they pass
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+
+	/**
+	 * The work of one future: its session is opened when the work starts and
+	 * may be cancelled from any thread until it is closed.
+	 */
+	private abstract class Query<V> {
+
+		private final long timeoutNanos;
+		private final Integer timeoutSeconds;
+		private Session session;
+		private boolean started;
+		private Throwable cancellation;
+
+		private Query(long timeout, TimeUnit unit) {
+			this.timeoutNanos = unit.toNanos(timeout);
+
+			// the database counts in whole seconds, rounded up
+			long seconds = TimeUnit.NANOSECONDS.toSeconds(timeoutNanos);
+			if (seconds * 1000000000L < timeoutNanos) {
+				seconds++;
+			}
+			this.timeoutSeconds = timeoutNanos > 0 ? Integer.valueOf((int) Math.min(seconds, Integer.MAX_VALUE)) : null;
+		}
+
+		protected abstract V execute(Integer timeoutSeconds, Session session) throws Exception;
+
+		private void run(CompletableFuture<V> future) {
+			synchronized (this) {
+				// cancelled or timed out while queued
+				if (cancellation != null || future.isDone()) {
+					return;
+				}
+
+				try {
+					session = sessionFactory.openSession();
+				} catch (RuntimeException e) {
+					future.completeExceptionally(e);
+					return;
+				}
+				started = true;
+			}
+
+			try {
+				future.complete(execute(timeoutSeconds, session));
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			} finally {
+				synchronized (this) {
+					session.close();
+					session = null;
+				}
+			}
+		}
+
+		protected synchronized boolean isStarted() {
+			return started;
+		}
+
+		/**
+		 * @return the failure of the future the query was cancelled for, e.g. a
+		 *         {@link TimeoutException} or {@link CancellationException}, or
+		 *         null
+		 */
+		protected synchronized Throwable getCancellation() {
+			return cancellation;
+		}
+
+		private synchronized void cancel(Throwable cancellation) {
+			this.cancellation = cancellation;
+
+			if (session == null) {
+				return;
+			}
+
+			try {
+				session.cancelQuery();
+			} catch (HibernateException e) {
+				LOGGER.debug("unable to cancel query", e);
+			}
+		}
+	}
+
+}
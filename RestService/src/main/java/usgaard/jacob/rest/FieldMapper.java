@@ -14,6 +14,13 @@ import usgaard.jacob.rest.request.ParameterMapping;
  * @param <Identifier>
  */
 public interface FieldMapper<Identifier> {
+	/**
+	 * The aggregate functions a field may be wrapped in, e.g.
+	 * {@code sum(age)}. {@code count()} counts rows.
+	 */
+	public enum Aggregate {
+		SUM, AVG, MIN, MAX, COUNT;
+	}
 
 	public <Id, Op, Val> List<FieldMapping<Identifier>> generateFieldMappings(Class<?> clazz,
 			List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator,
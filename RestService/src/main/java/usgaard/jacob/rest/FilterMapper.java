@@ -0,0 +1,31 @@
+package usgaard.jacob.rest;
+
+import java.beans.IntrospectionException;
+import java.util.List;
+
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.request.ParameterMapping;
+import usgaard.jacob.rest.request.SearchCriterion;
+
+/**
+ * Turns the filter expressions of a request into a single search criterion.
+ *
+ * @param <Identifier>
+ * @param <Operator>
+ * @param <Value>
+ * @see FilterParser
+ */
+public interface FilterMapper<Identifier, Operator, Value> {
+
+	/**
+	 * @return the conjunction of every filter parameter, or null if there is
+	 *         none
+	 * @throws ParameterException
+	 *             if a filter is malformed
+	 */
+	public <Id, Op, Val> SearchCriterion<Identifier, Operator, Value> generateFilter(Class<?> clazz,
+			List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator,
+			Id filterParameterIdentifier) throws ParameterException, ConversionException, IntrospectionException;
+
+}
@@ -0,0 +1,221 @@
+package usgaard.jacob.rest;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+import usgaard.jacob.rest.request.CompositeSearchCriterion;
+import usgaard.jacob.rest.request.ParameterMapping;
+import usgaard.jacob.rest.request.SearchCriterion;
+
+/**
+ * Parses a filter expression into a tree of {@link SearchCriterion}s. The
+ * grammar, from loosest to tightest binding:
+ *
+ * <pre>
+ * expression := term ('|' term)*
+ * term       := factor ((';' | '&amp;') factor)*
+ * factor     := '!' factor | '(' expression ')' | 'true' | 'false' | predicate
+ * </pre>
+ *
+ * A predicate is a single query parameter such as {@code age>=10} or
+ * {@code id=in:1,2}, e.g. {@code (age>=10|name=Bob);!pi=0}. Since {@code &}
+ * separates the parameters of a query, a raw {@code &} inside a filter must be
+ * written as {@code ;} or percent-encoded. Predicates are percent-decoded once
+ * more after the filter itself, so a {@code |}, {@code ;}, {@code &} or
+ * parenthesis inside a value is percent-encoded twice (e.g. {@code %257C}).
+ *
+ * <p>
+ * Negation is pushed down to the predicates by complementing their operators,
+ * which keeps the SQL meaning for null values as well, and the tree is folded
+ * as described in {@link CompositeSearchCriterion}.
+ * </p>
+ *
+ * <p>
+ * Parentheses and negations may be nested at most {@link #MAXIMUM_DEPTH}
+ * levels deep.
+ * </p>
+ */
+public final class FilterParser {
+
+	public static final int MAXIMUM_DEPTH = 32;
+
+	private final CharSequence filter;
+	private final ClassMetadata classMetadata;
+	private final TypeGenerator typeGenerator;
+	private int index;
+	private int depth;
+
+	private FilterParser(CharSequence filter, ClassMetadata classMetadata, TypeGenerator typeGenerator) {
+		this.filter = filter;
+		this.classMetadata = classMetadata;
+		this.typeGenerator = typeGenerator;
+	}
+
+	/**
+	 * @param clazz
+	 * @param filter
+	 * @param typeGenerator
+	 * @return the folded criterion of filter; an empty filter matches every row
+	 * @throws ParameterException
+	 *             if filter is malformed or refers to an unknown property
+	 * @throws ConversionException
+	 * @throws IntrospectionException
+	 */
+	public static SearchCriterion<PropertyDescriptor, Operator, Object> parse(Class<?> clazz, CharSequence filter,
+			TypeGenerator typeGenerator) throws ParameterException, ConversionException, IntrospectionException {
+		if (filter.length() == 0) {
+			return CompositeSearchCriterion.and(Collections.<SearchCriterion<PropertyDescriptor, Operator, Object>> emptyList());
+		}
+
+		FilterParser filterParser = new FilterParser(filter, ClassMetadataRegistry.getClassMetadata(clazz),
+				typeGenerator);
+		SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion = filterParser.parseExpression();
+
+		if (filterParser.index < filter.length()) {
+			throw filterParser.error("Unexpected: " + filter.charAt(filterParser.index));
+		}
+
+		return searchCriterion;
+	}
+
+	/**
+	 * @return the complement of searchCriterion, with the negation pushed down
+	 *         to the predicates
+	 */
+	public static SearchCriterion<PropertyDescriptor, Operator, Object> negate(
+			SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion) {
+		if (!(searchCriterion instanceof CompositeSearchCriterion)) {
+			Operator operator = searchCriterion.getOperator();
+
+			if (operator == null) {
+				return CompositeSearchCriterion.not(searchCriterion);
+			}
+
+			return new SearchCriterion<PropertyDescriptor, Operator, Object>(searchCriterion.getIdentifier(),
+					operator.negate(), searchCriterion.getValue());
+		}
+
+		CompositeSearchCriterion<PropertyDescriptor, Operator, Object> composite = (CompositeSearchCriterion<PropertyDescriptor, Operator, Object>) searchCriterion;
+		if (composite.getLogicalOperator() == CompositeSearchCriterion.LogicalOperator.NOT) {
+			return composite.getChildren().get(0);
+		}
+
+		// de Morgan
+		List<SearchCriterion<PropertyDescriptor, Operator, Object>> children = new ArrayList<SearchCriterion<PropertyDescriptor, Operator, Object>>(
+				composite.getChildren().size());
+		for (SearchCriterion<PropertyDescriptor, Operator, Object> child : composite.getChildren()) {
+			children.add(negate(child));
+		}
+
+		return composite.getLogicalOperator() == CompositeSearchCriterion.LogicalOperator.AND
+				? CompositeSearchCriterion.or(children) : CompositeSearchCriterion.and(children);
+	}
+
+	private SearchCriterion<PropertyDescriptor, Operator, Object> parseExpression()
+			throws ParameterException, ConversionException {
+		List<SearchCriterion<PropertyDescriptor, Operator, Object>> terms = new ArrayList<SearchCriterion<PropertyDescriptor, Operator, Object>>();
+		terms.add(parseTerm());
+
+		while (index < filter.length() && filter.charAt(index) == '|') {
+			index++;
+			terms.add(parseTerm());
+		}
+
+		return CompositeSearchCriterion.or(terms);
+	}
+
+	private SearchCriterion<PropertyDescriptor, Operator, Object> parseTerm()
+			throws ParameterException, ConversionException {
+		List<SearchCriterion<PropertyDescriptor, Operator, Object>> factors = new ArrayList<SearchCriterion<PropertyDescriptor, Operator, Object>>();
+		factors.add(parseFactor());
+
+		while (index < filter.length() && (filter.charAt(index) == ';' || filter.charAt(index) == '&')) {
+			index++;
+			factors.add(parseFactor());
+		}
+
+		return CompositeSearchCriterion.and(factors);
+	}
+
+	private SearchCriterion<PropertyDescriptor, Operator, Object> parseFactor()
+			throws ParameterException, ConversionException {
+		if (index == filter.length()) {
+			throw error("Missing predicate");
+		}
+
+		char c = filter.charAt(index);
+		if (c != '!' && c != '(') {
+			return parsePredicate();
+		}
+
+		// a client controlled filter must not exhaust the stack
+		if (++depth > MAXIMUM_DEPTH) {
+			throw error("Nested deeper than: " + MAXIMUM_DEPTH);
+		}
+
+		index++;
+		SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion;
+		if (c == '!') {
+			searchCriterion = negate(parseFactor());
+		} else {
+			searchCriterion = parseExpression();
+
+			if (index == filter.length() || filter.charAt(index) != ')') {
+				throw error("Missing )");
+			}
+			index++;
+		}
+
+		depth--;
+		return searchCriterion;
+	}
+
+	private SearchCriterion<PropertyDescriptor, Operator, Object> parsePredicate()
+			throws ParameterException, ConversionException {
+		int start = index;
+		while (index < filter.length() && "|;&()".indexOf(filter.charAt(index)) < 0) {
+			index++;
+		}
+
+		if (start == index) {
+			throw error("Missing predicate");
+		}
+
+		CharSequence predicate = filter.subSequence(start, index);
+		if ("true".equalsIgnoreCase(predicate.toString())) {
+			return CompositeSearchCriterion.and(Collections.<SearchCriterion<PropertyDescriptor, Operator, Object>> emptyList());
+		}
+		if ("false".equalsIgnoreCase(predicate.toString())) {
+			return CompositeSearchCriterion.or(Collections.<SearchCriterion<PropertyDescriptor, Operator, Object>> emptyList());
+		}
+
+		ParameterMapping<String, Operator, Object> parameterMapping = QueryTokenizer.tokenize(predicate).get(0);
+		PropertyMetadata propertyMetadata = classMetadata.findProperty(parameterMapping.getIdentifier());
+
+		if (propertyMetadata == null) {
+			throw error("Unknown property: " + parameterMapping.getIdentifier());
+		}
+
+		Operator operator = parameterMapping.getOperator();
+		Object value = operator == Operator.IN || operator == Operator.NOT_IN
+				? RestService.generateListValues(propertyMetadata.getType(), parameterMapping.getValue(), typeGenerator)
+				: typeGenerator.generateType(propertyMetadata.getType(), parameterMapping.getValue());
+
+		return new SearchCriterion<PropertyDescriptor, Operator, Object>(propertyMetadata.getPropertyDescriptor(),
+				operator, value);
+	}
+
+	private ParameterException error(String message) {
+		return new ParameterException(message + " at: " + index + " in filter: " + filter);
+	}
+
+}
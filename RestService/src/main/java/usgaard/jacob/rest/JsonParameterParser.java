@@ -0,0 +1,300 @@
+package usgaard.jacob.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.conversion.CharSlice;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * Reads the parameters of a JSON request body in a single left to right pass.
+ * The body is an object with one member per parameter, in order; a member name
+ * is the parameter name followed by its operator as in a query string, where a
+ * missing operator means {@code =}, e.g.
+ * {@code {"age>=": 10, "name!=": "Bob", "id": [1, 2, 3], "order": "age+"}}.
+ *
+ * <p>
+ * Strings, numbers and booleans are values, and null is the empty value. An
+ * array turns {@code =} into {@link Operator#IN} and {@code !=} into
+ * {@link Operator#NOT_IN}, like the {@code in:} prefix of a query string.
+ * {@link RestService} joins the array of a fields, order or group parameter
+ * with commas instead and rejects that of any other reserved parameter.
+ * Values without escapes are not copied: they are {@link CharSlice}s of the
+ * body.
+ * </p>
+ *
+ * @see QueryTokenizer
+ */
+public final class JsonParameterParser {
+
+	private static final String NULL = "null";
+	private static final String TRUE = "true";
+	private static final String FALSE = "false";
+
+	private final CharSequence json;
+	private int index;
+
+	private JsonParameterParser(CharSequence json) {
+		this.json = json;
+	}
+
+	/**
+	 * @param json
+	 * @return the parameters of json in order of appearance
+	 * @throws ParameterException
+	 *             if json is not an object of parameters
+	 */
+	public static List<ParameterMapping<String, Operator, Object>> parse(CharSequence json)
+			throws ParameterException {
+		return new JsonParameterParser(json).parseObject();
+	}
+
+	private List<ParameterMapping<String, Operator, Object>> parseObject() throws ParameterException {
+		List<ParameterMapping<String, Operator, Object>> parameterMappings = new ArrayList<ParameterMapping<String, Operator, Object>>();
+
+		expect('{');
+		if (!consume('}')) {
+			do {
+				skipWhitespace();
+				String name = parseString().toString();
+				expect(':');
+				parameterMappings.add(parseMember(name));
+			} while (consume(','));
+
+			expect('}');
+		}
+
+		skipWhitespace();
+		if (index < json.length()) {
+			throw malformed("trailing characters");
+		}
+
+		return parameterMappings;
+	}
+
+	private ParameterMapping<String, Operator, Object> parseMember(String name) throws ParameterException {
+		int nameEnd = name.length();
+		Operator operator = Operator.EQUAL;
+
+		if (name.endsWith("!=")) {
+			operator = Operator.NOT_EQUAL;
+			nameEnd -= 2;
+		} else if (name.endsWith("<=")) {
+			operator = Operator.LESS_THAN_OR_EQUAL;
+			nameEnd -= 2;
+		} else if (name.endsWith(">=")) {
+			operator = Operator.GREATER_THAN_OR_EQUAL;
+			nameEnd -= 2;
+		} else if (name.endsWith("=")) {
+			nameEnd -= 1;
+		} else if (name.endsWith("<")) {
+			operator = Operator.LESS_THAN;
+			nameEnd -= 1;
+		} else if (name.endsWith(">")) {
+			operator = Operator.GREATER_THAN;
+			nameEnd -= 1;
+		}
+
+		skipWhitespace();
+		Object value;
+		if (index < json.length() && json.charAt(index) == '[') {
+			if (operator != Operator.EQUAL && operator != Operator.NOT_EQUAL) {
+				throw new ParameterException("Only = and != take a list: " + name);
+			}
+
+			operator = operator == Operator.EQUAL ? Operator.IN : Operator.NOT_IN;
+			value = parseArray();
+		} else {
+			value = parseValue();
+		}
+
+		return new ParameterMapping<String, Operator, Object>(name.substring(0, nameEnd), operator, value);
+	}
+
+	private List<CharSequence> parseArray() throws ParameterException {
+		List<CharSequence> values = new ArrayList<CharSequence>();
+
+		expect('[');
+		if (!consume(']')) {
+			do {
+				values.add(parseValue());
+			} while (consume(','));
+
+			expect(']');
+		}
+
+		return Collections.unmodifiableList(values);
+	}
+
+	private CharSequence parseValue() throws ParameterException {
+		skipWhitespace();
+
+		if (index == json.length()) {
+			throw malformed("value expected");
+		}
+
+		char c = json.charAt(index);
+		if (c == '"') {
+			return parseString();
+		}
+
+		if (c == 'n') {
+			parseLiteral(NULL);
+			return "";
+		}
+
+		if (c == 't' || c == 'f') {
+			return parseLiteral(c == 't' ? TRUE : FALSE);
+		}
+
+		if (c == '-' || (c >= '0' && c <= '9')) {
+			int start = index;
+			while (index < json.length() && isNumberCharacter(json.charAt(index))) {
+				index++;
+			}
+			return new CharSlice(json, start, index);
+		}
+
+		throw malformed("nested objects are not parameters");
+	}
+
+	private CharSequence parseLiteral(String literal) throws ParameterException {
+		int start = index;
+
+		for (int offset = 0; offset < literal.length(); offset++) {
+			if (index == json.length() || json.charAt(index) != literal.charAt(offset)) {
+				throw malformed("literal expected");
+			}
+			index++;
+		}
+
+		return new CharSlice(json, start, index);
+	}
+
+	private CharSequence parseString() throws ParameterException {
+		if (index == json.length() || json.charAt(index) != '"') {
+			throw malformed("string expected");
+		}
+
+		int start = ++index;
+		while (index < json.length()) {
+			char c = json.charAt(index);
+
+			if (c == '"') {
+				return new CharSlice(json, start, index++);
+			}
+
+			if (c == '\\') {
+				return parseEscapedString(start);
+			}
+
+			index++;
+		}
+
+		throw malformed("unterminated string");
+	}
+
+	private String parseEscapedString(int start) throws ParameterException {
+		StringBuilder string = new StringBuilder();
+		string.append(json, start, index);
+
+		while (index < json.length()) {
+			char c = json.charAt(index++);
+
+			if (c == '"') {
+				return string.toString();
+			}
+
+			if (c != '\\') {
+				string.append(c);
+				continue;
+			}
+
+			if (index == json.length()) {
+				break;
+			}
+
+			c = json.charAt(index++);
+			switch (c) {
+			case 'b':
+				string.append('\b');
+				break;
+			case 'f':
+				string.append('\f');
+				break;
+			case 'n':
+				string.append('\n');
+				break;
+			case 'r':
+				string.append('\r');
+				break;
+			case 't':
+				string.append('\t');
+				break;
+			case 'u':
+				if (index + 4 > json.length()) {
+					throw malformed("incomplete escape");
+				}
+
+				int code = 0;
+				for (int digit = 0; digit < 4; digit++) {
+					int value = Character.digit(json.charAt(index++), 16);
+					if (value < 0) {
+						throw malformed("malformed escape");
+					}
+					code = (code << 4) + value;
+				}
+				string.append((char) code);
+				break;
+			case '"':
+			case '\\':
+			case '/':
+				string.append(c);
+				break;
+			default:
+				throw malformed("unknown escape: \\" + c);
+			}
+		}
+
+		throw malformed("unterminated string");
+	}
+
+	private static boolean isNumberCharacter(char c) {
+		return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+	}
+
+	private void skipWhitespace() {
+		while (index < json.length()) {
+			char c = json.charAt(index);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+				break;
+			}
+			index++;
+		}
+	}
+
+	private boolean consume(char c) {
+		skipWhitespace();
+
+		if (index < json.length() && json.charAt(index) == c) {
+			index++;
+			return true;
+		}
+
+		return false;
+	}
+
+	private void expect(char c) throws ParameterException {
+		if (!consume(c)) {
+			throw malformed("'" + c + "' expected");
+		}
+	}
+
+	private ParameterException malformed(String reason) {
+		return new ParameterException("Malformed JSON body at: " + index + ", " + reason);
+	}
+
+}
@@ -14,6 +14,10 @@ public abstract class ParameterMapper<Identifier, Operator, Value> {
 	protected Identifier limitParameterIdentifier;
 	protected Identifier fieldsParameterIdentifier;
 	protected Identifier orderParameterIdentifier;
+	protected Identifier afterParameterIdentifier;
+	protected Identifier filterParameterIdentifier;
+	protected Identifier totalParameterIdentifier;
+	protected Identifier groupParameterIdentifier;
 
 	public abstract List<ParameterMapping<Identifier, Operator, Value>> generateParameterMappings(Object source)
 			throws ParameterException;
@@ -50,4 +54,109 @@ public abstract class ParameterMapper<Identifier, Operator, Value> {
 		this.orderParameterIdentifier = orderParameterIdentifier;
 	}
 
+	public Identifier getAfterParameterIdentifier() {
+		return afterParameterIdentifier;
+	}
+
+	public void setAfterParameterIdentifier(Identifier afterParameterIdentifier) {
+		this.afterParameterIdentifier = afterParameterIdentifier;
+	}
+
+	public Identifier getFilterParameterIdentifier() {
+		return filterParameterIdentifier;
+	}
+
+	public void setFilterParameterIdentifier(Identifier filterParameterIdentifier) {
+		this.filterParameterIdentifier = filterParameterIdentifier;
+	}
+
+	public Identifier getTotalParameterIdentifier() {
+		return totalParameterIdentifier;
+	}
+
+	public void setTotalParameterIdentifier(Identifier totalParameterIdentifier) {
+		this.totalParameterIdentifier = totalParameterIdentifier;
+	}
+
+	public Identifier getGroupParameterIdentifier() {
+		return groupParameterIdentifier;
+	}
+
+	public void setGroupParameterIdentifier(Identifier groupParameterIdentifier) {
+		this.groupParameterIdentifier = groupParameterIdentifier;
+	}
+
+	/**
+	 * @param parameterMapper
+	 * @return a view of parameterMapper whose parameter identifiers cannot be
+	 *         changed, the setters throwing {@link UnsupportedOperationException}
+	 */
+	public static <Identifier, Operator, Value> ParameterMapper<Identifier, Operator, Value> unmodifiable(
+			ParameterMapper<Identifier, Operator, Value> parameterMapper) {
+		return new UnmodifiableParameterMapper<Identifier, Operator, Value>(parameterMapper);
+	}
+
+	private static final class UnmodifiableParameterMapper<Identifier, Operator, Value>
+			extends ParameterMapper<Identifier, Operator, Value> {
+		private final ParameterMapper<Identifier, Operator, Value> parameterMapper;
+
+		private UnmodifiableParameterMapper(ParameterMapper<Identifier, Operator, Value> parameterMapper) {
+			this.parameterMapper = parameterMapper;
+			this.startParameterIdentifier = parameterMapper.startParameterIdentifier;
+			this.limitParameterIdentifier = parameterMapper.limitParameterIdentifier;
+			this.fieldsParameterIdentifier = parameterMapper.fieldsParameterIdentifier;
+			this.orderParameterIdentifier = parameterMapper.orderParameterIdentifier;
+			this.afterParameterIdentifier = parameterMapper.afterParameterIdentifier;
+			this.filterParameterIdentifier = parameterMapper.filterParameterIdentifier;
+			this.totalParameterIdentifier = parameterMapper.totalParameterIdentifier;
+			this.groupParameterIdentifier = parameterMapper.groupParameterIdentifier;
+		}
+
+		@Override
+		public List<ParameterMapping<Identifier, Operator, Value>> generateParameterMappings(Object source)
+				throws ParameterException {
+			return parameterMapper.generateParameterMappings(source);
+		}
+
+		@Override
+		public void setStartParameterIdentifier(Identifier startParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setLimitParameterIdentifier(Identifier limitParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setFieldsParameterIdentifier(Identifier fieldsParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setOrderParameterIdentifier(Identifier orderParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setAfterParameterIdentifier(Identifier afterParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setFilterParameterIdentifier(Identifier filterParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setTotalParameterIdentifier(Identifier totalParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setGroupParameterIdentifier(Identifier groupParameterIdentifier) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 }
@@ -0,0 +1,210 @@
+package usgaard.jacob.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.conversion.CharSlice;
+import usgaard.jacob.rest.conversion.ValueConverter;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * Splits a query string into {@link ParameterMapping}s in a single left to
+ * right pass. Pairs are separated by {@code &}, and the first operator in a pair
+ * ({@code =}, {@code !=}, {@code <}, {@code <=}, {@code >} or {@code >=})
+ * separates the name from the value, so the value itself may contain operator
+ * characters. Names and values are percent-decoded as UTF-8 after splitting;
+ * {@code +} is left as is because it marks ascending order. Values without
+ * escapes are not copied: they are {@link CharSlice}s of the query, to be
+ * parsed in place by a {@link ValueConverter}.
+ *
+ * <p>
+ * A value starting with {@code in:} turns {@code =} into {@link Operator#IN}
+ * and {@code !=} into {@link Operator#NOT_IN}; the rest of the value is a comma
+ * separated list, e.g. {@code id=in:1,2,3}, and becomes a {@link List} of
+ * values. Each element is decoded on its own, so {@code %2C} stands for a comma
+ * inside an element and {@code in%3A} for a literal {@code in:}.
+ * </p>
+ *
+ * @see RestService#getQueryParameterMapper()
+ */
+public final class QueryTokenizer {
+
+	private static final String LIST_PREFIX = "in:";
+
+	private QueryTokenizer() {
+	}
+
+	/**
+	 * @param query
+	 * @return the parameters of query in order of appearance, empty pairs
+	 *         skipped
+	 * @throws ParameterException
+	 *             if a pair has no operator or contains a malformed escape
+	 */
+	public static List<ParameterMapping<String, Operator, Object>> tokenize(CharSequence query)
+			throws ParameterException {
+		List<ParameterMapping<String, Operator, Object>> parameterMappings = new ArrayList<ParameterMapping<String, Operator, Object>>();
+		int length = query.length();
+		int pairStart = 0;
+
+		while (pairStart < length) {
+			Operator operator = null;
+			int operatorStart = -1;
+			int operatorEnd = -1;
+			int index = pairStart;
+
+			for (; index < length; index++) {
+				char c = query.charAt(index);
+
+				if (c == '&') {
+					break;
+				}
+
+				if (operator != null) {
+					continue;
+				}
+
+				boolean equalsFollows = index + 1 < length && query.charAt(index + 1) == '=';
+				switch (c) {
+				case '=':
+					operator = Operator.EQUAL;
+					break;
+				case '!':
+					operator = equalsFollows ? Operator.NOT_EQUAL : null;
+					break;
+				case '<':
+					operator = equalsFollows ? Operator.LESS_THAN_OR_EQUAL : Operator.LESS_THAN;
+					break;
+				case '>':
+					operator = equalsFollows ? Operator.GREATER_THAN_OR_EQUAL : Operator.GREATER_THAN;
+					break;
+				default:
+					break;
+				}
+
+				if (operator != null) {
+					operatorStart = index;
+					operatorEnd = index + (c != '=' && equalsFollows ? 2 : 1);
+					index = operatorEnd - 1;
+				}
+			}
+
+			int pairEnd = index;
+
+			if (pairEnd > pairStart) {
+				if (operator == null) {
+					throw new ParameterException(
+							"Unable to find operator for parameter: " + query.subSequence(pairStart, pairEnd));
+				}
+
+				Object value;
+				if ((operator == Operator.EQUAL || operator == Operator.NOT_EQUAL)
+						&& startsWith(query, operatorEnd, pairEnd, LIST_PREFIX)) {
+					operator = operator == Operator.EQUAL ? Operator.IN : Operator.NOT_IN;
+					value = decodeList(query, operatorEnd + LIST_PREFIX.length(), pairEnd);
+				} else {
+					value = decode(query, operatorEnd, pairEnd);
+				}
+
+				parameterMappings.add(new ParameterMapping<String, Operator, Object>(
+						decode(query, pairStart, operatorStart).toString(), operator, value));
+			}
+
+			pairStart = pairEnd + 1;
+		}
+
+		return parameterMappings;
+	}
+
+	private static boolean startsWith(CharSequence source, int start, int end, String prefix) {
+		if (end - start < prefix.length()) {
+			return false;
+		}
+
+		for (int index = 0; index < prefix.length(); index++) {
+			if (source.charAt(start + index) != prefix.charAt(index)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static List<CharSequence> decodeList(CharSequence source, int start, int end) throws ParameterException {
+		List<CharSequence> values = new ArrayList<CharSequence>();
+		int elementStart = start;
+
+		for (int index = start; index <= end; index++) {
+			if (index == end || source.charAt(index) == ',') {
+				values.add(decode(source, elementStart, index));
+				elementStart = index + 1;
+			}
+		}
+
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * @param source
+	 * @param start
+	 *            inclusive
+	 * @param end
+	 *            exclusive
+	 * @return the percent-decoded characters of source between start and end, a
+	 *         slice of source if there was nothing to decode
+	 * @throws ParameterException
+	 *             if an escape is incomplete or not hexadecimal
+	 */
+	static CharSequence decode(CharSequence source, int start, int end) throws ParameterException {
+		int escape = start;
+		while (escape < end && source.charAt(escape) != '%') {
+			escape++;
+		}
+
+		if (escape == end) {
+			return new CharSlice(source, start, end);
+		}
+
+		StringBuilder decoded = new StringBuilder(end - start);
+		decoded.append(source, start, escape);
+
+		// consecutive escapes form one UTF-8 sequence, at most a third of the rest
+		byte[] bytes = new byte[(end - escape) / 3];
+		int index = escape;
+		while (index < end) {
+			char c = source.charAt(index);
+
+			if (c != '%') {
+				decoded.append(c);
+				index++;
+				continue;
+			}
+
+			int count = 0;
+			while (index < end && source.charAt(index) == '%') {
+				if (index + 2 >= end) {
+					throw new ParameterException("Incomplete escape in: " + source.subSequence(start, end));
+				}
+
+				int high = Character.digit(source.charAt(index + 1), 16);
+				int low = Character.digit(source.charAt(index + 2), 16);
+
+				if (high < 0 || low < 0) {
+					throw new ParameterException("Malformed escape in: " + source.subSequence(start, end));
+				}
+
+				bytes[count++] = (byte) ((high << 4) + low);
+				index += 3;
+			}
+
+			decoded.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+		}
+
+		return decoded.toString();
+	}
+
+}
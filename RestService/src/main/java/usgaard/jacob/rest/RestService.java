@@ -1,37 +1,103 @@
 package usgaard.jacob.rest;
 
 import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTimeoutException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 
 import org.hibernate.Criteria;
+import org.hibernate.QueryTimeoutException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Conjunction;
+import org.hibernate.criterion.CriteriaQuery;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Junction;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projection;
 import org.hibernate.criterion.ProjectionList;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import usgaard.jacob.rest.FieldMapper.Aggregate;
 import usgaard.jacob.rest.OrderMapper.Sort;
+import usgaard.jacob.rest.batch.BatchItem;
+import usgaard.jacob.rest.batch.BatchResult;
+import usgaard.jacob.rest.cache.BoundedCache;
+import usgaard.jacob.rest.cache.CacheStatistics;
+import usgaard.jacob.rest.cache.ExpiringCache;
+import usgaard.jacob.rest.cache.RestRequestKey;
+import usgaard.jacob.rest.cache.SingleFlight;
+import usgaard.jacob.rest.conversion.ConverterRegistry;
 import usgaard.jacob.rest.exception.ConversionException;
 import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.hibernate.CacheInvalidationListener;
 import usgaard.jacob.rest.hibernate.CriteriaGenerator;
+import usgaard.jacob.rest.hibernate.ExecutionProfile;
+import usgaard.jacob.rest.hydration.HydratorFactory;
+import usgaard.jacob.rest.hydration.RowHydrator;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+import usgaard.jacob.rest.metrics.NoOpRestMetrics;
+import usgaard.jacob.rest.metrics.RestMetrics;
+import usgaard.jacob.rest.metrics.Stage;
+import usgaard.jacob.rest.plan.QueryPlan;
+import usgaard.jacob.rest.plan.QueryShape;
+import usgaard.jacob.rest.plan.SearchParameterGroup;
+import usgaard.jacob.rest.policy.QueryPolicy;
+import usgaard.jacob.rest.request.CompositeSearchCriterion;
+import usgaard.jacob.rest.request.Cursor;
 import usgaard.jacob.rest.request.FieldMapping;
-import usgaard.jacob.rest.request.OperatorMapping;
+import usgaard.jacob.rest.request.IndexedParameterMappings;
 import usgaard.jacob.rest.request.OrderMapping;
 import usgaard.jacob.rest.request.ParameterMapping;
 import usgaard.jacob.rest.request.RestRequest;
 import usgaard.jacob.rest.request.SearchCriterion;
+import usgaard.jacob.rest.request.Total;
+import usgaard.jacob.rest.response.JsonRowWriter;
+import usgaard.jacob.rest.response.ProjectionRow;
+import usgaard.jacob.rest.response.RestResponse;
 
 /**
  * A service to be used to create mappings between a provided query and the
@@ -46,6 +112,10 @@ import usgaard.jacob.rest.request.SearchCriterion;
  * <li><a href="#limit">Limit</a></li>
  * <li><a href="#fields">Fields</a></li>
  * <li><a href="search-criterion">Search Criterion</a></li>
+ * <li><a href="#after">After</a></li>
+ * <li><a href="#filter">Filter</a></li>
+ * <li><a href="#total">Total</a></li>
+ * <li><a href="#group">Group</a></li>
  * </ol>
  * 
  * <h3 id="start">Start</h3>
@@ -56,6 +126,23 @@ import usgaard.jacob.rest.request.SearchCriterion;
  * <p>This is used to specify which fields or properties are brought back in the response to save on unnecessary retrieval.</p>
  * <h3 id="search-criterion">Search Criterion</a></li>
  * <p></p>
+ * <h3 id="after">After</h3>
+ * <p>This is meant for deep paging and replaces start. The value is the opaque cursor returned as the next cursor of the previous page, or empty for the first page. Rows are sorted by the order parameter followed by the identifier and the page begins right after the row the cursor points to, so every page costs the same as the first. Null sort values are treated as the lowest. This field name can be overridden in the {@link ParameterMapper}.</p>
+ * <h3 id="filter">Filter</h3>
+ * <p>This combines search criteria with and, or and not, e.g. {@code filter=(age>=10|name=Bob);!pi=0}. See {@link FilterParser} for the grammar. Every filter parameter and every plain search criterion must match. A plain search criterion can be negated on its own by prefixing its name with {@code !}, e.g. {@code !pi=0}. This field name can be overridden in the {@link ParameterMapper}.</p>
+ * <h3 id="total">Total</h3>
+ * <p>This asks {@link #convertPage(String, Class, Session)} for the number of rows matching the search criteria over all pages, counted with the same restrictions as the page. {@code total=true} counts on every request; {@code total=approximate} reuses the count of an earlier request with the same search criteria until it expires (see {@link Builder#totalTimeToLive(Class, long, TimeUnit)}). A short page already tells the total, so it is not counted. This field name can be overridden in the {@link ParameterMapper}.</p>
+ * <h3 id="group">Group</h3>
+ * <p>Fields may be aggregated with {@code sum}, {@code avg}, {@code min}, {@code max} and {@code count}, e.g. {@code fields=sum(age),avg(pi),count()&group=name}, where {@code count()} counts rows. The rows are grouped by the fields of the group parameter and by every plain field. Aggregating queries are returned as {@link ProjectionRow}s by {@link #convertRows(String, Class, Session)}, with the grouped fields missing from the fields first. This field name can be overridden in the {@link ParameterMapper}.</p>
+ * 
+ * <p>Any query may be returned as {@link ProjectionRow}s instead of instances of the class, holding only the selected fields under a header shared by every row, see {@link #convertRows(String, Class, Session)}. A row is a read only map, so it can be serialized directly. The rows may also be written as JSON while they are read, without any intermediate object, see {@link #write(RestRequest, Class, Session, Writer)}.</p>
+ * <p>Results of {@link #convert(String, Class, Session)} may be cached (see {@link Builder#resultCacheSize(int)}). Cached results of a class are dropped when it changes, see {@link #invalidate(Class)} and {@link CacheInvalidationListener}. Every caller hydrates its own instances from the cached rows. A session inside a transaction, with pending changes or with enabled filters reads what other sessions may not see, so it neither uses the cache nor shares executions.</p>
+ * <p>With {@link Builder#coalescing(boolean)}, concurrent equal requests, cached or not, wait for one execution and share its rows. Only one of their sessions is used. The executions saved are reported through {@link RestMetrics#recordCoalesced(Class)}.</p>
+ * <p>The criteria of a request are executed as its {@link ExecutionProfile} says: with a statement timeout, a fetch size, read only or not, cacheable or not and with a flush mode. A profile may be set for every class, for a class (see {@link Builder#executionProfile(Class, ExecutionProfile)}) and for a request (see {@link RestRequest#setExecutionProfile(ExecutionProfile)}), each overriding the settings of the former it sets. {@link ExecutionProfile#READ_ONLY} lets list endpoints skip dirty checking and flushing.</p>
+ * <p>Queries may also run on a {@link StatelessSession}, see {@link #convert(String, Class, StatelessSession)}. Rows are always read as projections, so a session keeps no instances either, but a stateless session has no persistence context at all and never flushes.</p>
+ * <p>A {@link QueryPolicy} (see {@link Builder#queryPolicy(QueryPolicy)}) bounds the cost of a request before any criteria are generated for it: its limit, its number of search criteria and of columns, and the properties it may filter or sort by. A rejected request throws a {@link usgaard.jacob.rest.policy.QueryPolicyException}.</p>
+ * 
+ * <p>A RestService is configured once through its {@link Builder} and is immutable afterwards, so a single instance can be shared by every thread of a servlet container. Instances with different configurations do not share any mutable state.</p>
  * 
  * @author Jacob
  * @see RestRequest
@@ -65,33 +152,100 @@ public class RestService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(RestService.class);
 
-	private static int defaultStart = 0;
-	private static int defaultLimit = 10;
-	private Integer start;
-	private Integer limit;
-	private static String defaultFieldsParameterName = "fields";
-	private static String defaultStartParameterName = "start";
-	private static String defaultLimitParameterName = "limit";
-	private static String defaultOrderParameterName = "order";
-	private String fieldsParameterName = defaultFieldsParameterName;
-	private String startParameterName = defaultStartParameterName;
-	private String limitParameterName = defaultLimitParameterName;
-	private String orderParameterName = defaultOrderParameterName;
-	private static List<OperatorMapping> operatorMappings = new ArrayList<OperatorMapping>() {
-		private static final long serialVersionUID = -8895872087917806097L;
-
-		{
-			add(new OperatorMapping(Pattern.compile("\\="), Operator.EQUAL));
-			add(new OperatorMapping(Pattern.compile("\\!\\="), Operator.NOT_EQUAL));
-			add(new OperatorMapping(Pattern.compile("\\>"), Operator.GREATER_THAN));
-			add(new OperatorMapping(Pattern.compile("\\<"), Operator.LESS_THAN));
-			add(new OperatorMapping(Pattern.compile("\\>\\="), Operator.GREATER_THAN_OR_EQUAL));
-			add(new OperatorMapping(Pattern.compile("\\<\\="), Operator.LESS_THAN_OR_EQUAL));
-		}
-	};
+	public static final int DEFAULT_QUERY_PLAN_CACHE_SIZE = 256;
+	public static final int DEFAULT_START = 0;
+	public static final int DEFAULT_LIMIT = 10;
+	public static final String DEFAULT_FIELDS_PARAMETER_NAME = "fields";
+	public static final String DEFAULT_START_PARAMETER_NAME = "start";
+	public static final String DEFAULT_LIMIT_PARAMETER_NAME = "limit";
+	public static final String DEFAULT_ORDER_PARAMETER_NAME = "order";
+	public static final String DEFAULT_AFTER_PARAMETER_NAME = "after";
+	public static final String DEFAULT_FILTER_PARAMETER_NAME = "filter";
+	public static final String DEFAULT_TOTAL_PARAMETER_NAME = "total";
+	public static final String DEFAULT_GROUP_PARAMETER_NAME = "group";
+	public static final int DEFAULT_TOTAL_CACHE_SIZE = 1024;
+	public static final long DEFAULT_TOTAL_TIME_TO_LIVE_SECONDS = 60;
+	public static final long DEFAULT_RESULT_TIME_TO_LIVE_SECONDS = 10;
+	public static final int DEFAULT_FLUSH_ROWS = 100;
+	public static final int DEFAULT_MAXIMUM_BODY_LENGTH = 1 << 20;
+	public static final int MAXIMUM_IN_LIST_SIZE = 1000;
+	public static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+	public static final String JSON_CONTENT_TYPE = "application/json";
+
+	private final int start;
+	private final int limit;
+	private final String fieldsParameterName;
+	private final String startParameterName;
+	private final String limitParameterName;
+	private final String orderParameterName;
+	private final String afterParameterName;
+	private final String filterParameterName;
+	private final String totalParameterName;
+	private final String groupParameterName;
+	private final TypeGenerator typeGenerator;
+	private final Integer fetchSize;
+	private final ExecutionProfile executionProfile;
+	private final Map<Class<?>, ExecutionProfile> executionProfiles;
+	private final int flushRows;
+	private final QueryPolicy queryPolicy;
+	private final Executor batchExecutor;
+	private final RestMetrics metrics;
+	private final BoundedCache<QueryShape, QueryPlan> queryPlanCache;
+	private final ExpiringCache<TotalKey, Generational<Long>> totalCache;
+	private final ExpiringCache<RestRequestKey, Generational<List<Object[]>>> resultCache;
+	private final long resultTimeToLiveNanos;
+	private final SingleFlight<RestRequestKey, List<Object[]>> singleFlight;
+	private final ConcurrentHashMap<Class<?>, AtomicLong> generations = new ConcurrentHashMap<Class<?>, AtomicLong>();
+	private final long totalTimeToLiveNanos;
+	private final Map<Class<?>, Long> totalTimesToLiveNanos;
+	private final ParameterMapper<String, Operator, Object> queryParameterMapper;
+	private final ParameterMapper<String, Operator, Object> servletRequestParameterMapper;
 
 	public enum Operator {
-		EQUAL, NOT_EQUAL, GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN_OR_EQUAL;
+		EQUAL, NOT_EQUAL, GREATER_THAN, LESS_THAN, GREATER_THAN_OR_EQUAL, LESS_THAN_OR_EQUAL, IN, NOT_IN;
+
+		/**
+		 * @return the list operator that repeated filters with this operator on
+		 *         one property merge into, or null if they are combined with
+		 *         and
+		 */
+		public Operator getListOperator() {
+			switch (this) {
+			case EQUAL:
+			case IN:
+				return IN;
+			case NOT_EQUAL:
+			case NOT_IN:
+				return NOT_IN;
+			default:
+				return null;
+			}
+		}
+
+		/**
+		 * @return the operator matching exactly the rows this one does not,
+		 *         leaving out rows where either side is null just the same
+		 */
+		public Operator negate() {
+			switch (this) {
+			case EQUAL:
+				return NOT_EQUAL;
+			case NOT_EQUAL:
+				return EQUAL;
+			case GREATER_THAN:
+				return LESS_THAN_OR_EQUAL;
+			case LESS_THAN:
+				return GREATER_THAN_OR_EQUAL;
+			case GREATER_THAN_OR_EQUAL:
+				return LESS_THAN;
+			case LESS_THAN_OR_EQUAL:
+				return GREATER_THAN;
+			case IN:
+				return NOT_IN;
+			default:
+				return IN;
+			}
+		}
 	}
 
 	private static final FieldMapper<PropertyDescriptor> fieldMapper = new FieldMapper<PropertyDescriptor>() {
@@ -101,26 +255,19 @@ public class RestService {
 				List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator,
 				Id fieldParameterIdentifier) throws ConversionException, IntrospectionException {
 			List<FieldMapping<PropertyDescriptor>> fieldMappings = new LinkedList<FieldMapping<PropertyDescriptor>>();
-			PropertyDescriptor[] propertyDescriptors = Introspector.getBeanInfo(clazz).getPropertyDescriptors();
+			ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(clazz);
 
-			Val fieldsValue = null;
-
-			for (ParameterMapping<Id, Op, Val> parameterMapping : parameterMappings) {
-				if (parameterMapping.getIdentifier().equals(fieldParameterIdentifier)) {
-					fieldsValue = parameterMapping.getValue();
-					break;
-				}
-			}
+			Val fieldsValue = IndexedParameterMappings.of(parameterMappings).findValue(fieldParameterIdentifier);
+			boolean debug = LOGGER.isDebugEnabled();
 
 			LOGGER.debug("fields parameter: {}, value: {}", fieldParameterIdentifier, fieldsValue);
 
 			if (fieldsValue == null) {
-				for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
-					if ("class".equals(propertyDescriptor.getName())) {
-						continue;
+				for (PropertyMetadata propertyMetadata : classMetadata.getProperties()) {
+					fieldMappings.add(new FieldMapping<PropertyDescriptor>(propertyMetadata.getPropertyDescriptor()));
+					if (debug) {
+						LOGGER.debug("Field found: {}", propertyMetadata.getName());
 					}
-					fieldMappings.add(new FieldMapping<PropertyDescriptor>(propertyDescriptor));
-					LOGGER.debug("Field found: {}", propertyDescriptor.getName());
 				}
 
 				return fieldMappings;
@@ -130,12 +277,30 @@ public class RestService {
 			String[] fields = fieldsParameterValue.split(",");
 
 			for (String field : fields) {
-				for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+				Aggregate aggregate = null;
+				int open = field.indexOf('(');
+
+				if (open > 0 && field.endsWith(")")) {
+					aggregate = toAggregate(field.substring(0, open));
+					field = field.substring(open + 1, field.length() - 1);
+
+					if (aggregate == null) {
+						continue;
+					}
+
+					if (field.isEmpty() && aggregate == Aggregate.COUNT) {
+						fieldMappings.add(new FieldMapping<PropertyDescriptor>(null, aggregate));
+						continue;
+					}
+				}
 
-					if (field.equalsIgnoreCase(propertyDescriptor.getName())) {
+				PropertyMetadata propertyMetadata = classMetadata.findProperty(field);
 
-						fieldMappings.add(new FieldMapping<PropertyDescriptor>(propertyDescriptor));
-						LOGGER.debug("Field found: {}", propertyDescriptor.getName());
+				if (propertyMetadata != null) {
+					fieldMappings.add(
+							new FieldMapping<PropertyDescriptor>(propertyMetadata.getPropertyDescriptor(), aggregate));
+					if (debug) {
+						LOGGER.debug("Field found: {}, aggregate: {}", propertyMetadata.getName(), aggregate);
 					}
 				}
 			}
@@ -144,6 +309,16 @@ public class RestService {
 		}
 	};
 
+	private static Aggregate toAggregate(String function) {
+		for (Aggregate aggregate : Aggregate.values()) {
+			if (aggregate.name().equalsIgnoreCase(function)) {
+				return aggregate;
+			}
+		}
+
+		return null;
+	}
+
 	private static final OrderMapper<PropertyDescriptor> orderMapper = new OrderMapper<PropertyDescriptor>() {
 
 		@Override
@@ -151,36 +326,34 @@ public class RestService {
 				List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator,
 				Id orderParameterIdentifier) throws IntrospectionException, ConversionException {
 			List<OrderMapping<PropertyDescriptor>> orderMappings = new LinkedList<OrderMapping<PropertyDescriptor>>();
-			Val orderValue = null;
-
-			for (ParameterMapping<Id, Op, Val> parameterMapping : parameterMappings) {
-				if (parameterMapping.getIdentifier().equals(orderParameterIdentifier)) {
-					orderValue = parameterMapping.getValue();
-					break;
-				}
-			}
+			Val orderValue = IndexedParameterMappings.of(parameterMappings).findValue(orderParameterIdentifier);
 
 			if (orderValue == null) {
 				return orderMappings;
 			}
 
+			ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(clazz);
 			String fieldsParameterValue = typeGenerator.generateType(String.class, orderValue);
 			String[] orders = fieldsParameterValue.split(",");
+			boolean debug = LOGGER.isDebugEnabled();
 
 			for (String order : orders) {
-				for (PropertyDescriptor propertyDescriptor : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
-					String propertyName = order.replaceAll("(\\+|\\-)", "");
-
-					if (propertyName.equalsIgnoreCase(propertyDescriptor.getName())) {
-						Sort sort = null;
-						if (order.endsWith("+")) {
-							sort = Sort.ASCENDING;
-						} else if (order.endsWith("-")) {
-							sort = Sort.DESCENDING;
-						}
+				Sort sort = null;
+				String propertyName = order;
+				if (order.endsWith("+")) {
+					sort = Sort.ASCENDING;
+					propertyName = order.substring(0, order.length() - 1);
+				} else if (order.endsWith("-")) {
+					sort = Sort.DESCENDING;
+					propertyName = order.substring(0, order.length() - 1);
+				}
 
-						orderMappings.add(new OrderMapping<PropertyDescriptor>(propertyDescriptor, sort));
-						LOGGER.debug("Order found: {}, sort: {}", propertyDescriptor.getName(), sort);
+				PropertyMetadata propertyMetadata = classMetadata.findProperty(propertyName);
+
+				if (propertyMetadata != null) {
+					orderMappings.add(new OrderMapping<PropertyDescriptor>(propertyMetadata.getPropertyDescriptor(), sort));
+					if (debug) {
+						LOGGER.debug("Order found: {}, sort: {}", propertyMetadata.getName(), sort);
 					}
 				}
 			}
@@ -196,166 +369,312 @@ public class RestService {
 				Class<?> clazz, List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator)
 				throws ConversionException, IntrospectionException {
 			List<SearchCriterion<PropertyDescriptor, Operator, Object>> searchCriteria = new LinkedList<SearchCriterion<PropertyDescriptor, Operator, Object>>();
-			for (PropertyDescriptor propertyDescriptor : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
-				Class<?> parameterType = propertyDescriptor.getPropertyType();
-				String propertyName = propertyDescriptor.getName();
-
-				if ("class".equalsIgnoreCase(propertyName)) {
-					continue;
+			ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(clazz);
+			IndexedParameterMappings<Id, Op, Val> indexedParameterMappings = IndexedParameterMappings
+					.of(parameterMappings);
+			boolean debug = LOGGER.isDebugEnabled();
+
+			for (SearchParameterGroup group : SearchParameterGroup.group(classMetadata, indexedParameterMappings)) {
+				Class<?> type = group.getPropertyMetadata().getType();
+				Object value;
+
+				if (group.isList()) {
+					List<Object> values = new ArrayList<Object>();
+					for (int position : group.getPositions()) {
+						values.addAll(generateListValues(type, indexedParameterMappings.get(position).getValue(),
+								typeGenerator));
+					}
+					value = values;
+				} else {
+					value = typeGenerator.generateType(type,
+							indexedParameterMappings.get(group.getPositions().get(0)).getValue());
 				}
 
-				SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion;
-				Id id = null;
-				Operator operator = null;
-				for (ParameterMapping<Id, Op, Val> parameterMapping : parameterMappings) {
-					id = parameterMapping.getIdentifier();
-
-					if (id instanceof String && id.equals(propertyName)) {
-
-						for (OperatorMapping operatorMapping : operatorMappings) {
-							if (operatorMapping.getOperator().equals(parameterMapping.getOperator())) {
-								operator = operatorMapping.getOperator();
-							}
-						}
+				SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion = new SearchCriterion<PropertyDescriptor, RestService.Operator, Object>(
+						group.getPropertyMetadata().getPropertyDescriptor(), group.getOperator(), value);
+				searchCriteria.add(searchCriterion);
 
-						searchCriterion = new SearchCriterion<PropertyDescriptor, RestService.Operator, Object>(
-								propertyDescriptor, operator,
-								typeGenerator.generateType(parameterType, parameterMapping.getValue()));
-						searchCriteria.add(searchCriterion);
-						LOGGER.debug("SearchValue found: {}, operator: {}, value: {}",
-								searchCriterion.getIdentifier().getName(), searchCriterion.getOperator(),
-								searchCriterion.getValue());
-						break;
-					}
+				if (debug) {
+					LOGGER.debug("SearchValue found: {}, operator: {}, value: {}",
+							searchCriterion.getIdentifier().getName(), searchCriterion.getOperator(),
+							searchCriterion.getValue());
 				}
 			}
 			return searchCriteria;
 		}
 	};
 
-	private static final ParameterMapper<String, Operator, Object> queryParameterMapper = new ParameterMapper<String, Operator, Object>() {
+	/**
+	 * @return the values of a list parameter, or the single value of any other
+	 *         parameter, converted to type
+	 */
+	static List<Object> generateListValues(Class<?> type, Object value, TypeGenerator typeGenerator)
+			throws ConversionException {
+		if (!(value instanceof Collection)) {
+			return new ArrayList<Object>(Collections.singletonList(typeGenerator.generateType(type, value)));
+		}
+
+		Collection<?> elements = (Collection<?>) value;
+		List<Object> values = new ArrayList<Object>(elements.size());
+		for (Object element : elements) {
+			values.add(typeGenerator.generateType(type, element));
+		}
+
+		return values;
+	}
+
+	private static final FilterMapper<PropertyDescriptor, Operator, Object> filterMapper = new FilterMapper<PropertyDescriptor, Operator, Object>() {
 
 		@Override
-		public List<ParameterMapping<String, Operator, Object>> generateParameterMappings(Object source)
-				throws ParameterException {
-			if (source == null) {
+		public <Id, Op, Val> SearchCriterion<PropertyDescriptor, Operator, Object> generateFilter(Class<?> clazz,
+				List<ParameterMapping<Id, Op, Val>> parameterMappings, TypeGenerator typeGenerator,
+				Id filterParameterIdentifier) throws ParameterException, ConversionException, IntrospectionException {
+			List<ParameterMapping<Id, Op, Val>> filterMappings = IndexedParameterMappings.of(parameterMappings)
+					.findAll(filterParameterIdentifier);
+
+			if (filterMappings.isEmpty()) {
 				return null;
 			}
 
-			String query = (String) source;
-			String[] nameValuePairs = query.split("\\&");
-			List<ParameterMapping<String, Operator, Object>> parameterMappings = new LinkedList<ParameterMapping<String, Operator, Object>>();
+			List<SearchCriterion<PropertyDescriptor, Operator, Object>> filters = new ArrayList<SearchCriterion<PropertyDescriptor, Operator, Object>>(
+					filterMappings.size());
+			for (ParameterMapping<Id, Op, Val> filterMapping : filterMappings) {
+				SearchCriterion<PropertyDescriptor, Operator, Object> filter = FilterParser.parse(clazz,
+						typeGenerator.generateType(String.class, filterMapping.getValue()), typeGenerator);
 
-			if (nameValuePairs == null || nameValuePairs.length == 0) {
-				return parameterMappings;
+				// filter!=expression is the complement of the expression
+				filters.add(filterMapping.getOperator() == Operator.NOT_EQUAL ? FilterParser.negate(filter) : filter);
 			}
 
-			String name;
-			Object value;
-			ParameterMapping<String, Operator, Object> parameterMapping;
+			SearchCriterion<PropertyDescriptor, Operator, Object> filter = CompositeSearchCriterion.and(filters);
+			LOGGER.debug("filter found: {}", filter);
+			return filter;
+		}
+	};
+
+	private static ParameterMapper<String, Operator, Object> createQueryParameterMapper() {
+		return new ParameterMapper<String, Operator, Object>() {
+
+			@Override
+			public List<ParameterMapping<String, Operator, Object>> generateParameterMappings(Object source)
+					throws ParameterException {
+				if (source == null) {
+					return null;
+				}
 
-			Matcher matcher;
-			for (String nameValuePair : nameValuePairs) {
-				parameterMapping = new ParameterMapping<String, Operator, Object>();
-				int maxLength = -1, currentLength, start = -1, end = -1;
-				for (OperatorMapping operatorMapping : operatorMappings) {
-					matcher = operatorMapping.getPattern().matcher(nameValuePair);
+				List<ParameterMapping<String, Operator, Object>> parameterMappings = QueryTokenizer
+						.tokenize((CharSequence) source);
 
-					if (!matcher.find()) {
-						LOGGER.trace("operator {} does not match input string: {}", operatorMapping.getOperator(),
-								nameValuePair);
-						continue;
+				if (LOGGER.isDebugEnabled()) {
+					for (ParameterMapping<String, Operator, Object> parameterMapping : parameterMappings) {
+						LOGGER.debug("parameter mapped: {}, value: {}, operator: {}", parameterMapping.getIdentifier(),
+								parameterMapping.getValue(), parameterMapping.getOperator());
 					}
+				}
+
+				return parameterMappings;
+			}
+		};
+	}
 
-					LOGGER.trace("operator {} matches input string: {}", operatorMapping.getOperator(), nameValuePair);
-					start = matcher.start();
-					end = matcher.end();
-					currentLength = end - start;
-					if (maxLength < currentLength) {
-						maxLength = currentLength;
-						parameterMapping.setOperator(operatorMapping.getOperator());
+	/**
+	 * Hands out the values of parameterMapper as Strings. The mappers of this
+	 * service keep values as {@link usgaard.jacob.rest.conversion.CharSlice}s
+	 * of the query for the converters, but those never equal a String.
+	 */
+	private static ParameterMapper<String, Operator, Object> createStringParameterMapper(
+			final ParameterMapper<String, Operator, Object> parameterMapper) {
+		return new ParameterMapper<String, Operator, Object>() {
+
+			@Override
+			public List<ParameterMapping<String, Operator, Object>> generateParameterMappings(Object source)
+					throws ParameterException {
+				List<ParameterMapping<String, Operator, Object>> parameterMappings = parameterMapper
+						.generateParameterMappings(source);
+
+				if (parameterMappings != null) {
+					for (ParameterMapping<String, Operator, Object> parameterMapping : parameterMappings) {
+						parameterMapping.setValue(toStringValue(parameterMapping.getValue()));
 					}
 				}
 
-				if (parameterMapping.getOperator() == null) {
-					throw new ParameterException("Unable to find operator for parameter: " + nameValuePair);
+				return parameterMappings;
+			}
+		};
+	}
+
+	private static Object toStringValue(Object value) {
+		if (value instanceof List) {
+			List<?> values = (List<?>) value;
+			List<Object> strings = new ArrayList<Object>(values.size());
+			for (Object element : values) {
+				strings.add(toStringValue(element));
+			}
+			return strings;
+		}
+
+		return value instanceof CharSequence ? value.toString() : value;
+	}
+
+	/**
+	 * Reads the raw query string and, of a POST, the form or JSON body, so the
+	 * parameters are decoded once, by this service rather than by the container.
+	 */
+	private static ParameterMapper<String, Operator, Object> createServletRequestParameterMapper(
+			final ParameterMapper<String, Operator, Object> queryParameterMapper, final int maximumBodyLength) {
+		return new ParameterMapper<String, Operator, Object>() {
+
+			@Override
+			public List<ParameterMapping<String, Operator, Object>> generateParameterMappings(Object source)
+					throws ParameterException {
+				if (source == null) {
+					return null;
 				}
 
-				name = nameValuePair.substring(0, start);
-				value = nameValuePair.substring(end);
+				HttpServletRequest httpServletRequest = (HttpServletRequest) source;
+				List<ParameterMapping<String, Operator, Object>> parameterMappings = queryParameterMapper
+						.generateParameterMappings(httpServletRequest.getQueryString());
 
-				if (name == null) {
-					continue;
+				if (!"POST".equalsIgnoreCase(httpServletRequest.getMethod())
+						|| httpServletRequest.getContentType() == null) {
+					return parameterMappings;
 				}
 
-				LOGGER.debug("parameter mapped: {}, value: {}, operator: {}", name, value,
-						parameterMapping.getOperator());
+				String mediaType = httpServletRequest.getContentType();
+				int parameters = mediaType.indexOf(';');
+				mediaType = (parameters < 0 ? mediaType : mediaType.substring(0, parameters)).trim()
+						.toLowerCase(Locale.ROOT);
+
+				List<ParameterMapping<String, Operator, Object>> bodyParameterMappings;
+				if (FORM_CONTENT_TYPE.equals(mediaType)) {
+					bodyParameterMappings = queryParameterMapper.generateParameterMappings(
+							decodeFormSpaces(readBody(httpServletRequest, maximumBodyLength)));
+				} else if (JSON_CONTENT_TYPE.equals(mediaType)) {
+					bodyParameterMappings = JsonParameterParser.parse(readBody(httpServletRequest, maximumBodyLength));
+					this.joinReservedLists(bodyParameterMappings);
+				} else {
+					return parameterMappings;
+				}
 
-				parameterMapping.setIdentifier(name);
-				parameterMapping.setValue(value);
+				if (parameterMappings == null) {
+					return bodyParameterMappings;
+				}
 
-				parameterMappings.add(parameterMapping);
+				parameterMappings.addAll(bodyParameterMappings);
+				return parameterMappings;
 			}
 
-			return parameterMappings;
-		}
-	};
+			/**
+			 * Joins the JSON arrays of the fields, order and group parameters
+			 * with commas, as they are written in a query string.
+			 *
+			 * @throws ParameterException
+			 *             if any other reserved parameter is an array
+			 */
+			private void joinReservedLists(List<ParameterMapping<String, Operator, Object>> parameterMappings)
+					throws ParameterException {
+				List<String> joined = Arrays.asList(this.getFieldsParameterIdentifier(),
+						this.getOrderParameterIdentifier(), this.getGroupParameterIdentifier());
+				List<String> scalar = Arrays.asList(this.getStartParameterIdentifier(),
+						this.getLimitParameterIdentifier(), this.getAfterParameterIdentifier(),
+						this.getFilterParameterIdentifier(), this.getTotalParameterIdentifier());
+
+				for (ParameterMapping<String, Operator, Object> parameterMapping : parameterMappings) {
+					String identifier = parameterMapping.getIdentifier();
+
+					if (!(parameterMapping.getValue() instanceof List)) {
+						continue;
+					}
 
-	private static final ParameterMapper<String, Operator, Object> servletRequestParameterMapper = new ParameterMapper<String, Operator, Object>() {
+					if (scalar.contains(identifier)
+							|| (joined.contains(identifier) && parameterMapping.getOperator() != Operator.IN)) {
+						throw new ParameterException("Parameter does not take a list: " + identifier);
+					}
 
-		@Override
-		public List<ParameterMapping<String, Operator, Object>> generateParameterMappings(Object source)
-				throws ParameterException {
-			if (source == null) {
-				return null;
+					if (joined.contains(identifier)) {
+						StringBuilder value = new StringBuilder();
+						for (Object element : (List<?>) parameterMapping.getValue()) {
+							if (value.length() > 0) {
+								value.append(',');
+							}
+							value.append(element);
+						}
+
+						parameterMapping.setOperator(Operator.EQUAL);
+						parameterMapping.setValue(value.toString());
+					}
+				}
 			}
+		};
+	}
 
-			return queryParameterMapper.generateParameterMappings(((HttpServletRequest) source).getQueryString());
-		}
-	};
+	/**
+	 * @return body with every {@code +} replaced by an encoded space, as form
+	 *         encoding means, so a literal {@code +}, e.g. of an order, is sent
+	 *         as {@code %2B}
+	 */
+	private static CharSequence decodeFormSpaces(CharSequence body) {
+		StringBuilder decoded = null;
 
-	private static TypeGenerator defaultTypeGenerator = new TypeGenerator() {
+		for (int index = 0; index < body.length(); index++) {
+			char c = body.charAt(index);
 
-		@SuppressWarnings("unchecked")
-		@Override
-		public <T> T generateType(Class<T> clazz, Object object) throws ConversionException {
-			if (clazz == null || object == null) {
-				return null;
+			if (c == '+' && decoded == null) {
+				decoded = new StringBuilder(body.length() + 16);
+				decoded.append(body, 0, index);
 			}
 
-			if (String.class.equals(clazz)) {
-				return (T) object.toString();
+			if (decoded != null) {
+				if (c == '+') {
+					decoded.append("%20");
+				} else {
+					decoded.append(c);
+				}
 			}
+		}
 
-			if (Integer.class.equals(clazz) || int.class.equals(clazz)) {
-				return (T) new Integer(object.toString());
-			}
+		return decoded == null ? body : decoded;
+	}
 
-			if (Long.class.equals(clazz) || long.class.equals(clazz)) {
-				return (T) new Long(object.toString());
-			}
+	/**
+	 * @return the body of servletRequest, read as UTF-8 unless the request
+	 *         tells otherwise
+	 * @throws ParameterException
+	 *             if the body is longer than maximumBodyLength characters or
+	 *             cannot be read, e.g. because the container parsed it already
+	 */
+	private static CharSequence readBody(ServletRequest servletRequest, int maximumBodyLength)
+			throws ParameterException {
+		if (servletRequest.getContentLength() > maximumBodyLength) {
+			throw new ParameterException("Request body longer than: " + maximumBodyLength);
+		}
 
-			if (Double.class.equals(clazz) || double.class.equals(clazz)) {
-				return (T) new Double(object.toString());
+		StringBuilder body = new StringBuilder(Math.max(servletRequest.getContentLength(), 16));
+		try {
+			if (servletRequest.getCharacterEncoding() == null) {
+				servletRequest.setCharacterEncoding(StandardCharsets.UTF_8.name());
 			}
 
-			if (Float.class.equals(clazz) || float.class.equals(clazz)) {
-				return (T) new Float(object.toString());
-			}
+			Reader reader = servletRequest.getReader();
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) >= 0) {
+				body.append(buffer, 0, read);
 
-			if (Boolean.class.equals(clazz) || boolean.class.equals(clazz)) {
-				return (T) new Boolean(object.toString());
+				if (body.length() > maximumBodyLength) {
+					throw new ParameterException("Request body longer than: " + maximumBodyLength);
+				}
 			}
+		} catch (IOException | IllegalStateException e) {
+			throw new ParameterException("Unable to read request body", e);
+		}
 
-			if (clazz.equals(object.getClass())) {
-				return (T) object;
-			}
+		return body;
+	}
 
-			throw new ConversionException("Could not convert from: " + object.getClass() + " to: " + clazz);
-		}
-	};
+	private static final TypeGenerator defaultTypeGenerator = ConverterRegistry.getDefault();
 
-	private static CriteriaGenerator<PropertyDescriptor, Operator, Object> criteriaGenerator = new CriteriaGenerator<PropertyDescriptor, RestService.Operator, Object>() {
+	private static final CriteriaGenerator<PropertyDescriptor, Operator, Object> criteriaGenerator = new CriteriaGenerator<PropertyDescriptor, RestService.Operator, Object>() {
 
 		@Override
 		public Criteria generateCriteria(Session session,
@@ -364,294 +683,2143 @@ public class RestService {
 				return null;
 			}
 
-			Criteria criteria = session.createCriteria(restRequest.getRootClass());
-
-			String propertyName;
-			Object value;
-			for (SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion : restRequest
-					.getSearchCriteria()) {
-				propertyName = searchCriterion.getIdentifier().getName();
-				value = searchCriterion.getValue();
-
-				switch (searchCriterion.getOperator()) {
-				case EQUAL:
-					criteria.add(Restrictions.eq(propertyName, value));
-					break;
-				case GREATER_THAN:
-					criteria.add(Restrictions.gt(propertyName, value));
-					break;
-				case GREATER_THAN_OR_EQUAL:
-					criteria.add(Restrictions.ge(propertyName, value));
-					break;
-				case LESS_THAN:
-					criteria.add(Restrictions.lt(propertyName, value));
-					break;
-				case LESS_THAN_OR_EQUAL:
-					criteria.add(Restrictions.le(propertyName, value));
-					break;
-				case NOT_EQUAL:
-					criteria.add(Restrictions.ne(propertyName, value));
-					break;
-				default:
-					break;
-				}
-			}
+			return RestService.generateCriteria(session.createCriteria(restRequest.getRootClass()), restRequest);
+		}
+
+	};
+
+	/**
+	 * Adds the restrictions, projections, orders and bounds of restRequest to
+	 * criteria, which may belong to a session or to a stateless session.
+	 */
+	private static Criteria generateCriteria(Criteria criteria,
+			RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		boolean debug = LOGGER.isDebugEnabled();
 
-			ProjectionList projectionList = Projections.projectionList();
-			for (FieldMapping<PropertyDescriptor> fieldMapping : restRequest.getFieldMappings()) {
-				propertyName = fieldMapping.getIdentifier().getName();
+		String propertyName;
+		addRestrictions(criteria, restRequest.getSearchCriteria());
+
+		Cursor after = restRequest.getAfter();
+		if (after != null && !after.isEmpty()) {
+			criteria.add(generateSeekCriterion(restRequest.getOrderMappings(), after.getValues()));
+		}
 
-				projectionList.add(Projections.property(propertyName));
-				LOGGER.debug("adding projection: {}", propertyName);
+		ProjectionList projectionList = Projections.projectionList();
+		boolean aggregated = isAggregated(restRequest);
+		for (FieldMapping<PropertyDescriptor> fieldMapping : getColumns(restRequest)) {
+			projectionList.add(generateProjection(fieldMapping, aggregated));
+			if (debug) {
+				LOGGER.debug("adding projection: {}", getColumnName(fieldMapping));
 			}
+		}
 
+		// the sort keys of the last row make up the next cursor
+		if (after != null) {
 			for (OrderMapping<PropertyDescriptor> orderMapping : restRequest.getOrderMappings()) {
-				Sort sort = orderMapping.getSort();
-				if (sort == null) {
-					continue;
+				propertyName = orderMapping.getIdentifier().getName();
+
+				if (indexOfField(restRequest.getFieldMappings(), propertyName) < 0) {
+					projectionList.add(Projections.property(propertyName));
+					if (debug) {
+						LOGGER.debug("adding sort key projection: {}", propertyName);
+					}
 				}
+			}
+		}
 
-				propertyName = orderMapping.getIdentifier().getName();
+		for (OrderMapping<PropertyDescriptor> orderMapping : restRequest.getOrderMappings()) {
+			Sort sort = orderMapping.getSort();
+			if (sort == null) {
+				continue;
+			}
 
-				switch (sort) {
-				case ASCENDING:
-					criteria.addOrder(Order.asc(propertyName));
-					break;
+			propertyName = orderMapping.getIdentifier().getName();
 
-				case DESCENDING:
-					criteria.addOrder(Order.desc(propertyName));
-					break;
-				}
+			// the seek criterion needs nulls lowest, whatever the database's default
+			switch (sort) {
+			case ASCENDING:
+				criteria.addOrder(after == null ? Order.asc(propertyName) : new SeekOrder(propertyName, true));
+				break;
+
+			case DESCENDING:
+				criteria.addOrder(after == null ? Order.desc(propertyName) : new SeekOrder(propertyName, false));
+				break;
+			}
 
+			if (debug) {
 				LOGGER.debug("adding order: {}, {}", propertyName, sort);
 			}
+		}
+
+		LOGGER.debug("projections: {}", projectionList.getLength());
+		criteria.setProjection(projectionList);
+		criteria.setFirstResult(after == null ? restRequest.getStart() : 0);
+		criteria.setMaxResults(restRequest.getLimit());
 
-			LOGGER.debug("projections: {}", projectionList.getLength());
-			criteria.setProjection(projectionList);
-			criteria.setFirstResult(restRequest.getStart());
-			criteria.setMaxResults(restRequest.getLimit());
+		return criteria;
+	}
 
-			return criteria;
+	/**
+	 * @return whether restRequest aggregates rows rather than listing them
+	 */
+	static boolean isAggregated(RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		if (!restRequest.getGroupMappings().isEmpty()) {
+			return true;
 		}
 
-	};
+		for (FieldMapping<PropertyDescriptor> fieldMapping : restRequest.getFieldMappings()) {
+			if (fieldMapping.getAggregate() != null) {
+				return true;
+			}
+		}
 
-	private void setParameterMapperDefaults(ParameterMapper<String, Operator, Object> parameterMapper) {
-		parameterMapper.setFieldsParameterIdentifier(this.getUsableFieldsParameterName());
-		parameterMapper.setStartParameterIdentifier(this.getUsableStartParameterName());
-		parameterMapper.setLimitParameterIdentifier(this.getUsableLimitParameterName());
-		parameterMapper.setOrderParameterIdentifier(this.getUsabledOrderParameterName());
+		return false;
 	}
 
-	public RestRequest<PropertyDescriptor, Operator, Object> convert(String query, Class<?> clazz)
-			throws IntrospectionException, ParameterException, ConversionException {
-		this.setParameterMapperDefaults(queryParameterMapper);
+	/**
+	 * @return the projected columns of restRequest: the grouped fields missing
+	 *         from the fields, then the fields
+	 */
+	static List<FieldMapping<PropertyDescriptor>> getColumns(
+			RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		List<FieldMapping<PropertyDescriptor>> fieldMappings = restRequest.getFieldMappings();
+
+		if (restRequest.getGroupMappings().isEmpty()) {
+			return fieldMappings;
+		}
+
+		List<FieldMapping<PropertyDescriptor>> columns = new ArrayList<FieldMapping<PropertyDescriptor>>();
+		for (FieldMapping<PropertyDescriptor> groupMapping : restRequest.getGroupMappings()) {
+			if (indexOfField(fieldMappings, groupMapping.getIdentifier().getName()) < 0
+					&& indexOfField(columns, groupMapping.getIdentifier().getName()) < 0) {
+				columns.add(groupMapping);
+			}
+		}
+		columns.addAll(fieldMappings);
 
-		return this.convert(query, clazz, queryParameterMapper, defaultTypeGenerator, searchCriteriaGenerator,
-				fieldMapper, orderMapper);
+		return columns;
 	}
 
-	public RestRequest<PropertyDescriptor, Operator, Object> convert(ServletRequest servletRequest, Class<?> clazz)
-			throws IntrospectionException, ParameterException, ConversionException {
-		this.setParameterMapperDefaults(servletRequestParameterMapper);
+	/**
+	 * @return the name of the column of fieldMapping, e.g. {@code age} or
+	 *         {@code sum(age)}
+	 */
+	static String getColumnName(FieldMapping<PropertyDescriptor> fieldMapping) {
+		String propertyName = fieldMapping.getIdentifier() == null ? "" : fieldMapping.getIdentifier().getName();
+
+		if (fieldMapping.getAggregate() == null) {
+			return propertyName;
+		}
 
-		return this.convert(servletRequest, clazz, servletRequestParameterMapper, defaultTypeGenerator,
-				searchCriteriaGenerator, fieldMapper, orderMapper);
+		return fieldMapping.getAggregate().name().toLowerCase(Locale.ROOT) + '(' + propertyName + ')';
 	}
 
-	public <ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<PropertyDescriptor, Operator, Object> convert(
-			Object object, Class<?> clazz,
-			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper)
-			throws IntrospectionException, ParameterException, ConversionException {
-		return this.convert(object, clazz, parameterMapper, defaultTypeGenerator, searchCriteriaGenerator, fieldMapper,
-				orderMapper);
+	/**
+	 * @param grouped
+	 *            whether plain fields are grouped by
+	 */
+	private static Projection generateProjection(FieldMapping<PropertyDescriptor> fieldMapping, boolean grouped) {
+		if (fieldMapping.getAggregate() == null) {
+			String propertyName = fieldMapping.getIdentifier().getName();
+			return grouped ? Projections.groupProperty(propertyName) : Projections.property(propertyName);
+		}
+
+		if (fieldMapping.getIdentifier() == null) {
+			return Projections.rowCount();
+		}
+
+		String propertyName = fieldMapping.getIdentifier().getName();
+		switch (fieldMapping.getAggregate()) {
+		case SUM:
+			return Projections.sum(propertyName);
+		case AVG:
+			return Projections.avg(propertyName);
+		case MIN:
+			return Projections.min(propertyName);
+		case MAX:
+			return Projections.max(propertyName);
+		default:
+			return Projections.count(propertyName);
+		}
 	}
 
-	public <SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue, ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> convert(
-			Object object, Class<?> clazz,
-			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper,
-			TypeGenerator typeGenerator,
-			SearchCriteriaGenerator<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> searchCriteriaGenerator,
-			FieldMapper<SearchCriteriaId> fieldMapper, OrderMapper<SearchCriteriaId> orderMapper)
-			throws IntrospectionException, ParameterException, ConversionException {
+	private static void addRestrictions(Criteria criteria,
+			List<SearchCriterion<PropertyDescriptor, Operator, Object>> searchCriteria) {
+		for (SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion : searchCriteria) {
+			Criterion criterion = generateCriterion(searchCriterion);
 
-		if (parameterMapper == null || typeGenerator == null || searchCriteriaGenerator == null
-				|| fieldMapper == null) {
+			if (criterion != null) {
+				criteria.add(criterion);
+			}
+		}
+	}
+
+	/**
+	 * @return the criteria counting every row matching the search criteria of
+	 *         restRequest, whatever the page
+	 */
+	private static Criteria generateCountCriteria(Session session,
+			RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		if (session == null || !session.isOpen()) {
 			return null;
 		}
 
-		RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> restRequest = new RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue>();
+		Criteria criteria = session.createCriteria(restRequest.getRootClass());
+		addRestrictions(criteria, restRequest.getSearchCriteria());
+		criteria.setProjection(Projections.rowCount());
 
-		restRequest.setRootClass(clazz);
+		return criteria;
+	}
 
-		List<ParameterMapping<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue>> parameterMappings = parameterMapper
-				.generateParameterMappings(object);
-		LOGGER.debug("fieldsParameterIdentifier: {}", parameterMapper.getFieldsParameterIdentifier());
-		restRequest.setSearchCriteria(
-				searchCriteriaGenerator.generateSearchCriteria(clazz, parameterMappings, typeGenerator));
+	/**
+	 * @return the restriction of searchCriterion, or null if it does not
+	 *         restrict anything
+	 */
+	private static Criterion generateCriterion(SearchCriterion<PropertyDescriptor, Operator, Object> searchCriterion) {
+		if (searchCriterion instanceof CompositeSearchCriterion) {
+			CompositeSearchCriterion<PropertyDescriptor, Operator, Object> composite = (CompositeSearchCriterion<PropertyDescriptor, Operator, Object>) searchCriterion;
 
-		restRequest.setFieldMappings(fieldMapper.generateFieldMappings(clazz, parameterMappings, typeGenerator,
-				parameterMapper.getFieldsParameterIdentifier()));
+			if (composite.isTrue()) {
+				return null;
+			}
 
-		restRequest.setOrderMappings(orderMapper.generateOrderMappings(clazz, parameterMappings, typeGenerator,
-				parameterMapper.getOrderParameterIdentifier()));
+			if (composite.isFalse()) {
+				return Restrictions.sqlRestriction("1=0");
+			}
 
-		restRequest.setStart(getUsableStart());
-		restRequest.setLimit(getUsableLimit());
+			if (composite.getLogicalOperator() == CompositeSearchCriterion.LogicalOperator.NOT) {
+				Criterion criterion = generateCriterion(composite.getChildren().get(0));
+				return criterion == null ? Restrictions.sqlRestriction("1=0") : Restrictions.not(criterion);
+			}
 
-		LOGGER.debug("startParameterIdentifier: {}", parameterMapper.getStartParameterIdentifier());
-		LOGGER.debug("limitParameterIdentifier: {}", parameterMapper.getLimitParameterIdentifier());
+			Junction junction = composite.getLogicalOperator() == CompositeSearchCriterion.LogicalOperator.AND
+					? Restrictions.conjunction() : Restrictions.disjunction();
+			for (SearchCriterion<PropertyDescriptor, Operator, Object> child : composite.getChildren()) {
+				Criterion criterion = generateCriterion(child);
 
-		for (ParameterMapping<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapping : parameterMappings) {
-			if (parameterMapping.getIdentifier().equals(parameterMapper.getStartParameterIdentifier())) {
-				restRequest.setStart(typeGenerator.generateType(int.class, parameterMapping.getValue()));
-				break;
-			}
+				if (criterion == null) {
+					// a child matching every row decides a disjunction
+					if (composite.getLogicalOperator() == CompositeSearchCriterion.LogicalOperator.OR) {
+						return null;
+					}
+					continue;
+				}
 
-			if (parameterMapping.getIdentifier().equals(parameterMapper.getLimitParameterIdentifier())) {
-				restRequest.setLimit(typeGenerator.generateType(int.class, parameterMapping.getValue()));
+				junction.add(criterion);
 			}
+
+			return junction;
 		}
 
-		return restRequest;
+		if (searchCriterion.getOperator() == null) {
+			return null;
+		}
+
+		String propertyName = searchCriterion.getIdentifier().getName();
+		Object value = searchCriterion.getValue();
+
+		switch (searchCriterion.getOperator()) {
+		case EQUAL:
+			return Restrictions.eq(propertyName, value);
+		case GREATER_THAN:
+			return Restrictions.gt(propertyName, value);
+		case GREATER_THAN_OR_EQUAL:
+			return Restrictions.ge(propertyName, value);
+		case LESS_THAN:
+			return Restrictions.lt(propertyName, value);
+		case LESS_THAN_OR_EQUAL:
+			return Restrictions.le(propertyName, value);
+		case NOT_EQUAL:
+			return Restrictions.ne(propertyName, value);
+		case IN:
+			return generateInCriterion(propertyName, asList(value), false);
+		case NOT_IN:
+			return generateInCriterion(propertyName, asList(value), true);
+		default:
+			return null;
+		}
 	}
 
-	public <T> List<T> convert(String query, Class<T> clazz, Session session)
-			throws IntrospectionException, ParameterException, ConversionException, InstantiationException,
-			IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
-		Criteria criteria = criteriaGenerator.generateCriteria(session, restRequest);
+	private static List<?> asList(Object value) {
+		return value instanceof List ? (List<?>) value : Collections.singletonList(value);
+	}
+
+	/**
+	 * Splits values into in lists of at most {@link #MAXIMUM_IN_LIST_SIZE}
+	 * values, each padded to a power of two by repeating its last value. The
+	 * statement then takes one of a few shapes whatever the number of values,
+	 * so the database can reuse its cached plans.
+	 *
+	 * @param negated
+	 *            whether the property must not take any of values
+	 */
+	static Criterion generateInCriterion(String propertyName, List<?> values, boolean negated) {
+		if (values.isEmpty()) {
+			return Restrictions.sqlRestriction(negated ? "1=1" : "1=0");
+		}
+
+		Junction junction = negated ? Restrictions.conjunction() : Restrictions.disjunction();
 
-		@SuppressWarnings("unchecked")
-		List<Object[]> rows = criteria.list();
+		for (int chunkStart = 0; chunkStart < values.size(); chunkStart += MAXIMUM_IN_LIST_SIZE) {
+			List<?> chunk = values.subList(chunkStart, Math.min(values.size(), chunkStart + MAXIMUM_IN_LIST_SIZE));
+			int paddedSize = Math.min(MAXIMUM_IN_LIST_SIZE, Integer.highestOneBit(chunk.size() * 2 - 1));
 
-		List<FieldMapping<PropertyDescriptor>> columns = restRequest.getFieldMappings();
-		List<T> list = new LinkedList<T>();
-		T object = null;
-		for (Object[] row : rows) {
-			object = clazz.newInstance();
-			for (int columnIndex = 0; columnIndex < row.length; columnIndex++) {
-				FieldMapping<PropertyDescriptor> column = columns.get(columnIndex);
-				column.getIdentifier().getWriteMethod().invoke(object, row[columnIndex]);
-				LOGGER.debug("placed column {} with value {}", column.getIdentifier().getName(), row[columnIndex]);
+			Object[] paddedChunk = new Object[paddedSize];
+			for (int index = 0; index < paddedSize; index++) {
+				paddedChunk[index] = chunk.get(Math.min(index, chunk.size() - 1));
 			}
 
-			list.add(object);
+			Criterion in = Restrictions.in(propertyName, paddedChunk);
+			if (values.size() <= MAXIMUM_IN_LIST_SIZE) {
+				return negated ? Restrictions.not(in) : in;
+			}
+			junction.add(negated ? Restrictions.not(in) : in);
 		}
 
-		return list;
+		return junction;
 	}
 
-	private int getUsableStart() {
-		return this.start == null ? defaultStart : this.start;
-	}
+	/**
+	 * Matches the rows sorting after values: equal on every key before some key
+	 * and past the value on that key.
+	 */
+	private static Criterion generateSeekCriterion(List<OrderMapping<PropertyDescriptor>> keys, List<Object> values) {
+		Disjunction disjunction = Restrictions.disjunction();
 
-	private int getUsableLimit() {
-		return this.limit == null ? defaultLimit : this.limit;
-	}
+		for (int index = 0; index < keys.size(); index++) {
+			Criterion past = generatePastCriterion(keys.get(index), values.get(index));
 
-	private String getUsableFieldsParameterName() {
-		return (this.fieldsParameterName == null || this.fieldsParameterName.isEmpty()) ? defaultFieldsParameterName
-				: this.fieldsParameterName;
-	}
+			if (past == null) {
+				continue;
+			}
 
-	private String getUsableStartParameterName() {
-		return (this.startParameterName == null || this.startParameterName.isEmpty()) ? defaultStartParameterName
-				: this.startParameterName;
-	}
+			Conjunction conjunction = Restrictions.conjunction();
+			for (int previous = 0; previous < index; previous++) {
+				String propertyName = keys.get(previous).getIdentifier().getName();
+				Object value = values.get(previous);
 
-	private String getUsableLimitParameterName() {
-		return (this.limitParameterName == null || this.limitParameterName.isEmpty()) ? defaultLimitParameterName
-				: this.limitParameterName;
-	}
+				conjunction.add(value == null ? Restrictions.isNull(propertyName) : Restrictions.eq(propertyName, value));
+			}
+			conjunction.add(past);
+			disjunction.add(conjunction);
+		}
 
-	private String getUsabledOrderParameterName() {
-		return (this.orderParameterName == null || this.orderParameterName.isEmpty()) ? defaultOrderParameterName
-				: this.orderParameterName;
+		return disjunction;
 	}
 
-	public void setDefaultTypeGenerator(TypeGenerator defaultTypeGenerator) {
-		RestService.defaultTypeGenerator = defaultTypeGenerator;
-	}
+	/**
+	 * An order sorting nulls lowest, i.e. first when ascending and last when
+	 * descending, as {@link RestService#generateSeekCriterion(List, List)}
+	 * assumes. {@code NULLS FIRST} is not understood by every database, so the
+	 * nulls are sorted by a case expression ahead of the column.
+	 */
+	private static final class SeekOrder extends Order {
 
-	public static int getDefaultStart() {
-		return defaultStart;
-	}
+		private static final long serialVersionUID = 1L;
 
-	public static void setDefaultStart(int defaultStart) {
-		RestService.defaultStart = defaultStart;
-	}
+		private SeekOrder(String propertyName, boolean ascending) {
+			super(propertyName, ascending);
+		}
 
-	public static int getDefaultLimit() {
-		return defaultLimit;
-	}
+		@Override
+		public String toSqlString(Criteria criteria, CriteriaQuery criteriaQuery) {
+			String direction = this.isAscending() ? " asc" : " desc";
+			StringBuilder sql = new StringBuilder();
 
-	public static void setDefaultLimit(int defaultLimit) {
-		RestService.defaultLimit = defaultLimit;
-	}
+			for (String column : criteriaQuery.getColumnsUsingProjection(criteria, this.getPropertyName())) {
+				if (sql.length() > 0) {
+					sql.append(", ");
+				}
+				sql.append("case when ").append(column).append(" is null then 0 else 1 end").append(direction)
+						.append(", ").append(column).append(direction);
+			}
 
-	public String getFieldsParameterName() {
-		return fieldsParameterName;
+			return sql.toString();
+		}
 	}
 
-	public void setFieldsParameterName(String fieldsParameterName) {
-		this.fieldsParameterName = fieldsParameterName;
-	}
+	/**
+	 * @return the criterion for values strictly past value in the direction of
+	 *         key, or null if nothing sorts past it
+	 */
+	private static Criterion generatePastCriterion(OrderMapping<PropertyDescriptor> key, Object value) {
+		String propertyName = key.getIdentifier().getName();
 
-	public String getStartParameterName() {
-		return startParameterName;
-	}
+		if (key.getSort() == Sort.DESCENDING) {
+			return value == null ? null
+					: Restrictions.or(Restrictions.lt(propertyName, value), Restrictions.isNull(propertyName));
+		}
 
-	public void setStartParameterName(String startParameterName) {
-		this.startParameterName = startParameterName;
+		return value == null ? Restrictions.isNotNull(propertyName) : Restrictions.gt(propertyName, value);
 	}
 
-	public String getLimitParameterName() {
-		return limitParameterName;
-	}
+	private static int indexOfField(List<FieldMapping<PropertyDescriptor>> fieldMappings, String propertyName) {
+		int index = 0;
+		for (FieldMapping<PropertyDescriptor> fieldMapping : fieldMappings) {
+			if (fieldMapping.getAggregate() == null && fieldMapping.getIdentifier().getName().equals(propertyName)) {
+				return index;
+			}
+			index++;
+		}
 
-	public void setLimitParameterName(String limitParameterName) {
-		this.limitParameterName = limitParameterName;
+		return -1;
 	}
 
-	public FieldMapper<PropertyDescriptor> getFieldMapper() {
-		return fieldMapper;
+	/**
+	 * Creates a RestService with the default configuration.
+	 */
+	public RestService() {
+		this(new Builder());
 	}
 
-	public SearchCriteriaGenerator<PropertyDescriptor, Operator, Object> getSearchCriteriaGenerator() {
-		return searchCriteriaGenerator;
+	private RestService(Builder builder) {
+		this.start = builder.start;
+		this.limit = builder.limit;
+		this.fieldsParameterName = builder.fieldsParameterName;
+		this.startParameterName = builder.startParameterName;
+		this.limitParameterName = builder.limitParameterName;
+		this.orderParameterName = builder.orderParameterName;
+		this.afterParameterName = builder.afterParameterName;
+		this.filterParameterName = builder.filterParameterName;
+		this.totalParameterName = builder.totalParameterName;
+		this.groupParameterName = builder.groupParameterName;
+		this.typeGenerator = builder.typeGenerator;
+		this.fetchSize = builder.fetchSize;
+
+		// resolved once, so a request only merges its own overrides
+		this.executionProfile = ExecutionProfile.builder().fetchSize(builder.fetchSize).build()
+				.overriddenBy(builder.executionProfile);
+		Map<Class<?>, ExecutionProfile> executionProfiles = new HashMap<Class<?>, ExecutionProfile>();
+		for (Map.Entry<Class<?>, ExecutionProfile> entry : builder.executionProfiles.entrySet()) {
+			executionProfiles.put(entry.getKey(), this.executionProfile.overriddenBy(entry.getValue()));
+		}
+		this.executionProfiles = Collections.unmodifiableMap(executionProfiles);
+		this.flushRows = builder.flushRows;
+		this.queryPolicy = builder.queryPolicy;
+		this.batchExecutor = builder.batchExecutor;
+		this.metrics = builder.metrics;
+		this.queryPlanCache = builder.queryPlanCacheSize > 0
+				? new BoundedCache<QueryShape, QueryPlan>(builder.queryPlanCacheSize) : null;
+		this.totalCache = builder.totalCacheSize > 0
+				? new ExpiringCache<TotalKey, Generational<Long>>(builder.totalCacheSize) : null;
+		this.resultCache = builder.resultCacheSize > 0
+				? new ExpiringCache<RestRequestKey, Generational<List<Object[]>>>(builder.resultCacheSize) : null;
+		this.resultTimeToLiveNanos = builder.resultTimeToLiveNanos;
+		this.singleFlight = builder.coalescing ? new SingleFlight<RestRequestKey, List<Object[]>>() : null;
+		this.totalTimeToLiveNanos = builder.totalTimeToLiveNanos;
+		this.totalTimesToLiveNanos = Collections
+				.unmodifiableMap(new HashMap<Class<?>, Long>(builder.totalTimesToLiveNanos));
+
+		// configured once here and never written again
+		this.queryParameterMapper = createQueryParameterMapper();
+		this.setParameterIdentifiers(this.queryParameterMapper);
+		this.servletRequestParameterMapper = createServletRequestParameterMapper(this.queryParameterMapper,
+				builder.maximumBodyLength);
+		this.setParameterIdentifiers(this.servletRequestParameterMapper);
 	}
 
-	public ParameterMapper<String, Operator, Object> getQueryParameterMapper() {
-		return queryParameterMapper;
+	private void setParameterIdentifiers(ParameterMapper<String, Operator, Object> parameterMapper) {
+		parameterMapper.setFieldsParameterIdentifier(this.fieldsParameterName);
+		parameterMapper.setStartParameterIdentifier(this.startParameterName);
+		parameterMapper.setLimitParameterIdentifier(this.limitParameterName);
+		parameterMapper.setOrderParameterIdentifier(this.orderParameterName);
+		parameterMapper.setAfterParameterIdentifier(this.afterParameterName);
+		parameterMapper.setFilterParameterIdentifier(this.filterParameterName);
+		parameterMapper.setTotalParameterIdentifier(this.totalParameterName);
+		parameterMapper.setGroupParameterIdentifier(this.groupParameterName);
 	}
 
-	public ParameterMapper<String, Operator, Object> getServletRequestParameterMapper() {
-		return servletRequestParameterMapper;
+	public static Builder builder() {
+		return new Builder();
 	}
 
-	public Integer getStart() {
-		return start;
+	public RestRequest<PropertyDescriptor, Operator, Object> convert(String query, Class<?> clazz)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convertQuery(query, this.queryParameterMapper, clazz);
 	}
 
-	public void setStart(Integer start) {
-		this.start = start;
+	/**
+	 * Converts the query string of servletRequest and, if it is a POST with a
+	 * {@value #FORM_CONTENT_TYPE} or {@value #JSON_CONTENT_TYPE} body, the
+	 * parameters of its body, which follow those of the query string. The body
+	 * must not have been read, e.g. by {@link ServletRequest#getParameter(String)}.
+	 * Unlike in a query string, {@code +} in a form body is a space, so a
+	 * literal {@code +}, e.g. of an ascending order, is sent as {@code %2B}.
+	 *
+	 * @param servletRequest
+	 * @param clazz
+	 * @return the request
+	 * @see JsonParameterParser
+	 * @see Builder#maximumBodyLength(int)
+	 */
+	public RestRequest<PropertyDescriptor, Operator, Object> convert(ServletRequest servletRequest, Class<?> clazz)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convertQuery(servletRequest, this.servletRequestParameterMapper, clazz);
 	}
 
-	public Integer getLimit() {
-		return limit;
-	}
+	/**
+	 * Converts the parameters of source through the {@link QueryPlan} of their
+	 * shape, compiling and caching the plan on first sight of the shape.
+	 */
+	private RestRequest<PropertyDescriptor, Operator, Object> convertQuery(Object source,
+			ParameterMapper<String, Operator, Object> parameterMapper, Class<?> clazz)
+			throws IntrospectionException, ParameterException, ConversionException {
+		RestMetrics metrics = this.metrics;
+		boolean timed = metrics.isEnabled();
+		long started = timed ? System.nanoTime() : 0;
+		Stage stage = Stage.PARSE;
+
+		try {
+			List<ParameterMapping<String, Operator, Object>> parameterMappings = source == null
+					? new ArrayList<ParameterMapping<String, Operator, Object>>()
+					: parameterMapper.generateParameterMappings(source);
+			if (parameterMappings == null) {
+				parameterMappings = new ArrayList<ParameterMapping<String, Operator, Object>>();
+			}
 
-	public void setLimit(Integer limit) {
-		this.limit = limit;
-	}
+			if (timed) {
+				long parsed = System.nanoTime();
+				metrics.recordStage(clazz, Stage.PARSE, parsed - started);
+				started = parsed;
+			}
 
-	public String getOrderParameterName() {
-		return orderParameterName;
-	}
+			stage = Stage.PLAN;
+			RestRequest<PropertyDescriptor, Operator, Object> restRequest;
+
+			if (this.queryPlanCache == null) {
+				restRequest = this.convertParameterMappings(parameterMappings, clazz, parameterMapper, this.typeGenerator,
+						searchCriteriaGenerator, fieldMapper, orderMapper, filterMapper);
+			} else {
+				QueryShape queryShape = QueryShape.of(clazz, parameterMappings, this.fieldsParameterName,
+						this.orderParameterName, this.groupParameterName);
+				QueryPlan queryPlan = this.queryPlanCache.get(queryShape);
+
+				if (timed) {
+					metrics.recordQueryPlanCache(clazz, queryPlan != null);
+				}
+
+				if (queryPlan == null) {
+					queryPlan = QueryPlan.compile(clazz, parameterMappings, parameterMapper,
+							this.typeGenerator, fieldMapper, orderMapper, filterMapper);
+					this.queryPlanCache.put(queryShape, queryPlan);
+					LOGGER.debug("query plan compiled: {}", queryShape);
+				}
 
-	public void setOrderParameterName(String orderParameterName) {
-		this.orderParameterName = orderParameterName;
+				restRequest = queryPlan.bind(parameterMappings, this.typeGenerator, this.start, this.limit);
+			}
+
+			if (timed) {
+				metrics.recordStage(clazz, Stage.PLAN, System.nanoTime() - started);
+			}
+
+			return restRequest;
+		} catch (Exception e) {
+			if (timed) {
+				metrics.recordFailure(clazz, stage, e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Converts every item of batchItems in parallel on the batch executor. The
+	 * classes of the batch are introspected once up front and shared by all of
+	 * its items.
+	 *
+	 * @param batchItems
+	 * @return one result per item, in the order of batchItems
+	 * @see Builder#batchExecutor(Executor)
+	 */
+	public List<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>> convertBatch(
+			Collection<BatchItem> batchItems) {
+		Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+		for (BatchItem batchItem : batchItems) {
+			classes.add(batchItem.getClazz());
+		}
+
+		for (Class<?> clazz : classes) {
+			try {
+				ClassMetadataRegistry.getClassMetadata(clazz);
+			} catch (IntrospectionException e) {
+				// reported by each item of clazz
+				LOGGER.debug("unable to introspect: {}", clazz, e);
+			}
+		}
+
+		List<CompletableFuture<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>>> futures = new ArrayList<CompletableFuture<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>>>(
+				batchItems.size());
+		for (final BatchItem batchItem : batchItems) {
+			Supplier<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>> task = new Supplier<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>>() {
+
+				@Override
+				public BatchResult<RestRequest<PropertyDescriptor, Operator, Object>> get() {
+					return convertBatchItem(batchItem);
+				}
+			};
+
+			if (this.batchExecutor == null) {
+				futures.add(CompletableFuture.completedFuture(task.get()));
+				continue;
+			}
+
+			try {
+				futures.add(CompletableFuture.supplyAsync(task, this.batchExecutor));
+			} catch (RejectedExecutionException e) {
+				// a saturated executor slows the batch down rather than failing it
+				futures.add(CompletableFuture.completedFuture(task.get()));
+			}
+		}
+
+		List<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>> batchResults = new ArrayList<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>>(
+				futures.size());
+		for (CompletableFuture<BatchResult<RestRequest<PropertyDescriptor, Operator, Object>>> future : futures) {
+			batchResults.add(future.join());
+		}
+
+		return batchResults;
+	}
+
+	private BatchResult<RestRequest<PropertyDescriptor, Operator, Object>> convertBatchItem(BatchItem batchItem) {
+		try {
+			return BatchResult.success(this.convert(batchItem.getQuery(), batchItem.getClazz()));
+		} catch (IntrospectionException e) {
+			return BatchResult.failure(e);
+		} catch (ParameterException e) {
+			return BatchResult.failure(e);
+		} catch (ConversionException e) {
+			return BatchResult.failure(e);
+		} catch (RuntimeException e) {
+			LOGGER.debug("batch item failed: {}", batchItem, e);
+			return BatchResult.failure(e);
+		}
+	}
+
+	public <ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<PropertyDescriptor, Operator, Object> convert(
+			Object object, Class<?> clazz,
+			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convert(object, clazz, parameterMapper, this.typeGenerator, searchCriteriaGenerator, fieldMapper,
+				orderMapper, filterMapper);
+	}
+
+	public <SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue, ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> convert(
+			Object object, Class<?> clazz,
+			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper,
+			TypeGenerator typeGenerator,
+			SearchCriteriaGenerator<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> searchCriteriaGenerator,
+			FieldMapper<SearchCriteriaId> fieldMapper, OrderMapper<SearchCriteriaId> orderMapper)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convert(object, clazz, parameterMapper, typeGenerator, searchCriteriaGenerator, fieldMapper,
+				orderMapper, null);
+	}
+
+	/**
+	 * @param filterMapper
+	 *            the mapper of the filter parameter, or null to treat it like
+	 *            any other parameter
+	 */
+	public <SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue, ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> convert(
+			Object object, Class<?> clazz,
+			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper,
+			TypeGenerator typeGenerator,
+			SearchCriteriaGenerator<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> searchCriteriaGenerator,
+			FieldMapper<SearchCriteriaId> fieldMapper, OrderMapper<SearchCriteriaId> orderMapper,
+			FilterMapper<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> filterMapper)
+			throws IntrospectionException, ParameterException, ConversionException {
+
+		if (parameterMapper == null || typeGenerator == null || searchCriteriaGenerator == null
+				|| fieldMapper == null) {
+			return null;
+		}
+
+		return this.convertParameterMappings(parameterMapper.generateParameterMappings(object), clazz, parameterMapper, typeGenerator,
+				searchCriteriaGenerator, fieldMapper, orderMapper, filterMapper);
+	}
+
+	/**
+	 * Converts the parameter mappings parsed by parameterMapper.
+	 */
+	private <SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue, ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> convertParameterMappings(
+			List<ParameterMapping<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue>> parsedParameterMappings,
+			Class<?> clazz,
+			ParameterMapper<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMapper,
+			TypeGenerator typeGenerator,
+			SearchCriteriaGenerator<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> searchCriteriaGenerator,
+			FieldMapper<SearchCriteriaId> fieldMapper, OrderMapper<SearchCriteriaId> orderMapper,
+			FilterMapper<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> filterMapper)
+			throws IntrospectionException, ParameterException, ConversionException {
+		RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> restRequest = new RestRequest<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue>();
+
+		restRequest.setRootClass(clazz);
+
+		// indexed once and shared by every generator below
+		IndexedParameterMappings<ParameterMapperIdentifier, ParameterMapperOperator, ParameterMapperValue> parameterMappings = IndexedParameterMappings
+				.of(parsedParameterMappings);
+		LOGGER.debug("fieldsParameterIdentifier: {}", parameterMapper.getFieldsParameterIdentifier());
+		List<SearchCriterion<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue>> searchCriteria = searchCriteriaGenerator
+				.generateSearchCriteria(clazz, parameterMappings, typeGenerator);
+
+		if (filterMapper != null) {
+			SearchCriterion<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue> filter = filterMapper
+					.generateFilter(clazz, parameterMappings, typeGenerator,
+							parameterMapper.getFilterParameterIdentifier());
+
+			if (filter != null) {
+				searchCriteria = new LinkedList<SearchCriterion<SearchCriteriaId, SearchCriteriaOperator, SearchCriteriaValue>>(
+						searchCriteria);
+				searchCriteria.add(filter);
+			}
+		}
+		restRequest.setSearchCriteria(searchCriteria);
+
+		restRequest.setFieldMappings(fieldMapper.generateFieldMappings(clazz, parameterMappings, typeGenerator,
+				parameterMapper.getFieldsParameterIdentifier()));
+
+		restRequest.setOrderMappings(orderMapper.generateOrderMappings(clazz, parameterMappings, typeGenerator,
+				parameterMapper.getOrderParameterIdentifier()));
+
+		// group by the plain fields only, the same field mapper parses them
+		if (parameterMappings.find(parameterMapper.getGroupParameterIdentifier()) != null) {
+			for (FieldMapping<SearchCriteriaId> groupMapping : fieldMapper.generateFieldMappings(clazz,
+					parameterMappings, typeGenerator, parameterMapper.getGroupParameterIdentifier())) {
+				if (groupMapping.getAggregate() == null) {
+					restRequest.getGroupMappings().add(groupMapping);
+				}
+			}
+		}
+
+		restRequest.setStart(this.start);
+		restRequest.setLimit(this.limit);
+
+		LOGGER.debug("startParameterIdentifier: {}", parameterMapper.getStartParameterIdentifier());
+		LOGGER.debug("limitParameterIdentifier: {}", parameterMapper.getLimitParameterIdentifier());
+
+		ParameterMapperValue startValue = parameterMappings.findValue(parameterMapper.getStartParameterIdentifier());
+		if (startValue != null) {
+			restRequest.setStart(typeGenerator.generateType(int.class, startValue));
+		}
+
+		ParameterMapperValue limitValue = parameterMappings.findValue(parameterMapper.getLimitParameterIdentifier());
+		if (limitValue != null) {
+			restRequest.setLimit(typeGenerator.generateType(int.class, limitValue));
+		}
+
+		ParameterMapperValue afterValue = parameterMappings.findValue(parameterMapper.getAfterParameterIdentifier());
+		if (afterValue != null) {
+			restRequest.setAfter(Cursor.decode(typeGenerator.generateType(String.class, afterValue)));
+		}
+
+		ParameterMapperValue totalValue = parameterMappings.findValue(parameterMapper.getTotalParameterIdentifier());
+		if (totalValue != null) {
+			restRequest.setTotal(Total.of(typeGenerator.generateType(String.class, totalValue)));
+		}
+
+		return restRequest;
+	}
+
+	/**
+	 * Converts query into a list of new instances of clazz. The rows are taken
+	 * from the result cache or from an equal request in flight if enabled.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @return the instances
+	 * @see Builder#resultCacheSize(int)
+	 * @see Builder#coalescing(boolean)
+	 */
+	public <T> List<T> convert(String query, Class<T> clazz, Session session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convert(this.convert(query, clazz), clazz, session);
+	}
+
+	/**
+	 * Executes restRequest, e.g. after adjusting it, into a list of new
+	 * instances of clazz.
+	 *
+	 * @param restRequest
+	 * @param clazz
+	 * @param session
+	 * @return the instances
+	 * @see #convert(String, Class, Session)
+	 */
+	public <T> List<T> convert(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<T> clazz,
+			Session session) throws IntrospectionException, ParameterException, ConversionException {
+		return this.convertInstances(restRequest, clazz, session);
+	}
+
+	/**
+	 * Converts query into a list of new instances of clazz on a stateless
+	 * session. Nothing is kept in a persistence context, so pure reads are
+	 * neither snapshotted nor flushed, whatever the execution profile.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param statelessSession
+	 * @return the instances
+	 * @see #convert(String, Class, Session)
+	 */
+	public <T> List<T> convert(String query, Class<T> clazz, StatelessSession statelessSession)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.convertInstances(this.convert(query, clazz), clazz, statelessSession);
+	}
+
+	/**
+	 * @param restRequest
+	 * @param clazz
+	 * @param statelessSession
+	 * @return the instances
+	 * @see #convert(String, Class, StatelessSession)
+	 */
+	public <T> List<T> convert(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<T> clazz,
+			StatelessSession statelessSession) throws IntrospectionException, ParameterException, ConversionException {
+		return this.convertInstances(restRequest, clazz, statelessSession);
+	}
+
+	private <T> List<T> convertInstances(RestRequest<PropertyDescriptor, Operator, Object> restRequest,
+			Class<T> clazz, SharedSessionContract session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		final List<T> list = new ArrayList<T>();
+
+		if (!this.isShareable(session)) {
+			this.scroll(restRequest, clazz, null, session, new RowHandler<T>() {
+
+				@Override
+				public void handleRow(T row) {
+					list.add(row);
+				}
+			});
+
+			return list;
+		}
+
+		if (isAggregated(restRequest)) {
+			throw new ParameterException("Aggregates are only returned as projection rows: " + clazz);
+		}
+
+		// the rows are shared, the instances are not
+		RowHydrator<T> rowHydrator = HydratorFactory.getRowHydrator(clazz, restRequest.getFieldMappings());
+		for (Object[] row : this.fetchRows(restRequest, clazz, session)) {
+			list.add(rowHydrator.hydrate(row));
+		}
+
+		return list;
+	}
+
+	/**
+	 * @return whether the result cache or coalescing is enabled and the rows
+	 *         session reads are those of any other session: it has no
+	 *         transaction of its own, whose changes it could see before they
+	 *         commit or roll back, no pending changes and no enabled filters
+	 */
+	private boolean isShareable(SharedSessionContract session) {
+		if (this.resultCache == null && this.singleFlight == null) {
+			return false;
+		}
+
+		if (session.getTransaction().getStatus().canRollback()) {
+			return false;
+		}
+
+		if (session instanceof SessionImplementor
+				&& ((SessionImplementor) session).getLoadQueryInfluencers().hasEnabledFilters()) {
+			return false;
+		}
+
+		return !(session instanceof Session) || !((Session) session).isDirty();
+	}
+
+	/**
+	 * @return the projected rows of restRequest from the result cache, from a
+	 *         concurrent execution of an equal request or from the database
+	 */
+	private List<Object[]> fetchRows(final RestRequest<PropertyDescriptor, Operator, Object> restRequest,
+			final Class<?> clazz, final SharedSessionContract session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		// a clamped limit is part of the key
+		if (this.queryPolicy != null) {
+			this.queryPolicy.apply(restRequest);
+		}
+
+		final RestRequestKey restRequestKey = RestRequestKey.of(restRequest);
+
+		if (this.resultCache != null) {
+			Generational<List<Object[]>> cachedRows = this.resultCache.get(restRequestKey);
+			boolean hit = cachedRows != null && cachedRows.generation == this.getGeneration(clazz);
+
+			if (this.metrics.isEnabled()) {
+				this.metrics.recordResultCache(clazz, hit);
+			}
+
+			if (hit) {
+				return cachedRows.value;
+			}
+		}
+
+		final boolean[] executed = new boolean[1];
+		Callable<List<Object[]>> execution = new Callable<List<Object[]>>() {
+
+			@Override
+			public List<Object[]> call() throws Exception {
+				executed[0] = true;
+
+				// taken first, so a change during the execution makes the rows stale
+				long generation = getGeneration(clazz);
+				final List<Object[]> rows = new ArrayList<Object[]>();
+
+				scroll(restRequest, clazz, ROW_HYDRATOR, session, new RowHandler<Object[]>() {
+
+					@Override
+					public void handleRow(Object[] row) {
+						rows.add(row);
+					}
+				});
+
+				List<Object[]> sharedRows = Collections.unmodifiableList(rows);
+				if (resultCache != null) {
+					resultCache.put(restRequestKey, new Generational<List<Object[]>>(sharedRows, generation),
+							resultTimeToLiveNanos);
+				}
+
+				return sharedRows;
+			}
+		};
+
+		try {
+			if (this.singleFlight == null) {
+				return execution.call();
+			}
+
+			// waiting for an equal request takes no longer than executing this one may
+			Integer timeout = restRequest.getTimeout() != null ? restRequest.getTimeout()
+					: this.getExecutionProfile(clazz).overriddenBy(restRequest.getExecutionProfile()).getTimeout();
+			List<Object[]> rows = this.singleFlight.execute(restRequestKey, execution,
+					timeout == null ? 0 : timeout, TimeUnit.SECONDS);
+			if (!executed[0] && this.metrics.isEnabled()) {
+				this.metrics.recordCoalesced(clazz);
+			}
+
+			return rows;
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("Equal query in flight timed out for: " + clazz,
+					new SQLTimeoutException(e.getMessage(), e), null);
+		} catch (IntrospectionException e) {
+			throw e;
+		} catch (ParameterException e) {
+			throw e;
+		} catch (ConversionException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new UndeclaredThrowableException(e);
+		}
+	}
+
+	private static final RowHydrator<Object[]> ROW_HYDRATOR = new RowHydrator<Object[]>() {
+
+		@Override
+		public Object[] hydrate(Object[] row) {
+			return row;
+		}
+	};
+
+	/**
+	 * Drops the cached results and approximate totals of rootClass and of its
+	 * superclasses, whose queries include rootClass. Call this after changing
+	 * rows of rootClass, unless a {@link CacheInvalidationListener} does.
+	 *
+	 * @param rootClass
+	 */
+	public void invalidate(Class<?> rootClass) {
+		for (Class<?> clazz = rootClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			AtomicLong generation = this.generations.get(clazz);
+
+			if (generation == null) {
+				AtomicLong newGeneration = new AtomicLong();
+				generation = this.generations.putIfAbsent(clazz, newGeneration);
+				if (generation == null) {
+					generation = newGeneration;
+				}
+			}
+
+			generation.incrementAndGet();
+		}
+	}
+
+	private long getGeneration(Class<?> rootClass) {
+		AtomicLong generation = this.generations.get(rootClass);
+		return generation == null ? 0 : generation.get();
+	}
+
+	/**
+	 * Streams the result of query to rowHandler instead of collecting it. Rows
+	 * are read through a forward-only cursor, hydrated and handed over one at a
+	 * time, so memory use does not depend on the size of the result.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @param rowHandler
+	 * @return the number of rows handled
+	 * @see Builder#fetchSize(Integer)
+	 */
+	public <T> int convert(String query, Class<T> clazz, Session session, RowHandler<? super T> rowHandler)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.scroll(this.convert(query, clazz), clazz, null, session, rowHandler).rowCount;
+	}
+
+	/**
+	 * Streams the result of query to rowHandler on a stateless session.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param statelessSession
+	 * @param rowHandler
+	 * @return the number of rows handled
+	 * @see #convert(String, Class, Session, RowHandler)
+	 * @see #convert(String, Class, StatelessSession)
+	 */
+	public <T> int convert(String query, Class<T> clazz, StatelessSession statelessSession,
+			RowHandler<? super T> rowHandler) throws IntrospectionException, ParameterException, ConversionException {
+		return this.scroll(this.convert(query, clazz), clazz, null, statelessSession, rowHandler).rowCount;
+	}
+
+	/**
+	 * Converts query into one page of results. If query carries the after
+	 * parameter, the response holds the cursor of the following page, and if it
+	 * carries the total parameter, the number of rows over all pages.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @return the page
+	 * @see <a href="#after">After</a>
+	 * @see <a href="#total">Total</a>
+	 */
+	public <T> RestResponse<T> convertPage(String query, Class<T> clazz, Session session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		final RestResponse<T> restResponse = new RestResponse<T>();
+
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
+		ScrollResult scrollResult = this.scroll(restRequest, clazz, null, session, new RowHandler<T>() {
+
+			@Override
+			public void handleRow(T row) {
+				restResponse.getResults().add(row);
+			}
+		});
+
+		restResponse.setNext(scrollResult.next);
+
+		if (restRequest.getTotal() != null) {
+			Long total = this.knownTotal(restRequest, scrollResult.rowCount);
+
+			if (total == null && restRequest.getTotal() == Total.APPROXIMATE && this.totalCache != null) {
+				TotalKey totalKey = new TotalKey(restRequest);
+				long generation = this.getGeneration(clazz);
+				Generational<Long> cachedTotal = this.totalCache.get(totalKey);
+
+				if (cachedTotal == null || cachedTotal.generation != generation) {
+					total = this.count(restRequest, session);
+					this.totalCache.put(totalKey, new Generational<Long>(total, generation),
+							this.getTotalTimeToLiveNanos(clazz));
+				} else {
+					total = cachedTotal.value;
+					restResponse.setTotalApproximate(true);
+				}
+			}
+
+			restResponse.setTotal(total == null ? this.count(restRequest, session) : total);
+		}
+
+		return restResponse;
+	}
+
+	/**
+	 * Converts query into rows holding only the projected columns, without
+	 * instantiating clazz. Aggregating queries are converted this way. Like
+	 * {@link #convert(String, Class, Session)}, the rows are taken from the
+	 * result cache or from an equal request in flight if enabled.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @return the rows
+	 * @see <a href="#group">Group</a>
+	 */
+	public List<ProjectionRow> convertRows(String query, Class<?> clazz, Session session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
+		RowHydrator<ProjectionRow> rowHydrator = createProjectionRowHydrator(restRequest);
+		final List<ProjectionRow> rows = new ArrayList<ProjectionRow>();
+
+		if (!this.isShareable(session)) {
+			this.scroll(restRequest, clazz, rowHydrator, session, new RowHandler<ProjectionRow>() {
+
+				@Override
+				public void handleRow(ProjectionRow row) {
+					rows.add(row);
+				}
+			});
+
+			return rows;
+		}
+
+		// projection rows are read only, so they may wrap the shared rows
+		for (Object[] row : this.fetchRows(restRequest, clazz, session)) {
+			rows.add(rowHydrator.hydrate(row));
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Streams the result of query to rowHandler as projection rows, without
+	 * instantiating clazz. A row holds only the projected columns, so memory
+	 * use depends on the width of the projection rather than of clazz.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @param rowHandler
+	 * @return the number of rows handled
+	 * @see #convertRows(String, Class, Session)
+	 */
+	public int convertRows(String query, Class<?> clazz, Session session, RowHandler<? super ProjectionRow> rowHandler)
+			throws IntrospectionException, ParameterException, ConversionException {
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
+		return this.scroll(restRequest, clazz, createProjectionRowHydrator(restRequest), session, rowHandler).rowCount;
+	}
+
+	/**
+	 * Writes the result of restRequest to writer as a JSON array holding one
+	 * object per row, keyed by the column names in projection order. Rows are
+	 * read through a forward-only cursor and written as they are read, without
+	 * instantiating clazz, so memory use depends on neither the limit nor the
+	 * size of the result. The writer is flushed every
+	 * {@link Builder#flushRows(int)} rows but not closed.
+	 *
+	 * @param restRequest
+	 * @param clazz
+	 * @param session
+	 * @param writer
+	 * @return the number of rows written
+	 * @throws IOException
+	 *             if writer fails, leaving the array unfinished
+	 * @see JsonRowWriter
+	 */
+	public int write(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<?> clazz, Session session,
+			Writer writer) throws IntrospectionException, ParameterException, ConversionException, IOException {
+		JsonRowWriter jsonRowWriter = new JsonRowWriter(writer, getColumnNames(restRequest), this.flushRows);
+		jsonRowWriter.begin();
+
+		try {
+			this.scroll(restRequest, clazz, ROW_HYDRATOR, session, jsonRowWriter);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		jsonRowWriter.end();
+		return jsonRowWriter.getRows();
+	}
+
+	/**
+	 * Writes the result of query to outputStream as UTF-8 encoded JSON.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @param outputStream
+	 * @return the number of rows written
+	 * @throws IOException
+	 * @see #write(RestRequest, Class, Session, Writer)
+	 */
+	public int write(String query, Class<?> clazz, Session session, OutputStream outputStream)
+			throws IntrospectionException, ParameterException, ConversionException, IOException {
+		return this.write(this.convert(query, clazz), clazz, session,
+				new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes the result of servletRequest to the body of servletResponse as
+	 * JSON. Nothing may have been written to servletResponse before.
+	 *
+	 * @param servletRequest
+	 * @param clazz
+	 * @param session
+	 * @param servletResponse
+	 * @return the number of rows written
+	 * @throws IOException
+	 * @see #write(RestRequest, Class, Session, Writer)
+	 */
+	public int write(ServletRequest servletRequest, Class<?> clazz, Session session, ServletResponse servletResponse)
+			throws IntrospectionException, ParameterException, ConversionException, IOException {
+		return this.write(this.convert(servletRequest, clazz), clazz, session, servletResponse);
+	}
+
+	/**
+	 * Writes the result of restRequest to the body of servletResponse as JSON.
+	 * Nothing may have been written to servletResponse before.
+	 *
+	 * @param restRequest
+	 * @param clazz
+	 * @param session
+	 * @param servletResponse
+	 * @return the number of rows written
+	 * @throws IOException
+	 * @see #write(RestRequest, Class, Session, Writer)
+	 */
+	public int write(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<?> clazz, Session session,
+			ServletResponse servletResponse)
+			throws IntrospectionException, ParameterException, ConversionException, IOException {
+		servletResponse.setContentType(JSON_CONTENT_TYPE);
+		servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		return this.write(restRequest, clazz, session, servletResponse.getWriter());
+	}
+
+	/**
+	 * @return the names of the columns of restRequest, in projection order
+	 */
+	private static List<String> getColumnNames(RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		List<FieldMapping<PropertyDescriptor>> columns = getColumns(restRequest);
+		List<String> columnNames = new ArrayList<String>(columns.size());
+		for (FieldMapping<PropertyDescriptor> column : columns) {
+			columnNames.add(getColumnName(column));
+		}
+
+		return Collections.unmodifiableList(columnNames);
+	}
+
+	private static RowHydrator<ProjectionRow> createProjectionRowHydrator(
+			RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+		final List<String> header = getColumnNames(restRequest);
+		return new RowHydrator<ProjectionRow>() {
+
+			@Override
+			public ProjectionRow hydrate(Object[] row) {
+				// hidden sort keys follow the columns
+				return new ProjectionRow(header, row.length == header.size() ? row : Arrays.copyOf(row, header.size()));
+			}
+		};
+	}
+
+	/**
+	 * Counts every row matching query, ignoring start, limit and after.
+	 *
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @return the number of rows
+	 */
+	public long count(String query, Class<?> clazz, Session session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
+
+		if (this.queryPolicy != null) {
+			this.queryPolicy.applyToCriteria(restRequest);
+		}
+
+		return this.count(restRequest, session);
+	}
+
+	private long count(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Session session) {
+		Class<?> clazz = restRequest.getRootClass();
+		RestMetrics metrics = this.metrics;
+		boolean timed = metrics.isEnabled();
+		long started = timed ? System.nanoTime() : 0;
+
+		try {
+			Criteria criteria = generateCountCriteria(session, restRequest);
+
+			if (criteria == null) {
+				return 0;
+			}
+
+			this.applyExecutionProfile(criteria, restRequest, false);
+			Number count = (Number) criteria.uniqueResult();
+
+			if (timed) {
+				metrics.recordStage(clazz, Stage.COUNT, System.nanoTime() - started);
+			}
+
+			return count == null ? 0 : count.longValue();
+		} catch (RuntimeException e) {
+			if (timed) {
+				metrics.recordFailure(clazz, Stage.COUNT, e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the total told by a page of rowCount rows if it is the last page,
+	 *         otherwise null
+	 */
+	private Long knownTotal(RestRequest<PropertyDescriptor, Operator, Object> restRequest, int rowCount) {
+		if (rowCount >= restRequest.getLimit()) {
+			return null;
+		}
+
+		Cursor after = restRequest.getAfter();
+		if (after != null) {
+			return after.isEmpty() ? Long.valueOf(rowCount) : null;
+		}
+
+		// an empty page past the end does not tell where the end is
+		if (rowCount == 0 && restRequest.getStart() > 0) {
+			return null;
+		}
+
+		return Long.valueOf(restRequest.getStart() + (long) rowCount);
+	}
+
+	/**
+	 * Applies the execution profile of the root class of restRequest,
+	 * overridden by that of restRequest and by its timeout, to criteria.
+	 */
+	private void applyExecutionProfile(Criteria criteria, RestRequest<PropertyDescriptor, Operator, Object> restRequest,
+			boolean stateless) {
+		ExecutionProfile executionProfile = this.getExecutionProfile(restRequest.getRootClass())
+				.overriddenBy(restRequest.getExecutionProfile());
+
+		if (stateless) {
+			executionProfile.applyStateless(criteria);
+		} else {
+			executionProfile.apply(criteria);
+		}
+
+		if (restRequest.getTimeout() != null) {
+			criteria.setTimeout(restRequest.getTimeout());
+		}
+	}
+
+	/**
+	 * @param clazz
+	 * @return the execution profile of clazz or of its nearest superclass with
+	 *         one, including the settings of the default profile it does not
+	 *         override, otherwise the default
+	 * @see Builder#executionProfile(Class, ExecutionProfile)
+	 */
+	public ExecutionProfile getExecutionProfile(Class<?> clazz) {
+		for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+			ExecutionProfile executionProfile = this.executionProfiles.get(type);
+			if (executionProfile != null) {
+				return executionProfile;
+			}
+		}
+
+		return this.executionProfile;
+	}
+
+	/**
+	 * @param clazz
+	 * @return the time to live of the totals of clazz or of its nearest
+	 *         superclass with one, otherwise the default
+	 * @see Builder#totalTimeToLive(Class, long, TimeUnit)
+	 */
+	private long getTotalTimeToLiveNanos(Class<?> clazz) {
+		for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+			Long timeToLiveNanos = this.totalTimesToLiveNanos.get(type);
+			if (timeToLiveNanos != null) {
+				return timeToLiveNanos;
+			}
+		}
+
+		return this.totalTimeToLiveNanos;
+	}
+
+	/**
+	 * Looks up every instance of clazz whose identifier is one of ids in a
+	 * single round trip, however many ids there are. Start and limit are
+	 * ignored; the remaining parameters of query apply as usual. The query
+	 * policy applies to query but neither limits the number of ids nor counts
+	 * them as search criteria, so no instance asked for is left out.
+	 *
+	 * @param ids
+	 *            the identifiers, converted to the type of the identifier
+	 *            property if necessary
+	 * @param query
+	 * @param clazz
+	 * @param session
+	 * @return the instances found, in no particular order unless query orders
+	 *         them
+	 * @throws ParameterException
+	 *             if clazz has no identifier property
+	 */
+	public <T> List<T> convertByIds(Collection<?> ids, String query, Class<T> clazz, Session session)
+			throws IntrospectionException, ParameterException, ConversionException {
+		final List<T> list = new ArrayList<T>(ids.size());
+
+		if (ids.isEmpty()) {
+			return list;
+		}
+
+		PropertyMetadata identifierProperty = ClassMetadataRegistry.getClassMetadata(clazz).getIdentifierProperty();
+
+		if (identifierProperty == null) {
+			throw new ParameterException("No identifier to look up by in: " + clazz);
+		}
+
+		List<Object> values = new ArrayList<Object>(ids.size());
+		for (Object id : ids) {
+			values.add(this.typeGenerator.generateType(identifierProperty.getType(), id));
+		}
+
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = this.convert(query, clazz);
+		if (this.queryPolicy != null) {
+			this.queryPolicy.applyToLookup(restRequest);
+		}
+
+		restRequest.getSearchCriteria().add(new SearchCriterion<PropertyDescriptor, Operator, Object>(
+				identifierProperty.getPropertyDescriptor(), Operator.IN, values));
+		restRequest.setStart(0);
+		restRequest.setLimit(values.size());
+
+		this.scroll(restRequest, clazz, null, session, new RowHandler<T>() {
+
+			@Override
+			public void handleRow(T row) {
+				list.add(row);
+			}
+		}, false);
+
+		return list;
+	}
+
+	/**
+	 * @param rowHydrator
+	 *            the hydrator of the rows, or null to hydrate instances of
+	 *            clazz
+	 */
+	private <T> ScrollResult scroll(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<?> clazz,
+			RowHydrator<T> rowHydrator, SharedSessionContract session, RowHandler<? super T> rowHandler)
+			throws IntrospectionException, ParameterException, ConversionException {
+		return this.scroll(restRequest, clazz, rowHydrator, session, rowHandler, true);
+	}
+
+	/**
+	 * @param checked
+	 *            whether the query policy is applied, false if the caller
+	 *            already did
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> ScrollResult scroll(RestRequest<PropertyDescriptor, Operator, Object> restRequest, Class<?> clazz,
+			RowHydrator<T> rowHydrator, SharedSessionContract session, RowHandler<? super T> rowHandler,
+			boolean checked) throws IntrospectionException, ParameterException, ConversionException {
+		ScrollResult scrollResult = new ScrollResult();
+		RestMetrics metrics = this.metrics;
+		boolean timed = metrics.isEnabled();
+		long mark = timed ? System.nanoTime() : 0;
+		Stage stage = Stage.CRITERIA;
+
+		try {
+			boolean aggregated = isAggregated(restRequest);
+
+			if (aggregated && rowHydrator == null) {
+				throw new ParameterException("Aggregates are only returned as projection rows: " + clazz);
+			}
+
+			if (aggregated && restRequest.getAfter() != null) {
+				throw new ParameterException("Aggregates cannot be paged by cursor: " + clazz);
+			}
+
+			if (this.queryPolicy != null && checked) {
+				this.queryPolicy.apply(restRequest);
+			}
+
+			this.prepareKeyset(restRequest);
+			boolean stateless = session instanceof StatelessSession;
+			Criteria criteria = stateless
+					? generateCriteria(session.createCriteria(restRequest.getRootClass()), restRequest)
+					: criteriaGenerator.generateCriteria((Session) session, restRequest);
+
+			if (criteria == null) {
+				return scrollResult;
+			}
+
+			this.applyExecutionProfile(criteria, restRequest, stateless);
+
+			if (rowHydrator == null) {
+				rowHydrator = HydratorFactory.getRowHydrator((Class<T>) clazz, restRequest.getFieldMappings());
+			}
+			long executionNanos = 0;
+			long hydrationNanos = 0;
+
+			if (timed) {
+				long now = System.nanoTime();
+				metrics.recordStage(clazz, Stage.CRITERIA, now - mark);
+				mark = now;
+			}
+
+			// the time spent in rowHandler belongs to the caller
+			Object[] row = null;
+			stage = Stage.EXECUTION;
+			ScrollableResults results = criteria.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (results.next()) {
+					row = results.get();
+
+					if (timed) {
+						long now = System.nanoTime();
+						executionNanos += now - mark;
+						mark = now;
+					}
+
+					stage = Stage.HYDRATION;
+					T object = rowHydrator.hydrate(row);
+
+					if (timed) {
+						hydrationNanos += System.nanoTime() - mark;
+					}
+
+					stage = Stage.EXECUTION;
+					rowHandler.handleRow(object);
+					scrollResult.rowCount++;
+
+					if (timed) {
+						mark = System.nanoTime();
+					}
+				}
+			} finally {
+				results.close();
+			}
+
+			if (timed) {
+				executionNanos += System.nanoTime() - mark;
+				metrics.recordStage(clazz, Stage.EXECUTION, executionNanos);
+				metrics.recordStage(clazz, Stage.HYDRATION, hydrationNanos);
+				metrics.recordRows(clazz, scrollResult.rowCount, restRequest.getFieldMappings().size());
+			}
+
+			// a short page is the last one
+			if (restRequest.getAfter() != null && row != null && scrollResult.rowCount == restRequest.getLimit()) {
+				scrollResult.next = generateNextCursor(restRequest, row);
+			}
+		} catch (Exception e) {
+			if (timed) {
+				metrics.recordFailure(clazz, stage, e);
+			}
+			throw e;
+		}
+
+		LOGGER.debug("rows handled: {}", scrollResult.rowCount);
+		return scrollResult;
+	}
+
+	/**
+	 * Completes the order of a keyset request with the identifier as tie-break
+	 * and converts the cursor values to the types of their sort keys.
+	 */
+	private void prepareKeyset(RestRequest<PropertyDescriptor, Operator, Object> restRequest)
+			throws IntrospectionException, ParameterException, ConversionException {
+		Cursor after = restRequest.getAfter();
+
+		if (after == null) {
+			return;
+		}
+
+		PropertyMetadata identifierProperty = ClassMetadataRegistry.getClassMetadata(restRequest.getRootClass())
+				.getIdentifierProperty();
+
+		if (identifierProperty == null) {
+			throw new ParameterException("No identifier to page by in: " + restRequest.getRootClass());
+		}
+
+		// keys after the identifier cannot change the order
+		List<OrderMapping<PropertyDescriptor>> keys = new ArrayList<OrderMapping<PropertyDescriptor>>();
+		boolean identified = false;
+		for (OrderMapping<PropertyDescriptor> orderMapping : restRequest.getOrderMappings()) {
+			if (orderMapping.getSort() == null) {
+				continue;
+			}
+
+			keys.add(orderMapping);
+			if (orderMapping.getIdentifier().getName().equals(identifierProperty.getName())) {
+				identified = true;
+				break;
+			}
+		}
+
+		if (!identified) {
+			keys.add(new OrderMapping<PropertyDescriptor>(identifierProperty.getPropertyDescriptor(), Sort.ASCENDING));
+		}
+
+		restRequest.setOrderMappings(keys);
+
+		if (after.isEmpty()) {
+			return;
+		}
+
+		if (after.getValues().size() != keys.size()) {
+			throw new ParameterException("Cursor does not match the order: " + after);
+		}
+
+		List<Object> values = new ArrayList<Object>(keys.size());
+		for (int index = 0; index < keys.size(); index++) {
+			Class<?> type = keys.get(index).getIdentifier().getPropertyType();
+			Object value = after.getValues().get(index);
+
+			// the default type generator reads no dates, so the cursor writes its own
+			values.add(value != null && Date.class.isAssignableFrom(type) ? Cursor.parseDate(type, value.toString())
+					: this.typeGenerator.generateType(type, value));
+		}
+
+		restRequest.setAfter(new Cursor(values));
+	}
+
+	private static Cursor generateNextCursor(RestRequest<PropertyDescriptor, Operator, Object> restRequest,
+			Object[] row) {
+		List<FieldMapping<PropertyDescriptor>> fieldMappings = restRequest.getFieldMappings();
+		List<Object> values = new ArrayList<Object>();
+		int hiddenIndex = fieldMappings.size();
+
+		// sort keys outside the fields follow them, see criteriaGenerator
+		for (OrderMapping<PropertyDescriptor> orderMapping : restRequest.getOrderMappings()) {
+			int index = indexOfField(fieldMappings, orderMapping.getIdentifier().getName());
+			values.add(row[index < 0 ? hiddenIndex++ : index]);
+		}
+
+		return new Cursor(values);
+	}
+
+	private static final class ScrollResult {
+		private int rowCount;
+		private Cursor next;
+	}
+
+	/**
+	 * A cached value together with the generation of its class when it was
+	 * read from the database.
+	 */
+	private static final class Generational<V> {
+		private final V value;
+		private final long generation;
+
+		private Generational(V value, long generation) {
+			this.value = value;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * Requests with equal search criteria on one class have the same total.
+	 */
+	private static final class TotalKey {
+		private final Class<?> rootClass;
+		private final List<SearchCriterion<PropertyDescriptor, Operator, Object>> searchCriteria;
+		private final int hashCode;
+
+		private TotalKey(RestRequest<PropertyDescriptor, Operator, Object> restRequest) {
+			this.rootClass = restRequest.getRootClass();
+			this.searchCriteria = new ArrayList<SearchCriterion<PropertyDescriptor, Operator, Object>>(
+					restRequest.getSearchCriteria());
+			this.hashCode = 31 * rootClass.hashCode() + searchCriteria.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof TotalKey)) {
+				return false;
+			}
+
+			TotalKey other = (TotalKey) obj;
+			return hashCode == other.hashCode && rootClass == other.rootClass
+					&& searchCriteria.equals(other.searchCriteria);
+		}
+	}
+
+	public TypeGenerator getTypeGenerator() {
+		return typeGenerator;
+	}
+
+	/**
+	 * @return the type generator used when none is configured
+	 */
+	public static TypeGenerator getDefaultTypeGenerator() {
+		return defaultTypeGenerator;
+	}
+
+	public String getFieldsParameterName() {
+		return fieldsParameterName;
+	}
+
+	public String getStartParameterName() {
+		return startParameterName;
+	}
+
+	public String getLimitParameterName() {
+		return limitParameterName;
+	}
+
+	public String getOrderParameterName() {
+		return orderParameterName;
+	}
+
+	public String getAfterParameterName() {
+		return afterParameterName;
+	}
+
+	public String getFilterParameterName() {
+		return filterParameterName;
+	}
+
+	public String getTotalParameterName() {
+		return totalParameterName;
+	}
+
+	public String getGroupParameterName() {
+		return groupParameterName;
+	}
+
+	public FieldMapper<PropertyDescriptor> getFieldMapper() {
+		return fieldMapper;
+	}
+
+	public OrderMapper<PropertyDescriptor> getOrderMapper() {
+		return orderMapper;
+	}
+
+	public FilterMapper<PropertyDescriptor, Operator, Object> getFilterMapper() {
+		return filterMapper;
+	}
+
+	public SearchCriteriaGenerator<PropertyDescriptor, Operator, Object> getSearchCriteriaGenerator() {
+		return searchCriteriaGenerator;
+	}
+
+	public CriteriaGenerator<PropertyDescriptor, Operator, Object> getCriteriaGenerator() {
+		return criteriaGenerator;
+	}
+
+	/**
+	 * @return a read only view of the mapper of query strings, whose parameter
+	 *         names are set through the builder, handing out values as Strings
+	 */
+	public ParameterMapper<String, Operator, Object> getQueryParameterMapper() {
+		ParameterMapper<String, Operator, Object> parameterMapper = createStringParameterMapper(queryParameterMapper);
+		this.setParameterIdentifiers(parameterMapper);
+		return ParameterMapper.unmodifiable(parameterMapper);
+	}
+
+	/**
+	 * @return a read only view of the mapper of servlet requests
+	 * @see #getQueryParameterMapper()
+	 */
+	public ParameterMapper<String, Operator, Object> getServletRequestParameterMapper() {
+		ParameterMapper<String, Operator, Object> parameterMapper = createStringParameterMapper(
+				servletRequestParameterMapper);
+		this.setParameterIdentifiers(parameterMapper);
+		return ParameterMapper.unmodifiable(parameterMapper);
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the query plan cache statistics, or null if the cache is disabled
+	 */
+	public CacheStatistics getQueryPlanCacheStatistics() {
+		return queryPlanCache == null ? null : queryPlanCache.getStatistics();
+	}
+
+	/**
+	 * @return the approximate total cache statistics, or null if the cache is
+	 *         disabled
+	 */
+	public CacheStatistics getTotalCacheStatistics() {
+		return totalCache == null ? null : totalCache.getStatistics();
+	}
+
+	/**
+	 * @return the result cache statistics, or null if the cache is disabled
+	 */
+	public CacheStatistics getResultCacheStatistics() {
+		return resultCache == null ? null : resultCache.getStatistics();
+	}
+
+	/**
+	 * @return the number of executions saved by sharing an equal execution in
+	 *         flight, over every root class
+	 * @see Builder#coalescing(boolean)
+	 */
+	public long getCoalescedCount() {
+		return singleFlight == null ? 0 : singleFlight.getSharedCount();
+	}
+
+	/**
+	 * Forgets every approximate total, e.g. after a bulk change.
+	 */
+	public void invalidateTotals() {
+		if (totalCache != null) {
+			totalCache.invalidateAll();
+		}
+	}
+
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	public int getFlushRows() {
+		return flushRows;
+	}
+
+	public QueryPolicy getQueryPolicy() {
+		return queryPolicy;
+	}
+
+	public Executor getBatchExecutor() {
+		return batchExecutor;
+	}
+
+	public RestMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Collects the configuration of a {@link RestService}. A builder is not
+	 * thread-safe, the service it builds is.
+	 */
+	public static class Builder {
+		private int start = DEFAULT_START;
+		private int limit = DEFAULT_LIMIT;
+		private String fieldsParameterName = DEFAULT_FIELDS_PARAMETER_NAME;
+		private String startParameterName = DEFAULT_START_PARAMETER_NAME;
+		private String limitParameterName = DEFAULT_LIMIT_PARAMETER_NAME;
+		private String orderParameterName = DEFAULT_ORDER_PARAMETER_NAME;
+		private String afterParameterName = DEFAULT_AFTER_PARAMETER_NAME;
+		private String filterParameterName = DEFAULT_FILTER_PARAMETER_NAME;
+		private String totalParameterName = DEFAULT_TOTAL_PARAMETER_NAME;
+		private String groupParameterName = DEFAULT_GROUP_PARAMETER_NAME;
+		private TypeGenerator typeGenerator = defaultTypeGenerator;
+		private Integer fetchSize;
+		private ExecutionProfile executionProfile;
+		private final Map<Class<?>, ExecutionProfile> executionProfiles = new HashMap<Class<?>, ExecutionProfile>();
+		private int flushRows = DEFAULT_FLUSH_ROWS;
+		private int maximumBodyLength = DEFAULT_MAXIMUM_BODY_LENGTH;
+		private QueryPolicy queryPolicy;
+		private Executor batchExecutor = ForkJoinPool.commonPool();
+		private RestMetrics metrics = NoOpRestMetrics.INSTANCE;
+		private int queryPlanCacheSize = DEFAULT_QUERY_PLAN_CACHE_SIZE;
+		private int totalCacheSize = DEFAULT_TOTAL_CACHE_SIZE;
+		private long totalTimeToLiveNanos = TimeUnit.SECONDS.toNanos(DEFAULT_TOTAL_TIME_TO_LIVE_SECONDS);
+		private final Map<Class<?>, Long> totalTimesToLiveNanos = new HashMap<Class<?>, Long>();
+		private int resultCacheSize;
+		private long resultTimeToLiveNanos = TimeUnit.SECONDS.toNanos(DEFAULT_RESULT_TIME_TO_LIVE_SECONDS);
+		private boolean coalescing;
+
+		private Builder() {
+			super();
+		}
+
+		/**
+		 * @param start
+		 *            the start of requests without the start parameter
+		 * @return this builder
+		 */
+		public Builder start(int start) {
+			this.start = start;
+			return this;
+		}
+
+		/**
+		 * @param limit
+		 *            the limit of requests without the limit parameter
+		 * @return this builder
+		 */
+		public Builder limit(int limit) {
+			this.limit = limit;
+			return this;
+		}
+
+		/**
+		 * @param fieldsParameterName
+		 *            the name of the fields parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder fieldsParameterName(String fieldsParameterName) {
+			this.fieldsParameterName = usable(fieldsParameterName, DEFAULT_FIELDS_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param startParameterName
+		 *            the name of the start parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder startParameterName(String startParameterName) {
+			this.startParameterName = usable(startParameterName, DEFAULT_START_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param limitParameterName
+		 *            the name of the limit parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder limitParameterName(String limitParameterName) {
+			this.limitParameterName = usable(limitParameterName, DEFAULT_LIMIT_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param orderParameterName
+		 *            the name of the order parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder orderParameterName(String orderParameterName) {
+			this.orderParameterName = usable(orderParameterName, DEFAULT_ORDER_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param afterParameterName
+		 *            the name of the after parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder afterParameterName(String afterParameterName) {
+			this.afterParameterName = usable(afterParameterName, DEFAULT_AFTER_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param filterParameterName
+		 *            the name of the filter parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder filterParameterName(String filterParameterName) {
+			this.filterParameterName = usable(filterParameterName, DEFAULT_FILTER_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param totalParameterName
+		 *            the name of the total parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder totalParameterName(String totalParameterName) {
+			this.totalParameterName = usable(totalParameterName, DEFAULT_TOTAL_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param groupParameterName
+		 *            the name of the group parameter, or null for the default
+		 * @return this builder
+		 */
+		public Builder groupParameterName(String groupParameterName) {
+			this.groupParameterName = usable(groupParameterName, DEFAULT_GROUP_PARAMETER_NAME);
+			return this;
+		}
+
+		/**
+		 * @param typeGenerator
+		 *            the type generator converting parameter values, or null for
+		 *            the default
+		 * @return this builder
+		 */
+		public Builder typeGenerator(TypeGenerator typeGenerator) {
+			this.typeGenerator = typeGenerator == null ? defaultTypeGenerator : typeGenerator;
+			return this;
+		}
+
+		/**
+		 * @param fetchSize
+		 *            the JDBC fetch size used when reading results, or null to use
+		 *            the driver's default
+		 * @return this builder
+		 */
+		public Builder fetchSize(Integer fetchSize) {
+			this.fetchSize = fetchSize;
+			return this;
+		}
+
+		/**
+		 * @param executionProfile
+		 *            how the criteria of every class are executed, its fetch
+		 *            size taking precedence over {@link #fetchSize(Integer)}
+		 * @return this builder
+		 */
+		public Builder executionProfile(ExecutionProfile executionProfile) {
+			this.executionProfile = executionProfile;
+			return this;
+		}
+
+		/**
+		 * @param rootClass
+		 *            the class, including its subclasses without a profile of
+		 *            their own
+		 * @param executionProfile
+		 *            how the criteria of rootClass are executed, overriding the
+		 *            default profile, e.g. a short timeout for a huge table
+		 * @return this builder
+		 * @see RestRequest#setExecutionProfile(ExecutionProfile)
+		 */
+		public Builder executionProfile(Class<?> rootClass, ExecutionProfile executionProfile) {
+			this.executionProfiles.put(rootClass, executionProfile);
+			return this;
+		}
+
+		/**
+		 * @param flushRows
+		 *            the number of rows written as JSON between flushes of the
+		 *            writer, or 0 to flush only at the end
+		 * @return this builder
+		 */
+		public Builder flushRows(int flushRows) {
+			this.flushRows = flushRows;
+			return this;
+		}
+
+		/**
+		 * @param maximumBodyLength
+		 *            the number of characters of a POST body read for
+		 *            parameters before the request is rejected
+		 * @return this builder
+		 */
+		public Builder maximumBodyLength(int maximumBodyLength) {
+			this.maximumBodyLength = maximumBodyLength;
+			return this;
+		}
+
+		/**
+		 * @param queryPolicy
+		 *            the policy every request is checked against before its
+		 *            criteria are generated, or null to accept any request
+		 * @return this builder
+		 */
+		public Builder queryPolicy(QueryPolicy queryPolicy) {
+			this.queryPolicy = queryPolicy;
+			return this;
+		}
+
+		/**
+		 * @param batchExecutor
+		 *            the executor batches are converted on, or null to convert
+		 *            them on the calling thread
+		 * @return this builder
+		 * @see RestService#convertBatch(Collection)
+		 */
+		public Builder batchExecutor(Executor batchExecutor) {
+			this.batchExecutor = batchExecutor;
+			return this;
+		}
+
+		/**
+		 * @param metrics
+		 *            the metrics every conversion is reported to, or null to
+		 *            take no measurements
+		 * @return this builder
+		 */
+		public Builder metrics(RestMetrics metrics) {
+			this.metrics = metrics == null ? NoOpRestMetrics.INSTANCE : metrics;
+			return this;
+		}
+
+		/**
+		 * @param queryPlanCacheSize
+		 *            the number of query shapes to remember, or 0 to disable the
+		 *            cache
+		 * @return this builder
+		 */
+		public Builder queryPlanCacheSize(int queryPlanCacheSize) {
+			this.queryPlanCacheSize = queryPlanCacheSize;
+			return this;
+		}
+
+		/**
+		 * @param totalCacheSize
+		 *            the number of approximate totals to remember, or 0 to count
+		 *            approximate totals exactly
+		 * @return this builder
+		 */
+		public Builder totalCacheSize(int totalCacheSize) {
+			this.totalCacheSize = totalCacheSize;
+			return this;
+		}
+
+		/**
+		 * @param timeToLive
+		 *            how long an approximate total is reused, unless configured
+		 *            for its class
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder totalTimeToLive(long timeToLive, TimeUnit unit) {
+			this.totalTimeToLiveNanos = unit.toNanos(timeToLive);
+			return this;
+		}
+
+		/**
+		 * @param rootClass
+		 * @param timeToLive
+		 *            how long an approximate total of rootClass or of its
+		 *            subclasses is reused, e.g. longer for huge tables that
+		 *            change slowly
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder totalTimeToLive(Class<?> rootClass, long timeToLive, TimeUnit unit) {
+			this.totalTimesToLiveNanos.put(rootClass, unit.toNanos(timeToLive));
+			return this;
+		}
+
+		/**
+		 * @param resultCacheSize
+		 *            the number of results of
+		 *            {@link RestService#convert(String, Class, Session)} to
+		 *            remember, or 0 to disable the cache
+		 * @return this builder
+		 */
+		public Builder resultCacheSize(int resultCacheSize) {
+			this.resultCacheSize = resultCacheSize;
+			return this;
+		}
+
+		/**
+		 * @param timeToLive
+		 *            how long a cached result is reused unless its class changes
+		 *            first
+		 * @param unit
+		 * @return this builder
+		 */
+		public Builder resultTimeToLive(long timeToLive, TimeUnit unit) {
+			this.resultTimeToLiveNanos = unit.toNanos(timeToLive);
+			return this;
+		}
+
+		/**
+		 * @param coalescing
+		 *            whether concurrent equal requests missing the result cache,
+		 *            or all of them if it is disabled, share a single execution
+		 * @return this builder
+		 */
+		public Builder coalescing(boolean coalescing) {
+			this.coalescing = coalescing;
+			return this;
+		}
+
+		public RestService build() {
+			return new RestService(this);
+		}
+
+		private static String usable(String parameterName, String defaultParameterName) {
+			return parameterName == null || parameterName.isEmpty() ? defaultParameterName : parameterName;
+		}
 	}
 
 }
\ No newline at end of file
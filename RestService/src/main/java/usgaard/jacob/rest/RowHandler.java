@@ -0,0 +1,18 @@
+package usgaard.jacob.rest;
+
+/**
+ * Receives the objects of a streamed result one at a time, in result order.
+ * The service keeps no reference to a row once it has been handed over.
+ *
+ * @param <T>
+ * @see RestService#convert(String, Class, org.hibernate.Session, RowHandler)
+ */
+public interface RowHandler<T> {
+
+	/**
+	 * @param row
+	 *            the next hydrated object
+	 */
+	public void handleRow(T row);
+
+}
@@ -0,0 +1,29 @@
+package usgaard.jacob.rest.batch;
+
+/**
+ * One query of a batch together with the class it is converted against.
+ */
+public class BatchItem {
+	private final String query;
+	private final Class<?> clazz;
+
+	public BatchItem(String query, Class<?> clazz) {
+		super();
+		this.query = query;
+		this.clazz = clazz;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public Class<?> getClazz() {
+		return clazz;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchItem [query=" + query + ", clazz=" + clazz + "]";
+	}
+
+}
@@ -0,0 +1,50 @@
+package usgaard.jacob.rest.batch;
+
+/**
+ * The outcome of one {@link BatchItem}: either its value or the exception its
+ * conversion failed with. A failed item does not fail the rest of the batch.
+ *
+ * @param <T>
+ */
+public class BatchResult<T> {
+	private final T value;
+	private final Exception exception;
+
+	private BatchResult(T value, Exception exception) {
+		super();
+		this.value = value;
+		this.exception = exception;
+	}
+
+	public static <T> BatchResult<T> success(T value) {
+		return new BatchResult<T>(value, null);
+	}
+
+	public static <T> BatchResult<T> failure(Exception exception) {
+		return new BatchResult<T>(null, exception);
+	}
+
+	/**
+	 * @return the value, or null if the item failed
+	 */
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * @return the exception the item failed with, or null if it succeeded
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	public boolean isSuccess() {
+		return exception == null;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [value=" + value + ", exception=" + exception + "]";
+	}
+
+}
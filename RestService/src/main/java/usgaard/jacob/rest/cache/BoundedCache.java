@@ -0,0 +1,156 @@
+package usgaard.jacob.rest.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size bounded cache with approximately least recently used eviction. The
+ * entries are spread over access ordered segments, each locked on its own and
+ * holding its share of the maximum size, so a put into a full segment evicts
+ * its least recently used entry in constant time. Recency is kept per
+ * segment, not across the whole cache.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class BoundedCache<K, V> {
+
+	private static final int MAXIMUM_SEGMENTS = 16;
+
+	private final Segment<K, V>[] segments;
+	private final int maximumSize;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * @param maximumSize
+	 *            the number of entries to keep, at least 1
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public BoundedCache(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		}
+
+		this.maximumSize = maximumSize;
+
+		// a power of two, so a segment is picked by masking the hash
+		int segmentCount = Integer.highestOneBit(Math.min(maximumSize, MAXIMUM_SEGMENTS));
+		this.segments = new Segment[segmentCount];
+		for (int index = 0; index < segmentCount; index++) {
+			this.segments[index] = new Segment<K, V>(
+					maximumSize / segmentCount + (index < maximumSize % segmentCount ? 1 : 0), evictionCount);
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return the cached value, or null if there is none
+	 */
+	public V get(K key) {
+		Segment<K, V> segment = this.segmentFor(key);
+		V value;
+
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+
+		if (value == null) {
+			missCount.increment();
+		} else {
+			hitCount.increment();
+		}
+
+		return value;
+	}
+
+	public void put(K key, V value) {
+		Segment<K, V> segment = this.segmentFor(key);
+
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+
+	public void invalidate(K key) {
+		Segment<K, V> segment = this.segmentFor(key);
+
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+
+	/**
+	 * Removes the entry of key only if it still holds value.
+	 */
+	public void invalidate(K key, V value) {
+		Segment<K, V> segment = this.segmentFor(key);
+
+		synchronized (segment) {
+			if (segment.get(key) == value) {
+				segment.remove(key);
+			}
+		}
+	}
+
+	public void invalidateAll() {
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+
+		return size;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public CacheStatistics getStatistics() {
+		return new CacheStatistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), this.size());
+	}
+
+	private Segment<K, V> segmentFor(K key) {
+		int hash = key.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maximumSize;
+		private final LongAdder evictionCount;
+
+		private Segment(int maximumSize, LongAdder evictionCount) {
+			super(Math.min(maximumSize, 64) * 4 / 3 + 1, 0.75f, true);
+			this.maximumSize = maximumSize;
+			this.evictionCount = evictionCount;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			if (this.size() > maximumSize) {
+				evictionCount.increment();
+				return true;
+			}
+
+			return false;
+		}
+	}
+
+}
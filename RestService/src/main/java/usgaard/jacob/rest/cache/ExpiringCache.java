@@ -0,0 +1,89 @@
+package usgaard.jacob.rest.cache;
+
+/**
+ * A {@link BoundedCache} whose entries also expire a given time after they were
+ * put. Expired entries are dropped when they are looked up or evicted.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ExpiringCache<K, V> {
+
+	private final BoundedCache<K, Expiring<V>> entries;
+
+	/**
+	 * @param maximumSize
+	 *            the number of entries to keep, at least 1
+	 */
+	public ExpiringCache(int maximumSize) {
+		this.entries = new BoundedCache<K, Expiring<V>>(maximumSize);
+	}
+
+	/**
+	 * @param key
+	 * @return the cached value, or null if there is none or it has expired
+	 */
+	public V get(K key) {
+		Expiring<V> expiring = entries.get(key);
+
+		if (expiring == null) {
+			return null;
+		}
+
+		if (System.nanoTime() - expiring.expiresAt >= 0) {
+			entries.invalidate(key, expiring);
+			return null;
+		}
+
+		return expiring.value;
+	}
+
+	/**
+	 * @param key
+	 * @param value
+	 * @param timeToLiveNanos
+	 *            how long value stays valid; nothing is cached if not positive
+	 */
+	public void put(K key, V value, long timeToLiveNanos) {
+		if (timeToLiveNanos <= 0) {
+			return;
+		}
+
+		entries.put(key, new Expiring<V>(value, System.nanoTime() + timeToLiveNanos));
+	}
+
+	public void invalidate(K key) {
+		entries.invalidate(key);
+	}
+
+	public void invalidateAll() {
+		entries.invalidateAll();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaximumSize() {
+		return entries.getMaximumSize();
+	}
+
+	/**
+	 * @return the statistics of the underlying cache; a lookup of an expired
+	 *         entry counts as a hit
+	 */
+	public CacheStatistics getStatistics() {
+		return entries.getStatistics();
+	}
+
+	private static final class Expiring<V> {
+		private final V value;
+		private final long expiresAt;
+
+		private Expiring(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
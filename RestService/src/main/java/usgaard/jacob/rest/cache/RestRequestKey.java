@@ -0,0 +1,115 @@
+package usgaard.jacob.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import usgaard.jacob.rest.request.CompositeSearchCriterion;
+import usgaard.jacob.rest.request.FieldMapping;
+import usgaard.jacob.rest.request.OrderMapping;
+import usgaard.jacob.rest.request.RestRequest;
+import usgaard.jacob.rest.request.SearchCriterion;
+
+/**
+ * The canonical form of a {@link RestRequest}: two requests have equal keys if
+ * and only if they select the same rows of the same root class into the same
+ * columns, in the same order and page, executed with the same
+ * {@link RestRequest#getExecutionProfile() execution profile}, whose flush mode
+ * or read only setting may change the results. The key holds copies of the
+ * search criteria, mappings and list values of the request, so changing the
+ * request afterwards does not change the key.
+ */
+public final class RestRequestKey {
+
+	private final Class<?> rootClass;
+	private final List<Object> parts;
+	private final int hashCode;
+
+	private RestRequestKey(Class<?> rootClass, List<Object> parts) {
+		this.rootClass = rootClass;
+		this.parts = parts;
+		this.hashCode = 31 * rootClass.hashCode() + parts.hashCode();
+	}
+
+	public static RestRequestKey of(RestRequest<?, ?, ?> restRequest) {
+		List<Object> parts = new ArrayList<Object>(8);
+		parts.add(copy(restRequest.getSearchCriteria()));
+		parts.add(toList(restRequest.getFieldMappings()));
+		parts.add(toList(restRequest.getGroupMappings()));
+
+		List<Object> orders = new ArrayList<Object>(restRequest.getOrderMappings().size());
+		for (OrderMapping<?> orderMapping : restRequest.getOrderMappings()) {
+			orders.add(Arrays.asList(orderMapping.getIdentifier(), orderMapping.getSort()));
+		}
+		parts.add(orders);
+
+		parts.add(restRequest.getStart());
+		parts.add(restRequest.getLimit());
+		parts.add(restRequest.getAfter() == null ? null : restRequest.getAfter().getValues());
+		parts.add(restRequest.getExecutionProfile());
+
+		return new RestRequestKey(restRequest.getRootClass(), parts);
+	}
+
+	/**
+	 * @return the search criteria as lists, which hold the values rather than
+	 *         the mutable criteria
+	 */
+	private static List<Object> copy(List<? extends SearchCriterion<?, ?, ?>> searchCriteria) {
+		List<Object> copies = new ArrayList<Object>(searchCriteria.size());
+		for (SearchCriterion<?, ?, ?> searchCriterion : searchCriteria) {
+			if (searchCriterion instanceof CompositeSearchCriterion) {
+				CompositeSearchCriterion<?, ?, ?> composite = (CompositeSearchCriterion<?, ?, ?>) searchCriterion;
+				copies.add(Arrays.asList(composite.getLogicalOperator(), copy(composite.getChildren())));
+				continue;
+			}
+
+			Object value = searchCriterion.getValue();
+			if (value instanceof Collection) {
+				value = new ArrayList<Object>((Collection<?>) value);
+			}
+			copies.add(Arrays.asList(searchCriterion.getIdentifier(), searchCriterion.getOperator(), value));
+		}
+
+		return copies;
+	}
+
+	private static List<Object> toList(List<? extends FieldMapping<?>> fieldMappings) {
+		List<Object> fields = new ArrayList<Object>(fieldMappings.size());
+		for (FieldMapping<?> fieldMapping : fieldMappings) {
+			fields.add(Arrays.asList(fieldMapping.getIdentifier(), fieldMapping.getAggregate()));
+		}
+
+		return fields;
+	}
+
+	public Class<?> getRootClass() {
+		return rootClass;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof RestRequestKey)) {
+			return false;
+		}
+
+		RestRequestKey other = (RestRequestKey) obj;
+		return hashCode == other.hashCode && rootClass == other.rootClass && parts.equals(other.parts);
+	}
+
+	@Override
+	public String toString() {
+		return rootClass.getSimpleName() + parts;
+	}
+
+}
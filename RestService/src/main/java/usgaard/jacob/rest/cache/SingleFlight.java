@@ -0,0 +1,106 @@
+package usgaard.jacob.rest.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs at most one call per key at a time. A thread asking for a key that is
+ * already being computed waits for that call, at most as long as its own
+ * timeout, and shares its value instead of running its own. A failed call is
+ * not shared, since it may have failed for reasons of its own caller, e.g. a
+ * timeout or cancellation: its waiting threads run the call again. Nothing is
+ * remembered once a call completes.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public final class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<K, CompletableFuture<V>>();
+	private final LongAdder sharedCount = new LongAdder();
+
+	/**
+	 * @param key
+	 * @param callable
+	 *            run on the calling thread unless a call for key is in flight
+	 * @return the value of callable or of the call in flight
+	 * @throws Exception
+	 *             the exception of callable
+	 */
+	public V execute(K key, Callable<? extends V> callable) throws Exception {
+		return this.execute(key, callable, 0, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param key
+	 * @param callable
+	 *            run on the calling thread unless a call for key is in flight
+	 * @param timeout
+	 *            the time to wait for calls in flight, 0 for no limit
+	 * @param unit
+	 * @return the value of callable or of the call in flight
+	 * @throws TimeoutException
+	 *             if the calls in flight took longer than timeout
+	 * @throws Exception
+	 *             the exception of callable
+	 */
+	public V execute(K key, Callable<? extends V> callable, long timeout, TimeUnit unit) throws Exception {
+		long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0;
+		CompletableFuture<V> call = new CompletableFuture<V>();
+		CompletableFuture<V> inFlight;
+
+		while ((inFlight = calls.putIfAbsent(key, call)) != null) {
+			sharedCount.increment();
+			boolean shared = false;
+
+			try {
+				V value = deadline == 0 ? inFlight.get()
+						: inFlight.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				shared = true;
+				return value;
+			} catch (ExecutionException e) {
+				// run again, by this thread or by another one waiting too
+			} finally {
+				if (!shared) {
+					sharedCount.decrement();
+				}
+			}
+		}
+
+		try {
+			V value = callable.call();
+			call.complete(value);
+			return value;
+		} catch (Exception e) {
+			call.completeExceptionally(e);
+			throw e;
+		} catch (Error e) {
+			call.completeExceptionally(e);
+			throw e;
+		} finally {
+			calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * @return the number of calls that shared the value of another call
+	 *         instead of running their own, counted from when they start
+	 *         waiting
+	 */
+	public long getSharedCount() {
+		return sharedCount.sum();
+	}
+
+	/**
+	 * @return the number of calls in flight
+	 */
+	public int size() {
+		return calls.size();
+	}
+
+}
@@ -0,0 +1,96 @@
+package usgaard.jacob.rest.conversion;
+
+/**
+ * A read-only view of part of another {@link CharSequence}, so values can be
+ * cut out of a query and parsed without being copied into a {@link String}
+ * first.
+ */
+public final class CharSlice implements CharSequence {
+
+	private final CharSequence source;
+	private final int start;
+	private final int end;
+
+	/**
+	 * @param source
+	 * @param start
+	 *            inclusive
+	 * @param end
+	 *            exclusive
+	 */
+	public CharSlice(CharSequence source, int start, int end) {
+		if (start < 0 || end > source.length() || start > end) {
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + source.length());
+		}
+
+		this.source = source;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= end - start) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+		}
+
+		return source.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length() || start > end) {
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length());
+		}
+
+		return new CharSlice(source, this.start + start, this.start + end);
+	}
+
+	@Override
+	public String toString() {
+		return source.subSequence(start, end).toString();
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 0;
+		for (int index = start; index < end; index++) {
+			hashCode = 31 * hashCode + source.charAt(index);
+		}
+		return hashCode;
+	}
+
+	/**
+	 * Slices are equal to slices with the same characters. Like
+	 * {@link StringBuilder}, a slice is never equal to a {@link String}.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof CharSlice)) {
+			return false;
+		}
+
+		CharSlice other = (CharSlice) obj;
+		if (length() != other.length()) {
+			return false;
+		}
+
+		for (int index = 0; index < length(); index++) {
+			if (source.charAt(start + index) != other.source.charAt(other.start + index)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
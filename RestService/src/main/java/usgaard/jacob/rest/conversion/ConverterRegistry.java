@@ -0,0 +1,177 @@
+package usgaard.jacob.rest.conversion;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import usgaard.jacob.rest.TypeGenerator;
+import usgaard.jacob.rest.exception.ConversionException;
+
+/**
+ * A {@link TypeGenerator} that looks up a {@link ValueConverter} by target class
+ * instead of walking a chain of type checks. Primitive classes share the
+ * converter of their wrapper and enums without a registered converter are
+ * matched by constant name. A registry is immutable once built.
+ *
+ * @see #builder()
+ */
+public final class ConverterRegistry implements TypeGenerator {
+
+	private static final ClassValue<ValueConverter<?>> ENUM_CONVERTERS = new ClassValue<ValueConverter<?>>() {
+
+		@Override
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		protected ValueConverter<?> computeValue(Class<?> type) {
+			return ValueConverters.forEnum((Class) type);
+		}
+	};
+
+	private static final ConverterRegistry DEFAULT = builder().build();
+
+	private final Map<Class<?>, ValueConverter<?>> converters;
+
+	private ConverterRegistry(Map<Class<?>, ValueConverter<?>> converters) {
+		this.converters = Collections.unmodifiableMap(new HashMap<Class<?>, ValueConverter<?>>(converters));
+	}
+
+	/**
+	 * @return the registry holding the built-in converters only
+	 */
+	public static ConverterRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return a builder holding the built-in converters
+	 */
+	public static Builder builder() {
+		return new Builder().register(String.class, ValueConverters.STRING)
+				.register(Byte.class, ValueConverters.BYTE).register(Short.class, ValueConverters.SHORT)
+				.register(Integer.class, ValueConverters.INTEGER).register(Long.class, ValueConverters.LONG)
+				.register(Float.class, ValueConverters.FLOAT).register(Double.class, ValueConverters.DOUBLE)
+				.register(Boolean.class, ValueConverters.BOOLEAN).register(Character.class, ValueConverters.CHARACTER)
+				.register(BigDecimal.class, ValueConverters.BIG_DECIMAL)
+				.register(BigInteger.class, ValueConverters.BIG_INTEGER)
+				.register(UUID.class, ValueConverters.UUID_CONVERTER)
+				.register(LocalDate.class, ValueConverters.LOCAL_DATE)
+				.register(LocalTime.class, ValueConverters.LOCAL_TIME)
+				.register(LocalDateTime.class, ValueConverters.LOCAL_DATE_TIME)
+				.register(OffsetDateTime.class, ValueConverters.OFFSET_DATE_TIME)
+				.register(ZonedDateTime.class, ValueConverters.ZONED_DATE_TIME)
+				.register(Instant.class, ValueConverters.INSTANT);
+	}
+
+	/**
+	 * @param type
+	 * @return the converter to type, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ValueConverter<? extends T> getConverter(Class<T> type) {
+		Class<T> wrapperType = wrap(type);
+
+		// only register(Class<T>, ValueConverter<? extends T>) fills the map
+		ValueConverter<? extends T> converter = (ValueConverter<? extends T>) converters.get(wrapperType);
+
+		if (converter == null && wrapperType.isEnum()) {
+			converter = (ValueConverter<? extends T>) ENUM_CONVERTERS.get(wrapperType);
+		}
+
+		return converter;
+	}
+
+	/**
+	 * Values that already are of type clazz are returned as they are. Anything
+	 * else is converted from its text, which for the values of a query is a
+	 * {@link CharSlice} of the query itself.
+	 */
+	@Override
+	public <T> T generateType(Class<T> clazz, Object object) throws ConversionException {
+		if (clazz == null || object == null) {
+			return null;
+		}
+
+		Class<T> wrapperType = wrap(clazz);
+		if (wrapperType.isInstance(object)) {
+			return wrapperType.cast(object);
+		}
+
+		ValueConverter<? extends T> converter = getConverter(wrapperType);
+		if (converter == null) {
+			throw new ConversionException("Could not convert from: " + object.getClass() + " to: " + clazz);
+		}
+
+		return converter.convert(object instanceof CharSequence ? (CharSequence) object : object.toString());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Class<T> wrap(Class<T> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+
+		// the class object of a primitive is typed with its wrapper
+		if (type == int.class) {
+			return (Class<T>) Integer.class;
+		}
+		if (type == long.class) {
+			return (Class<T>) Long.class;
+		}
+		if (type == double.class) {
+			return (Class<T>) Double.class;
+		}
+		if (type == float.class) {
+			return (Class<T>) Float.class;
+		}
+		if (type == boolean.class) {
+			return (Class<T>) Boolean.class;
+		}
+		if (type == short.class) {
+			return (Class<T>) Short.class;
+		}
+		if (type == byte.class) {
+			return (Class<T>) Byte.class;
+		}
+		if (type == char.class) {
+			return (Class<T>) Character.class;
+		}
+
+		return (Class<T>) Void.class;
+	}
+
+	/**
+	 * Collects the converters of a {@link ConverterRegistry}. Registering a type
+	 * again replaces its converter.
+	 */
+	public static final class Builder {
+		private final Map<Class<?>, ValueConverter<?>> converters = new HashMap<Class<?>, ValueConverter<?>>();
+
+		private Builder() {
+			super();
+		}
+
+		/**
+		 * @param type
+		 *            the target class, primitive classes register their wrapper
+		 * @param converter
+		 * @return this builder
+		 */
+		public <T> Builder register(Class<T> type, ValueConverter<? extends T> converter) {
+			converters.put(wrap(type), converter);
+			return this;
+		}
+
+		public ConverterRegistry build() {
+			return new ConverterRegistry(converters);
+		}
+	}
+
+}
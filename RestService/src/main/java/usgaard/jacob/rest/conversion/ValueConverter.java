@@ -0,0 +1,22 @@
+package usgaard.jacob.rest.conversion;
+
+import usgaard.jacob.rest.exception.ConversionException;
+
+/**
+ * Parses the text of a parameter value into one type.
+ *
+ * @param <T>
+ * @see ConverterRegistry
+ */
+public interface ValueConverter<T> {
+
+	/**
+	 * @param value
+	 *            the text to parse, often a {@link CharSlice} of the query
+	 * @return the parsed value
+	 * @throws ConversionException
+	 *             if value is not a valid T
+	 */
+	public T convert(CharSequence value) throws ConversionException;
+
+}
@@ -0,0 +1,434 @@
+package usgaard.jacob.rest.conversion;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+import usgaard.jacob.rest.exception.ConversionException;
+
+/**
+ * The built-in {@link ValueConverter}s. Integral and boolean values are parsed
+ * straight from the characters; decimal values too when they are exactly
+ * representable, otherwise through {@link Double#parseDouble(String)}.
+ */
+public final class ValueConverters {
+
+	/** Powers of ten that are exact doubles. */
+	private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** Powers of ten that are exact floats. */
+	private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f,
+			1e10f };
+
+	/** Doubles represent every integer below 2^53 exactly. */
+	private static final int MAXIMUM_EXACT_DOUBLE_DIGITS = 15;
+
+	/** Floats represent every integer below 2^24 exactly. */
+	private static final int MAXIMUM_EXACT_FLOAT_DIGITS = 7;
+
+	private ValueConverters() {
+	}
+
+	public static final ValueConverter<String> STRING = new ValueConverter<String>() {
+
+		@Override
+		public String convert(CharSequence value) {
+			return value.toString();
+		}
+	};
+
+	public static final ValueConverter<Byte> BYTE = new ValueConverter<Byte>() {
+
+		@Override
+		public Byte convert(CharSequence value) throws ConversionException {
+			return Byte.valueOf((byte) parseLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE, Byte.class));
+		}
+	};
+
+	public static final ValueConverter<Short> SHORT = new ValueConverter<Short>() {
+
+		@Override
+		public Short convert(CharSequence value) throws ConversionException {
+			return Short.valueOf((short) parseLong(value, Short.MIN_VALUE, Short.MAX_VALUE, Short.class));
+		}
+	};
+
+	public static final ValueConverter<Integer> INTEGER = new ValueConverter<Integer>() {
+
+		@Override
+		public Integer convert(CharSequence value) throws ConversionException {
+			return Integer.valueOf((int) parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.class));
+		}
+	};
+
+	public static final ValueConverter<Long> LONG = new ValueConverter<Long>() {
+
+		@Override
+		public Long convert(CharSequence value) throws ConversionException {
+			return Long.valueOf(parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE, Long.class));
+		}
+	};
+
+	public static final ValueConverter<Double> DOUBLE = new ValueConverter<Double>() {
+
+		@Override
+		public Double convert(CharSequence value) throws ConversionException {
+			return Double.valueOf(parseDouble(value));
+		}
+	};
+
+	public static final ValueConverter<Float> FLOAT = new ValueConverter<Float>() {
+
+		@Override
+		public Float convert(CharSequence value) throws ConversionException {
+			return Float.valueOf(parseFloat(value));
+		}
+	};
+
+	public static final ValueConverter<Boolean> BOOLEAN = new ValueConverter<Boolean>() {
+
+		@Override
+		public Boolean convert(CharSequence value) throws ConversionException {
+			if (equalsIgnoreCase(value, "true")) {
+				return Boolean.TRUE;
+			}
+
+			if (equalsIgnoreCase(value, "false")) {
+				return Boolean.FALSE;
+			}
+
+			throw failure(value, Boolean.class, null);
+		}
+	};
+
+	public static final ValueConverter<Character> CHARACTER = new ValueConverter<Character>() {
+
+		@Override
+		public Character convert(CharSequence value) throws ConversionException {
+			if (value.length() != 1) {
+				throw failure(value, Character.class, null);
+			}
+
+			return Character.valueOf(value.charAt(0));
+		}
+	};
+
+	public static final ValueConverter<BigDecimal> BIG_DECIMAL = new ValueConverter<BigDecimal>() {
+
+		@Override
+		public BigDecimal convert(CharSequence value) throws ConversionException {
+			try {
+				return new BigDecimal(value.toString());
+			} catch (NumberFormatException e) {
+				throw failure(value, BigDecimal.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<BigInteger> BIG_INTEGER = new ValueConverter<BigInteger>() {
+
+		@Override
+		public BigInteger convert(CharSequence value) throws ConversionException {
+			try {
+				return new BigInteger(value.toString());
+			} catch (NumberFormatException e) {
+				throw failure(value, BigInteger.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<UUID> UUID_CONVERTER = new ValueConverter<UUID>() {
+
+		@Override
+		public UUID convert(CharSequence value) throws ConversionException {
+			try {
+				return UUID.fromString(value.toString());
+			} catch (IllegalArgumentException e) {
+				throw failure(value, UUID.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<LocalDate> LOCAL_DATE = new ValueConverter<LocalDate>() {
+
+		@Override
+		public LocalDate convert(CharSequence value) throws ConversionException {
+			try {
+				return LocalDate.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, LocalDate.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<LocalTime> LOCAL_TIME = new ValueConverter<LocalTime>() {
+
+		@Override
+		public LocalTime convert(CharSequence value) throws ConversionException {
+			try {
+				return LocalTime.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, LocalTime.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<LocalDateTime> LOCAL_DATE_TIME = new ValueConverter<LocalDateTime>() {
+
+		@Override
+		public LocalDateTime convert(CharSequence value) throws ConversionException {
+			try {
+				return LocalDateTime.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, LocalDateTime.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<OffsetDateTime> OFFSET_DATE_TIME = new ValueConverter<OffsetDateTime>() {
+
+		@Override
+		public OffsetDateTime convert(CharSequence value) throws ConversionException {
+			try {
+				return OffsetDateTime.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, OffsetDateTime.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<ZonedDateTime> ZONED_DATE_TIME = new ValueConverter<ZonedDateTime>() {
+
+		@Override
+		public ZonedDateTime convert(CharSequence value) throws ConversionException {
+			try {
+				return ZonedDateTime.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, ZonedDateTime.class, e);
+			}
+		}
+	};
+
+	public static final ValueConverter<Instant> INSTANT = new ValueConverter<Instant>() {
+
+		@Override
+		public Instant convert(CharSequence value) throws ConversionException {
+			try {
+				return Instant.parse(value);
+			} catch (DateTimeParseException e) {
+				throw failure(value, Instant.class, e);
+			}
+		}
+	};
+
+	/**
+	 * @param type
+	 * @return a converter accepting the constant names of type, exact matches
+	 *         first and then ignoring case
+	 */
+	public static <E extends Enum<E>> ValueConverter<E> forEnum(final Class<E> type) {
+		final E[] constants = type.getEnumConstants();
+
+		return new ValueConverter<E>() {
+
+			@Override
+			public E convert(CharSequence value) throws ConversionException {
+				for (E constant : constants) {
+					if (matches(value, constant.name())) {
+						return constant;
+					}
+				}
+
+				for (E constant : constants) {
+					if (equalsIgnoreCase(value, constant.name())) {
+						return constant;
+					}
+				}
+
+				throw failure(value, type, null);
+			}
+
+			private boolean matches(CharSequence value, String name) {
+				if (value.length() != name.length()) {
+					return false;
+				}
+
+				for (int index = 0; index < name.length(); index++) {
+					if (value.charAt(index) != name.charAt(index)) {
+						return false;
+					}
+				}
+
+				return true;
+			}
+		};
+	}
+
+	private static long parseLong(CharSequence value, long minimum, long maximum, Class<?> type)
+			throws ConversionException {
+		int length = value.length();
+		int index = 0;
+		boolean negative = false;
+
+		if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+			negative = value.charAt(0) == '-';
+			index++;
+		}
+
+		if (index == length) {
+			throw failure(value, type, null);
+		}
+
+		// accumulated negatively, as the negative range is the larger one
+		long limit = negative ? minimum : -maximum;
+		long multiplyMinimum = limit / 10;
+		long result = 0;
+
+		for (; index < length; index++) {
+			int digit = value.charAt(index) - '0';
+
+			if (digit < 0 || digit > 9 || result < multiplyMinimum) {
+				throw failure(value, type, null);
+			}
+
+			result *= 10;
+			if (result < limit + digit) {
+				throw failure(value, type, null);
+			}
+			result -= digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	private static double parseDouble(CharSequence value) throws ConversionException {
+		int length = value.length();
+		int index = 0;
+		boolean negative = false;
+
+		if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+			negative = value.charAt(0) == '-';
+			index++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+
+		for (; index < length; index++) {
+			char c = value.charAt(index);
+
+			if (c == '.' && scale < 0) {
+				scale = 0;
+				continue;
+			}
+
+			int digit = c - '0';
+			if (digit < 0 || digit > 9 || ++digits > MAXIMUM_EXACT_DOUBLE_DIGITS) {
+				return parseDoubleSlowly(value);
+			}
+
+			mantissa = mantissa * 10 + digit;
+			if (scale >= 0) {
+				scale++;
+			}
+		}
+
+		if (digits == 0 || scale >= DOUBLE_POWERS_OF_TEN.length) {
+			return parseDoubleSlowly(value);
+		}
+
+		// both operands are exact, so the quotient is correctly rounded
+		double result = scale > 0 ? mantissa / DOUBLE_POWERS_OF_TEN[scale] : mantissa;
+		return negative ? -result : result;
+	}
+
+	private static double parseDoubleSlowly(CharSequence value) throws ConversionException {
+		try {
+			return Double.parseDouble(value.toString());
+		} catch (NumberFormatException e) {
+			throw failure(value, Double.class, e);
+		}
+	}
+
+	private static float parseFloat(CharSequence value) throws ConversionException {
+		int length = value.length();
+		int index = 0;
+		boolean negative = false;
+
+		if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+			negative = value.charAt(0) == '-';
+			index++;
+		}
+
+		int mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+
+		for (; index < length; index++) {
+			char c = value.charAt(index);
+
+			if (c == '.' && scale < 0) {
+				scale = 0;
+				continue;
+			}
+
+			int digit = c - '0';
+			if (digit < 0 || digit > 9 || ++digits > MAXIMUM_EXACT_FLOAT_DIGITS) {
+				return parseFloatSlowly(value);
+			}
+
+			mantissa = mantissa * 10 + digit;
+			if (scale >= 0) {
+				scale++;
+			}
+		}
+
+		if (digits == 0 || scale >= FLOAT_POWERS_OF_TEN.length) {
+			return parseFloatSlowly(value);
+		}
+
+		float result = scale > 0 ? mantissa / FLOAT_POWERS_OF_TEN[scale] : mantissa;
+		return negative ? -result : result;
+	}
+
+	private static float parseFloatSlowly(CharSequence value) throws ConversionException {
+		try {
+			return Float.parseFloat(value.toString());
+		} catch (NumberFormatException e) {
+			throw failure(value, Float.class, e);
+		}
+	}
+
+	private static boolean equalsIgnoreCase(CharSequence value, String expected) {
+		if (value.length() != expected.length()) {
+			return false;
+		}
+
+		for (int index = 0; index < expected.length(); index++) {
+			char c = value.charAt(index);
+			char e = expected.charAt(index);
+
+			if (c != e && Character.toUpperCase(c) != Character.toUpperCase(e)
+					&& Character.toLowerCase(c) != Character.toLowerCase(e)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static ConversionException failure(CharSequence value, Class<?> type, Exception cause) {
+		String message = "Could not convert: " + value + " to: " + type;
+		return cause == null ? new ConversionException(message) : new ConversionException(message, cause);
+	}
+
+}
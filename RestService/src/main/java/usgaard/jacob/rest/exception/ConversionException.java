@@ -7,4 +7,8 @@ public class ConversionException extends Exception {
 		super(message);
 	}
 
+	public ConversionException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
 }
@@ -14,4 +14,12 @@ public class ParameterException extends Exception {
 	public ParameterException(String message) {
 		super(message);
 	}
+
+	/**
+	 * @param message
+	 * @param cause
+	 */
+	public ParameterException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
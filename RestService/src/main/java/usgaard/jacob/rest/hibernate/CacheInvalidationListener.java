@@ -0,0 +1,90 @@
+package usgaard.jacob.rest.hibernate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import usgaard.jacob.rest.RestService;
+
+/**
+ * Invalidates the cached results of a {@link RestService} whenever a
+ * transaction inserting, updating or deleting an entity commits, or fails to.
+ * Bulk HQL or SQL statements bypass these events; call
+ * {@link RestService#invalidate(Class)} after them.
+ */
+public class CacheInvalidationListener
+		implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private static final long serialVersionUID = 1L;
+
+	private final RestService restService;
+
+	public CacheInvalidationListener(RestService restService) {
+		this.restService = restService;
+	}
+
+	/**
+	 * Appends a listener for restService to the commit events of sessionFactory.
+	 *
+	 * @param sessionFactory
+	 * @param restService
+	 * @return the listener
+	 */
+	public static CacheInvalidationListener register(SessionFactory sessionFactory, RestService restService) {
+		CacheInvalidationListener listener = new CacheInvalidationListener(restService);
+		EventListenerRegistry eventListenerRegistry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+
+		eventListenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+		eventListenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		eventListenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+		return listener;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	// rows read before the rollback may hold the change, so they are stale too
+
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+		restService.invalidate(event.getPersister().getMappedClass());
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return true;
+	}
+
+}
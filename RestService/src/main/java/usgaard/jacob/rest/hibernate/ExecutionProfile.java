@@ -0,0 +1,266 @@
+package usgaard.jacob.rest.hibernate;
+
+import org.hibernate.Criteria;
+import org.hibernate.FlushMode;
+
+/**
+ * How the criteria of a request are executed: statement timeout, fetch size,
+ * read only loading, query cache and flush mode. Every setting is optional;
+ * one that is not set leaves the criteria as they are, or is taken from a
+ * profile this one overrides, see {@link #overriddenBy(ExecutionProfile)}.
+ *
+ * <p>
+ * Hibernate does not consult the query cache for scrolled results, so
+ * {@link Builder#cacheable(Boolean)} only applies to counts.
+ * </p>
+ *
+ * <p>
+ * A profile is immutable and may be shared. Profiles with the same settings are
+ * equal.
+ * </p>
+ */
+public final class ExecutionProfile {
+
+	/**
+	 * Sets nothing.
+	 */
+	public static final ExecutionProfile DEFAULT = builder().build();
+
+	/**
+	 * Loads instances read only and never flushes the session before a query,
+	 * so pure reads skip dirty checking and snapshots.
+	 */
+	public static final ExecutionProfile READ_ONLY = builder().readOnly(true).flushMode(FlushMode.MANUAL).build();
+
+	private final Integer timeout;
+	private final Integer fetchSize;
+	private final Boolean readOnly;
+	private final Boolean cacheable;
+	private final String cacheRegion;
+	private final FlushMode flushMode;
+
+	private ExecutionProfile(Builder builder) {
+		this.timeout = builder.timeout;
+		this.fetchSize = builder.fetchSize;
+		this.readOnly = builder.readOnly;
+		this.cacheable = builder.cacheable;
+		this.cacheRegion = builder.cacheRegion;
+		this.flushMode = builder.flushMode;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @param profile
+	 *            the profile whose settings win, or null
+	 * @return a profile with the settings of profile and those of this profile
+	 *         profile does not set
+	 */
+	public ExecutionProfile overriddenBy(ExecutionProfile profile) {
+		if (profile == null || profile == this) {
+			return this;
+		}
+
+		Builder builder = new Builder();
+		builder.timeout = profile.timeout != null ? profile.timeout : this.timeout;
+		builder.fetchSize = profile.fetchSize != null ? profile.fetchSize : this.fetchSize;
+		builder.readOnly = profile.readOnly != null ? profile.readOnly : this.readOnly;
+		builder.cacheable = profile.cacheable != null ? profile.cacheable : this.cacheable;
+		builder.cacheRegion = profile.cacheRegion != null ? profile.cacheRegion : this.cacheRegion;
+		builder.flushMode = profile.flushMode != null ? profile.flushMode : this.flushMode;
+		return builder.build();
+	}
+
+	/**
+	 * Applies every setting of this profile to criteria.
+	 *
+	 * @param criteria
+	 */
+	public void apply(Criteria criteria) {
+		this.applyStateless(criteria);
+
+		if (readOnly != null) {
+			criteria.setReadOnly(readOnly);
+		}
+
+		if (flushMode != null) {
+			criteria.setFlushMode(flushMode);
+		}
+	}
+
+	/**
+	 * Applies the settings of this profile but read only and flush mode to
+	 * criteria of a {@link org.hibernate.StatelessSession}, which has no
+	 * persistence context to keep read only and nothing to flush.
+	 *
+	 * @param criteria
+	 */
+	public void applyStateless(Criteria criteria) {
+		if (timeout != null) {
+			criteria.setTimeout(timeout);
+		}
+
+		if (fetchSize != null) {
+			criteria.setFetchSize(fetchSize);
+		}
+
+		if (cacheable != null) {
+			criteria.setCacheable(cacheable);
+		}
+
+		if (cacheRegion != null) {
+			criteria.setCacheRegion(cacheRegion);
+		}
+	}
+
+	/**
+	 * @return the number of seconds the database may spend on a statement, or
+	 *         null if not set
+	 */
+	public Integer getTimeout() {
+		return timeout;
+	}
+
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	public Boolean getReadOnly() {
+		return readOnly;
+	}
+
+	public Boolean getCacheable() {
+		return cacheable;
+	}
+
+	public String getCacheRegion() {
+		return cacheRegion;
+	}
+
+	public FlushMode getFlushMode() {
+		return flushMode;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = timeout == null ? 0 : timeout.hashCode();
+		hashCode = 31 * hashCode + (fetchSize == null ? 0 : fetchSize.hashCode());
+		hashCode = 31 * hashCode + (readOnly == null ? 0 : readOnly.hashCode());
+		hashCode = 31 * hashCode + (cacheable == null ? 0 : cacheable.hashCode());
+		hashCode = 31 * hashCode + (cacheRegion == null ? 0 : cacheRegion.hashCode());
+		hashCode = 31 * hashCode + (flushMode == null ? 0 : flushMode.hashCode());
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof ExecutionProfile)) {
+			return false;
+		}
+
+		ExecutionProfile other = (ExecutionProfile) obj;
+		return (timeout == null ? other.timeout == null : timeout.equals(other.timeout))
+				&& (fetchSize == null ? other.fetchSize == null : fetchSize.equals(other.fetchSize))
+				&& (readOnly == null ? other.readOnly == null : readOnly.equals(other.readOnly))
+				&& (cacheable == null ? other.cacheable == null : cacheable.equals(other.cacheable))
+				&& (cacheRegion == null ? other.cacheRegion == null : cacheRegion.equals(other.cacheRegion))
+				&& (flushMode == null ? other.flushMode == null : flushMode.equals(other.flushMode));
+	}
+
+	@Override
+	public String toString() {
+		return "ExecutionProfile [timeout=" + timeout + ", fetchSize=" + fetchSize + ", readOnly=" + readOnly
+				+ ", cacheable=" + cacheable + ", cacheRegion=" + cacheRegion + ", flushMode=" + flushMode + "]";
+	}
+
+	/**
+	 * Every setting is unset until set; null unsets it again.
+	 */
+	public static final class Builder {
+		private Integer timeout;
+		private Integer fetchSize;
+		private Boolean readOnly;
+		private Boolean cacheable;
+		private String cacheRegion;
+		private FlushMode flushMode;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param timeout
+		 *            the number of seconds the database may spend on a
+		 *            statement
+		 * @return this builder
+		 */
+		public Builder timeout(Integer timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * @param fetchSize
+		 *            the number of rows fetched per round trip
+		 * @return this builder
+		 */
+		public Builder fetchSize(Integer fetchSize) {
+			this.fetchSize = fetchSize;
+			return this;
+		}
+
+		/**
+		 * @param readOnly
+		 *            whether loaded instances are read only, so neither
+		 *            snapshotted nor dirty checked
+		 * @return this builder
+		 */
+		public Builder readOnly(Boolean readOnly) {
+			this.readOnly = readOnly;
+			return this;
+		}
+
+		/**
+		 * @param cacheable
+		 *            whether results may be taken from and put into the query
+		 *            cache, if enabled
+		 * @return this builder
+		 */
+		public Builder cacheable(Boolean cacheable) {
+			this.cacheable = cacheable;
+			return this;
+		}
+
+		/**
+		 * @param cacheRegion
+		 *            the query cache region of cacheable results
+		 * @return this builder
+		 */
+		public Builder cacheRegion(String cacheRegion) {
+			this.cacheRegion = cacheRegion;
+			return this;
+		}
+
+		/**
+		 * @param flushMode
+		 *            the flush mode of the session during the query,
+		 *            {@link FlushMode#MANUAL} to not flush pending changes
+		 *            before it
+		 * @return this builder
+		 */
+		public Builder flushMode(FlushMode flushMode) {
+			this.flushMode = flushMode;
+			return this;
+		}
+
+		public ExecutionProfile build() {
+			return new ExecutionProfile(this);
+		}
+	}
+
+}
@@ -0,0 +1,289 @@
+package usgaard.jacob.rest.hydration;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import usgaard.jacob.rest.cache.BoundedCache;
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+import usgaard.jacob.rest.request.FieldMapping;
+
+/**
+ * Creates and caches a {@link RowHydrator} per class and projection. The
+ * constructor and setters of the class are bound through
+ * {@link LambdaMetafactory} into plain {@link Supplier} and {@link BiConsumer}
+ * instances, which the JIT treats like any other call. Classes that cannot be
+ * linked from this class loader (e.g. entities of a web application when this
+ * library is shared by the container) are bound through {@link MethodHandle}s
+ * instead.
+ *
+ * <p>
+ * Hydrators are attached to their class through a {@link ClassValue}, so they
+ * are dropped together with it.
+ * </p>
+ */
+public final class HydratorFactory {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HydratorFactory.class);
+
+	/**
+	 * The number of projections remembered per class. Clients choose the fields,
+	 * so the number of projections is not bounded otherwise.
+	 */
+	public static final int MAXIMUM_HYDRATORS_PER_CLASS = 64;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	private static final ClassValue<BoundedCache<String, RowHydrator<?>>> HYDRATORS = new ClassValue<BoundedCache<String, RowHydrator<?>>>() {
+
+		@Override
+		protected BoundedCache<String, RowHydrator<?>> computeValue(Class<?> type) {
+			return new BoundedCache<String, RowHydrator<?>>(MAXIMUM_HYDRATORS_PER_CLASS);
+		}
+	};
+
+	private HydratorFactory() {
+	}
+
+	/**
+	 * @param clazz
+	 *            the class to hydrate
+	 * @param fieldMappings
+	 *            the projected properties, in projection order
+	 * @return a hydrator placing the columns of a row into the properties of a
+	 *         new instance of clazz
+	 * @throws IntrospectionException
+	 * @throws ConversionException
+	 *             if clazz cannot be instantiated or a property cannot be written
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowHydrator<T> getRowHydrator(Class<T> clazz,
+			List<FieldMapping<PropertyDescriptor>> fieldMappings) throws IntrospectionException, ConversionException {
+		StringBuilder key = new StringBuilder();
+		for (FieldMapping<PropertyDescriptor> fieldMapping : fieldMappings) {
+			key.append(fieldMapping.getIdentifier().getName()).append(',');
+		}
+
+		BoundedCache<String, RowHydrator<?>> hydrators = HYDRATORS.get(clazz);
+		RowHydrator<T> rowHydrator = (RowHydrator<T>) hydrators.get(key.toString());
+
+		if (rowHydrator == null) {
+			rowHydrator = createRowHydrator(clazz, fieldMappings);
+			hydrators.put(key.toString(), rowHydrator);
+		}
+
+		return rowHydrator;
+	}
+
+	private static <T> RowHydrator<T> createRowHydrator(Class<T> clazz,
+			List<FieldMapping<PropertyDescriptor>> fieldMappings) throws IntrospectionException, ConversionException {
+		ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(clazz);
+		boolean linkable = isLinkable(clazz);
+
+		int size = fieldMappings.size();
+		String[] names = new String[size];
+		boolean[] primitives = new boolean[size];
+		Class<?>[] types = new Class<?>[size];
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		BiConsumer<Object, Object>[] setters = new BiConsumer[size];
+
+		int index = 0;
+		for (FieldMapping<PropertyDescriptor> fieldMapping : fieldMappings) {
+			PropertyMetadata propertyMetadata = classMetadata.getProperty(fieldMapping.getIdentifier().getName());
+
+			if (propertyMetadata == null || propertyMetadata.getSetter() == null) {
+				throw new ConversionException(
+						"Property is not writable: " + fieldMapping.getIdentifier().getName() + " of: " + clazz);
+			}
+
+			names[index] = propertyMetadata.getName();
+			primitives[index] = propertyMetadata.getType().isPrimitive();
+			types[index] = MethodType.methodType(propertyMetadata.getType()).wrap().returnType();
+			setters[index] = linkable ? linkSetter(clazz, propertyMetadata) : null;
+			if (setters[index] == null) {
+				setters[index] = handleSetter(propertyMetadata.getSetter());
+			}
+			index++;
+		}
+
+		Supplier<T> constructor = linkable ? linkConstructor(clazz) : null;
+		if (constructor == null) {
+			constructor = handleConstructor(clazz);
+		}
+
+		LOGGER.debug("hydrator created for: {}, linked: {}, properties: {}", clazz, linkable, size);
+		return new GeneratedRowHydrator<T>(clazz, constructor, setters, names, primitives, types);
+	}
+
+	/**
+	 * Classes generated by {@link LambdaMetafactory} resolve their target
+	 * through the class loader of this class.
+	 */
+	private static boolean isLinkable(Class<?> clazz) {
+		if (!Modifier.isPublic(clazz.getModifiers())) {
+			return false;
+		}
+
+		try {
+			return Class.forName(clazz.getName(), false, HydratorFactory.class.getClassLoader()) == clazz;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> linkSetter(Class<?> clazz, PropertyMetadata propertyMetadata) {
+		Method writeMethod = propertyMetadata.getPropertyDescriptor().getWriteMethod();
+
+		if (!Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers())) {
+			return null;
+		}
+
+		try {
+			MethodHandle target = LOOKUP.unreflect(writeMethod);
+			Class<?> parameterType = MethodType.methodType(writeMethod.getParameterTypes()[0]).wrap().returnType();
+			CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "accept",
+					MethodType.methodType(BiConsumer.class), SETTER_TYPE, target,
+					MethodType.methodType(void.class, clazz, parameterType));
+
+			return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+		} catch (Throwable e) {
+			LOGGER.debug("unable to link setter: {}", writeMethod, e);
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Supplier<T> linkConstructor(Class<T> clazz) {
+		try {
+			MethodHandle target = LOOKUP.findConstructor(clazz, MethodType.methodType(void.class));
+			CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+					CONSTRUCTOR_TYPE, target, MethodType.methodType(clazz));
+
+			return (Supplier<T>) callSite.getTarget().invoke();
+		} catch (Throwable e) {
+			LOGGER.debug("unable to link constructor of: {}", clazz, e);
+			return null;
+		}
+	}
+
+	private static BiConsumer<Object, Object> handleSetter(final MethodHandle setter) {
+		return new BiConsumer<Object, Object>() {
+
+			@Override
+			public void accept(Object object, Object value) {
+				try {
+					setter.invokeExact(object, value);
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new UndeclaredThrowableException(e);
+				}
+			}
+		};
+	}
+
+	private static <T> Supplier<T> handleConstructor(final Class<T> clazz) throws ConversionException {
+		final MethodHandle constructor;
+		try {
+			Constructor<T> declaredConstructor = clazz.getDeclaredConstructor();
+			declaredConstructor.setAccessible(true);
+			constructor = LOOKUP.unreflectConstructor(declaredConstructor).asType(CONSTRUCTOR_TYPE);
+		} catch (NoSuchMethodException e) {
+			throw new ConversionException("No default constructor in: " + clazz, e);
+		} catch (IllegalAccessException e) {
+			throw new ConversionException("Unable to access default constructor of: " + clazz, e);
+		}
+
+		return new Supplier<T>() {
+
+			@Override
+			public T get() {
+				try {
+					return clazz.cast(constructor.invokeExact());
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new UndeclaredThrowableException(e);
+				}
+			}
+		};
+	}
+
+	private static final class GeneratedRowHydrator<T> implements RowHydrator<T> {
+
+		private final Class<T> clazz;
+		private final Supplier<T> constructor;
+		private final BiConsumer<Object, Object>[] setters;
+		private final String[] names;
+		private final boolean[] primitives;
+		private final Class<?>[] types;
+
+		private GeneratedRowHydrator(Class<T> clazz, Supplier<T> constructor, BiConsumer<Object, Object>[] setters,
+				String[] names, boolean[] primitives, Class<?>[] types) {
+			this.clazz = clazz;
+			this.constructor = constructor;
+			this.setters = setters;
+			this.names = names;
+			this.primitives = primitives;
+			this.types = types;
+		}
+
+		@Override
+		public T hydrate(Object[] row) throws ConversionException {
+			T object;
+			try {
+				object = constructor.get();
+			} catch (UndeclaredThrowableException e) {
+				throw new ConversionException("Unable to instantiate: " + clazz, e.getCause());
+			}
+
+			for (int index = 0; index < setters.length; index++) {
+				Object value = row[index];
+
+				// leave primitives at their default rather than fail on null
+				if (value == null && primitives[index]) {
+					continue;
+				}
+
+				// checked up front, a ClassCastException of the setter itself is its own
+				if (value != null && !types[index].isInstance(value)) {
+					throw new ConversionException("Could not place: " + value.getClass() + " in property: "
+							+ names[index]);
+				}
+
+				try {
+					setters[index].accept(object, value);
+				} catch (UndeclaredThrowableException e) {
+					throw new ConversionException("Could not set property: " + names[index], e.getCause());
+				}
+			}
+
+			return object;
+		}
+	}
+
+}
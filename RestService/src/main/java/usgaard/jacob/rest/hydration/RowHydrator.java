@@ -0,0 +1,22 @@
+package usgaard.jacob.rest.hydration;
+
+import usgaard.jacob.rest.exception.ConversionException;
+
+/**
+ * Turns one projected result row into an object.
+ *
+ * @param <T>
+ * @see HydratorFactory
+ */
+public interface RowHydrator<T> {
+
+	/**
+	 * @param row
+	 *            the projected values, in projection order
+	 * @return a new object holding the values of row
+	 * @throws ConversionException
+	 *             if a value does not fit its property
+	 */
+	public T hydrate(Object[] row) throws ConversionException;
+
+}
@@ -0,0 +1,199 @@
+package usgaard.jacob.rest.metadata;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The property table of a single class, built once through the
+ * {@link Introspector} and then shared by every request against that class.
+ * The synthetic {@code class} property is excluded.
+ *
+ * @see ClassMetadataRegistry
+ */
+public final class ClassMetadata {
+
+	private final Class<?> type;
+	private final List<PropertyMetadata> properties;
+	private final Map<String, PropertyMetadata> propertiesByName;
+	private final Map<String, PropertyMetadata> propertiesByLookupKey;
+	private final PropertyMetadata identifierProperty;
+	private final Set<String> indexedProperties;
+
+	ClassMetadata(Class<?> type) throws IntrospectionException {
+		this.type = type;
+
+		PropertyDescriptor[] propertyDescriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+		List<PropertyMetadata> properties = new ArrayList<PropertyMetadata>(propertyDescriptors.length);
+		Map<String, PropertyMetadata> propertiesByName = new HashMap<String, PropertyMetadata>();
+		Map<String, PropertyMetadata> propertiesByLookupKey = new HashMap<String, PropertyMetadata>();
+		PropertyMetadata identifierProperty = null;
+
+		for (PropertyDescriptor propertyDescriptor : propertyDescriptors) {
+			if ("class".equals(propertyDescriptor.getName())) {
+				continue;
+			}
+
+			PropertyMetadata propertyMetadata;
+			try {
+				propertyMetadata = new PropertyMetadata(propertyDescriptor,
+						findField(type, propertyDescriptor.getName()));
+			} catch (IllegalAccessException e) {
+				IntrospectionException introspectionException = new IntrospectionException(
+						"Unable to access property: " + propertyDescriptor.getName() + " of: " + type);
+				introspectionException.initCause(e);
+				throw introspectionException;
+			}
+
+			if (identifierProperty == null && (propertyMetadata.getAnnotation(Id.class) != null
+					|| propertyMetadata.getAnnotation(EmbeddedId.class) != null)) {
+				identifierProperty = propertyMetadata;
+			}
+
+			properties.add(propertyMetadata);
+			propertiesByName.put(propertyMetadata.getName(), propertyMetadata);
+
+			// the first property wins if two only differ in case
+			if (!propertiesByLookupKey.containsKey(propertyMetadata.getLookupKey())) {
+				propertiesByLookupKey.put(propertyMetadata.getLookupKey(), propertyMetadata);
+			}
+		}
+
+		this.properties = Collections.unmodifiableList(properties);
+		this.propertiesByName = propertiesByName;
+		this.propertiesByLookupKey = propertiesByLookupKey;
+		this.identifierProperty = identifierProperty;
+		this.indexedProperties = Collections.unmodifiableSet(findIndexedProperties(type, properties, identifierProperty));
+	}
+
+	/**
+	 * A property is indexed if it is the identifier, if its column is unique,
+	 * or if its column leads an index or unique constraint of the {@link Table}
+	 * of the class or of a superclass. Later columns of a composite index do not
+	 * make a property indexed on their own.
+	 */
+	private static Set<String> findIndexedProperties(Class<?> type, List<PropertyMetadata> properties,
+			PropertyMetadata identifierProperty) {
+		Set<String> leadingColumns = new HashSet<String>();
+		for (Class<?> declaringClass = type; declaringClass != null; declaringClass = declaringClass.getSuperclass()) {
+			Table table = declaringClass.getAnnotation(Table.class);
+
+			if (table == null) {
+				continue;
+			}
+
+			for (Index index : table.indexes()) {
+				String columnList = index.columnList().trim();
+				int end = 0;
+				while (end < columnList.length() && columnList.charAt(end) != ','
+						&& !Character.isWhitespace(columnList.charAt(end))) {
+					end++;
+				}
+				leadingColumns.add(columnList.substring(0, end).toLowerCase(Locale.ROOT));
+			}
+
+			for (UniqueConstraint uniqueConstraint : table.uniqueConstraints()) {
+				if (uniqueConstraint.columnNames().length > 0) {
+					leadingColumns.add(uniqueConstraint.columnNames()[0].trim().toLowerCase(Locale.ROOT));
+				}
+			}
+		}
+
+		Set<String> indexedProperties = new HashSet<String>();
+		for (PropertyMetadata propertyMetadata : properties) {
+			Column column = propertyMetadata.getAnnotation(Column.class);
+			String columnName = column == null || column.name().isEmpty() ? propertyMetadata.getName()
+					: column.name();
+
+			if (propertyMetadata == identifierProperty || (column != null && column.unique())
+					|| leadingColumns.contains(columnName.toLowerCase(Locale.ROOT))) {
+				indexedProperties.add(propertyMetadata.getName());
+			}
+		}
+
+		return indexedProperties;
+	}
+
+	private static Field findField(Class<?> type, String name) {
+		for (Class<?> declaringClass = type; declaringClass != null; declaringClass = declaringClass.getSuperclass()) {
+			try {
+				return declaringClass.getDeclaredField(name);
+			} catch (NoSuchFieldException e) {
+				continue;
+			}
+		}
+
+		return null;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return every property of the class in {@link Introspector} order
+	 */
+	public List<PropertyMetadata> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @param name
+	 *            the exact property name
+	 * @return the property, or null if there is none by that name
+	 */
+	public PropertyMetadata getProperty(String name) {
+		return name == null ? null : propertiesByName.get(name);
+	}
+
+	/**
+	 * @param name
+	 *            the property name in any case
+	 * @return the property, or null if there is none by that name
+	 */
+	public PropertyMetadata findProperty(String name) {
+		return name == null ? null : propertiesByLookupKey.get(PropertyMetadata.toLookupKey(name));
+	}
+
+	/**
+	 * @return the property annotated with {@link Id} or {@link EmbeddedId}, or
+	 *         null if there is none
+	 */
+	public PropertyMetadata getIdentifierProperty() {
+		return identifierProperty;
+	}
+
+	/**
+	 * @return the names of the properties the database can look up or sort by
+	 *         through an index, as far as the JPA annotations tell
+	 */
+	public Set<String> getIndexedProperties() {
+		return indexedProperties;
+	}
+
+	public boolean isIndexed(String name) {
+		return indexedProperties.contains(name);
+	}
+
+	@Override
+	public String toString() {
+		return "ClassMetadata [type=" + type + ", properties=" + properties.size() + "]";
+	}
+
+}
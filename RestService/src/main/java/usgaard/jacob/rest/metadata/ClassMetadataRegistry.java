@@ -0,0 +1,97 @@
+package usgaard.jacob.rest.metadata;
+
+import java.beans.IntrospectionException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared cache of {@link ClassMetadata}. Each class is introspected at most
+ * once and the result is attached to the class itself through a
+ * {@link ClassValue}, so lookups never block each other and the metadata is
+ * dropped together with the class when its class loader is unloaded.
+ */
+public final class ClassMetadataRegistry {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassMetadataRegistry.class);
+
+	private static final ClassValue<ClassMetadata> CLASS_METADATA = new ClassValue<ClassMetadata>() {
+
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			try {
+				ClassMetadata classMetadata = new ClassMetadata(type);
+				LOGGER.debug("introspected: {}", classMetadata);
+				return classMetadata;
+			} catch (IntrospectionException e) {
+				throw new MetadataException(e);
+			}
+		}
+	};
+
+	private ClassMetadataRegistry() {
+	}
+
+	/**
+	 * @param clazz
+	 * @return the metadata of clazz, introspecting it on first use
+	 * @throws IntrospectionException
+	 *             if clazz could not be introspected
+	 */
+	public static ClassMetadata getClassMetadata(Class<?> clazz) throws IntrospectionException {
+		try {
+			return CLASS_METADATA.get(clazz);
+		} catch (MetadataException e) {
+			throw (IntrospectionException) e.getCause();
+		}
+	}
+
+	/**
+	 * Introspects the given classes ahead of time so the first request against
+	 * them does not pay for it.
+	 *
+	 * @param classes
+	 * @throws IntrospectionException
+	 */
+	public static void warmUp(Class<?>... classes) throws IntrospectionException {
+		warmUp(Arrays.asList(classes));
+	}
+
+	/**
+	 * @see #warmUp(Class...)
+	 * @param classes
+	 * @throws IntrospectionException
+	 */
+	public static void warmUp(Collection<Class<?>> classes) throws IntrospectionException {
+		for (Class<?> clazz : classes) {
+			getClassMetadata(clazz);
+		}
+	}
+
+	/**
+	 * Drops the cached metadata of clazz, e.g. after it has been redefined. The
+	 * next lookup introspects the class again.
+	 *
+	 * @param clazz
+	 */
+	public static void evict(Class<?> clazz) {
+		CLASS_METADATA.remove(clazz);
+	}
+
+	/**
+	 * Carries an {@link IntrospectionException} out of
+	 * {@link ClassValue#computeValue(Class)}, which cannot throw checked
+	 * exceptions. Failures are not cached.
+	 */
+	private static final class MetadataException extends RuntimeException {
+
+		private static final long serialVersionUID = -2404937806137513306L;
+
+		private MetadataException(IntrospectionException cause) {
+			super(cause);
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package usgaard.jacob.rest.metadata;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Introspection results for a single bean property. Instances are built once
+ * per class by the {@link ClassMetadataRegistry} and are immutable, so they can
+ * be shared freely between threads and requests.
+ *
+ * @see ClassMetadata
+ */
+public final class PropertyMetadata {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final PropertyDescriptor propertyDescriptor;
+	private final String name;
+	private final String lookupKey;
+	private final Class<?> type;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+	private final Field field;
+
+	PropertyMetadata(PropertyDescriptor propertyDescriptor, Field field) throws IllegalAccessException {
+		this.propertyDescriptor = propertyDescriptor;
+		this.field = field;
+		this.name = propertyDescriptor.getName();
+		this.lookupKey = toLookupKey(this.name);
+		this.type = propertyDescriptor.getPropertyType();
+		this.getter = unreflect(propertyDescriptor.getReadMethod(), GETTER_TYPE);
+		this.setter = unreflect(propertyDescriptor.getWriteMethod(), SETTER_TYPE);
+	}
+
+	private static MethodHandle unreflect(Method method, MethodType methodType) throws IllegalAccessException {
+		if (method == null) {
+			return null;
+		}
+
+		try {
+			return MethodHandles.publicLookup().unreflect(method).asType(methodType);
+		} catch (IllegalAccessException e) {
+			// non-public bean classes still expose public accessors
+			method.setAccessible(true);
+			return MethodHandles.lookup().unreflect(method).asType(methodType);
+		}
+	}
+
+	/**
+	 * Normalizes a property or parameter name for case-insensitive lookups.
+	 *
+	 * @param name
+	 * @return the lower-cased name, or null if name is null
+	 */
+	public static String toLookupKey(String name) {
+		return name == null ? null : name.toLowerCase(Locale.ROOT);
+	}
+
+	public PropertyDescriptor getPropertyDescriptor() {
+		return propertyDescriptor;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getLookupKey() {
+		return lookupKey;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return a handle of type {@code (Object)Object}, or null if the property
+	 *         is not readable
+	 */
+	public MethodHandle getGetter() {
+		return getter;
+	}
+
+	/**
+	 * @return a handle of type {@code (Object, Object)void}, or null if the
+	 *         property is not writable
+	 */
+	public MethodHandle getSetter() {
+		return setter;
+	}
+
+	/**
+	 * Looks for an annotation on the getter, the setter and the field backing
+	 * the property, in that order, as JPA mappings may be placed on either.
+	 *
+	 * @param annotationType
+	 * @return the annotation, or null if the property does not have it
+	 */
+	public <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+		A annotation = null;
+
+		if (propertyDescriptor.getReadMethod() != null) {
+			annotation = propertyDescriptor.getReadMethod().getAnnotation(annotationType);
+		}
+
+		if (annotation == null && propertyDescriptor.getWriteMethod() != null) {
+			annotation = propertyDescriptor.getWriteMethod().getAnnotation(annotationType);
+		}
+
+		if (annotation == null && field != null) {
+			annotation = field.getAnnotation(annotationType);
+		}
+
+		return annotation;
+	}
+
+	@Override
+	public String toString() {
+		return "PropertyMetadata [name=" + name + ", type=" + type + "]";
+	}
+
+}
@@ -0,0 +1,192 @@
+package usgaard.jacob.rest.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps every measurement in memory, per root class, to be read back through
+ * {@link #getClassMetrics(Class)}. Recording never blocks; reading while
+ * recording is in progress gives a slightly inconsistent but usable view.
+ */
+public class InMemoryRestMetrics implements RestMetrics {
+
+	private final ConcurrentMap<Class<?>, ClassMetrics> classMetrics = new ConcurrentHashMap<Class<?>, ClassMetrics>();
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void recordStage(Class<?> rootClass, Stage stage, long nanos) {
+		getOrCreateClassMetrics(rootClass).stages.get(stage).record(nanos);
+	}
+
+	@Override
+	public void recordRows(Class<?> rootClass, int rows, int projectionWidth) {
+		ClassMetrics classMetrics = getOrCreateClassMetrics(rootClass);
+		classMetrics.rows.record(rows);
+		classMetrics.projectionWidth.record(projectionWidth);
+	}
+
+	@Override
+	public void recordQueryPlanCache(Class<?> rootClass, boolean hit) {
+		ClassMetrics classMetrics = getOrCreateClassMetrics(rootClass);
+		(hit ? classMetrics.queryPlanCacheHits : classMetrics.queryPlanCacheMisses).increment();
+	}
+
+	@Override
+	public void recordResultCache(Class<?> rootClass, boolean hit) {
+		ClassMetrics classMetrics = getOrCreateClassMetrics(rootClass);
+		(hit ? classMetrics.resultCacheHits : classMetrics.resultCacheMisses).increment();
+	}
+
+	@Override
+	public void recordCoalesced(Class<?> rootClass) {
+		getOrCreateClassMetrics(rootClass).coalesced.increment();
+	}
+
+	@Override
+	public void recordFailure(Class<?> rootClass, Stage stage, Exception exception) {
+		getOrCreateClassMetrics(rootClass).failures.get(stage).increment();
+	}
+
+	/**
+	 * @param rootClass
+	 * @return the measurements of rootClass, or null if none were recorded
+	 */
+	public ClassMetrics getClassMetrics(Class<?> rootClass) {
+		return classMetrics.get(rootClass);
+	}
+
+	/**
+	 * @return the measurements of every root class recorded so far
+	 */
+	public Map<Class<?>, ClassMetrics> getClassMetrics() {
+		return Collections.unmodifiableMap(classMetrics);
+	}
+
+	public void reset() {
+		classMetrics.clear();
+	}
+
+	private ClassMetrics getOrCreateClassMetrics(Class<?> rootClass) {
+		ClassMetrics metrics = classMetrics.get(rootClass);
+
+		if (metrics == null) {
+			ClassMetrics created = new ClassMetrics();
+			metrics = classMetrics.putIfAbsent(rootClass, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+
+		return metrics;
+	}
+
+	/**
+	 * The measurements of one root class.
+	 */
+	public static final class ClassMetrics {
+		private final Map<Stage, Histogram> stages = new EnumMap<Stage, Histogram>(Stage.class);
+		private final Map<Stage, LongAdder> failures = new EnumMap<Stage, LongAdder>(Stage.class);
+		private final Histogram rows = new Histogram();
+		private final Histogram projectionWidth = new Histogram();
+		private final LongAdder queryPlanCacheHits = new LongAdder();
+		private final LongAdder queryPlanCacheMisses = new LongAdder();
+		private final LongAdder resultCacheHits = new LongAdder();
+		private final LongAdder resultCacheMisses = new LongAdder();
+		private final LongAdder coalesced = new LongAdder();
+
+		private ClassMetrics() {
+			// filled up front so recording only ever reads the maps
+			for (Stage stage : Stage.values()) {
+				stages.put(stage, new Histogram());
+				failures.put(stage, new LongAdder());
+			}
+		}
+
+		/**
+		 * @param stage
+		 * @return the latencies of stage in nanoseconds
+		 */
+		public Histogram getStage(Stage stage) {
+			return stages.get(stage);
+		}
+
+		public long getFailureCount(Stage stage) {
+			return failures.get(stage).sum();
+		}
+
+		/**
+		 * @return the number of rows per request
+		 */
+		public Histogram getRows() {
+			return rows;
+		}
+
+		/**
+		 * @return the number of columns per request
+		 */
+		public Histogram getProjectionWidth() {
+			return projectionWidth;
+		}
+
+		public long getQueryPlanCacheHitCount() {
+			return queryPlanCacheHits.sum();
+		}
+
+		public long getQueryPlanCacheMissCount() {
+			return queryPlanCacheMisses.sum();
+		}
+
+		public long getResultCacheHitCount() {
+			return resultCacheHits.sum();
+		}
+
+		public long getResultCacheMissCount() {
+			return resultCacheMisses.sum();
+		}
+
+		/**
+		 * @return the number of executions saved by sharing an equal execution
+		 *         in flight
+		 */
+		public long getCoalescedCount() {
+			return coalesced.sum();
+		}
+
+		/**
+		 * @return the share of query plan lookups that hit, or 0 if there were
+		 *         none
+		 */
+		public double getQueryPlanCacheHitRate() {
+			long hits = getQueryPlanCacheHitCount();
+			long requests = hits + getQueryPlanCacheMissCount();
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+
+		/**
+		 * @return the share of result cache lookups that hit, or 0 if there
+		 *         were none
+		 */
+		public double getResultCacheHitRate() {
+			long hits = getResultCacheHitCount();
+			long requests = hits + getResultCacheMissCount();
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "ClassMetrics [stages=" + stages + ", failures=" + failures + ", rows=" + rows
+					+ ", projectionWidth=" + projectionWidth + ", queryPlanCacheHitRate="
+					+ getQueryPlanCacheHitRate() + ", resultCacheHitRate=" + getResultCacheHitRate() + ", coalesced="
+					+ coalesced + "]";
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package usgaard.jacob.rest.metrics;
+
+/**
+ * The default {@link RestMetrics}: disabled, so no measurement is taken.
+ */
+public final class NoOpRestMetrics implements RestMetrics {
+
+	public static final NoOpRestMetrics INSTANCE = new NoOpRestMetrics();
+
+	private NoOpRestMetrics() {
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	@Override
+	public void recordStage(Class<?> rootClass, Stage stage, long nanos) {
+	}
+
+	@Override
+	public void recordRows(Class<?> rootClass, int rows, int projectionWidth) {
+	}
+
+	@Override
+	public void recordQueryPlanCache(Class<?> rootClass, boolean hit) {
+	}
+
+	@Override
+	public void recordFailure(Class<?> rootClass, Stage stage, Exception exception) {
+	}
+
+}
@@ -0,0 +1,72 @@
+package usgaard.jacob.rest.metrics;
+
+/**
+ * Receives the measurements of every conversion, tagged by the root class of
+ * the request. Implementations are called concurrently from every thread using
+ * the service and must not block.
+ *
+ * @see NoOpRestMetrics
+ * @see InMemoryRestMetrics
+ */
+public interface RestMetrics {
+
+	/**
+	 * @return false to skip taking measurements at all, in which case none of
+	 *         the other methods are called
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * @param rootClass
+	 * @param stage
+	 * @param nanos
+	 *            the time spent in stage
+	 */
+	public void recordStage(Class<?> rootClass, Stage stage, long nanos);
+
+	/**
+	 * @param rootClass
+	 * @param rows
+	 *            the number of rows read
+	 * @param projectionWidth
+	 *            the number of columns per row
+	 */
+	public void recordRows(Class<?> rootClass, int rows, int projectionWidth);
+
+	/**
+	 * @param rootClass
+	 * @param hit
+	 *            whether a cached query plan was found
+	 */
+	public void recordQueryPlanCache(Class<?> rootClass, boolean hit);
+
+	/**
+	 * Called for each lookup of the result cache. Ignored unless overridden,
+	 * so earlier implementations still compile.
+	 *
+	 * @param rootClass
+	 * @param hit
+	 *            whether current rows were found
+	 */
+	public default void recordResultCache(Class<?> rootClass, boolean hit) {
+	}
+
+	/**
+	 * Called for each request that shared the execution of an equal request in
+	 * flight instead of running its own. Ignored unless overridden, so earlier
+	 * implementations still compile.
+	 *
+	 * @param rootClass
+	 */
+	public default void recordCoalesced(Class<?> rootClass) {
+	}
+
+	/**
+	 * @param rootClass
+	 * @param stage
+	 *            the stage that failed
+	 * @param exception
+	 */
+	public void recordFailure(Class<?> rootClass, Stage stage, Exception exception);
+
+}
@@ -0,0 +1,22 @@
+package usgaard.jacob.rest.metrics;
+
+/**
+ * The stages of a conversion that {@link RestMetrics} records separately.
+ */
+public enum Stage {
+	/** Tokenizing the query into parameter mappings. */
+	PARSE,
+	/**
+	 * Resolving parameters against properties, through a query plan when the
+	 * query plan cache is enabled.
+	 */
+	PLAN,
+	/** Building the Hibernate criteria. */
+	CRITERIA,
+	/** Running the SQL and reading the rows. */
+	EXECUTION,
+	/** Placing the rows into objects. */
+	HYDRATION,
+	/** Counting the rows of every page. */
+	COUNT;
+}
@@ -0,0 +1,266 @@
+package usgaard.jacob.rest.plan;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import usgaard.jacob.rest.FieldMapper;
+import usgaard.jacob.rest.FilterMapper;
+import usgaard.jacob.rest.OrderMapper;
+import usgaard.jacob.rest.ParameterMapper;
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.TypeGenerator;
+import usgaard.jacob.rest.conversion.ConverterRegistry;
+import usgaard.jacob.rest.conversion.ValueConverter;
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.request.Cursor;
+import usgaard.jacob.rest.request.FieldMapping;
+import usgaard.jacob.rest.request.IndexedParameterMappings;
+import usgaard.jacob.rest.request.OrderMapping;
+import usgaard.jacob.rest.request.ParameterMapping;
+import usgaard.jacob.rest.request.RestRequest;
+import usgaard.jacob.rest.request.SearchCriterion;
+import usgaard.jacob.rest.request.Total;
+
+/**
+ * Everything about a query that only depends on its {@link QueryShape}: the
+ * field and order mappings and, for each parameter position, the property and
+ * operator it filters on. Filter expressions are parsed at bind time, since
+ * their values are part of the expression. Binding a plan to the values of a query of the same
+ * shape yields the same {@link RestRequest} as converting that query from
+ * scratch, without introspection or property resolution.
+ *
+ * <p>
+ * Plans are immutable and may be shared between threads.
+ * </p>
+ */
+public final class QueryPlan {
+
+	private final Class<?> rootClass;
+	private final List<Binding> bindings;
+	private final List<FieldMapping<PropertyDescriptor>> fieldMappings;
+	private final List<OrderMapping<PropertyDescriptor>> orderMappings;
+	private final List<FieldMapping<PropertyDescriptor>> groupMappings;
+	private final int startPosition;
+	private final int limitPosition;
+	private final int afterPosition;
+	private final int totalPosition;
+	private final FilterMapper<PropertyDescriptor, Operator, Object> filterMapper;
+	private final String filterParameterIdentifier;
+
+	private QueryPlan(Class<?> rootClass, List<Binding> bindings, List<FieldMapping<PropertyDescriptor>> fieldMappings,
+			List<OrderMapping<PropertyDescriptor>> orderMappings,
+			List<FieldMapping<PropertyDescriptor>> groupMappings, int startPosition, int limitPosition,
+			int afterPosition, int totalPosition, FilterMapper<PropertyDescriptor, Operator, Object> filterMapper,
+			String filterParameterIdentifier) {
+		this.rootClass = rootClass;
+		this.bindings = Collections.unmodifiableList(bindings);
+		this.fieldMappings = Collections.unmodifiableList(fieldMappings);
+		this.orderMappings = Collections.unmodifiableList(orderMappings);
+		this.groupMappings = Collections.unmodifiableList(groupMappings);
+		this.startPosition = startPosition;
+		this.limitPosition = limitPosition;
+		this.afterPosition = afterPosition;
+		this.totalPosition = totalPosition;
+		this.filterMapper = filterMapper;
+		this.filterParameterIdentifier = filterParameterIdentifier;
+	}
+
+	/**
+	 * Resolves a query into a plan for all queries of the same shape.
+	 *
+	 * @param rootClass
+	 * @param parameterMappings
+	 * @param parameterMapper
+	 *            the mapper that produced parameterMappings, for the names of
+	 *            the reserved parameters
+	 * @param typeGenerator
+	 *            if a {@link ConverterRegistry}, the converter of each filtered
+	 *            property is resolved here once
+	 * @param fieldMapper
+	 * @param orderMapper
+	 * @param filterMapper
+	 *            the mapper of the filter parameter, or null to treat it like
+	 *            any other parameter
+	 * @return the plan
+	 * @throws IntrospectionException
+	 * @throws ConversionException
+	 */
+	public static QueryPlan compile(Class<?> rootClass, List<ParameterMapping<String, Operator, Object>> parameterMappings,
+			ParameterMapper<String, Operator, Object> parameterMapper, TypeGenerator typeGenerator,
+			FieldMapper<PropertyDescriptor> fieldMapper, OrderMapper<PropertyDescriptor> orderMapper,
+			FilterMapper<PropertyDescriptor, Operator, Object> filterMapper)
+			throws IntrospectionException, ConversionException {
+		ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(rootClass);
+		IndexedParameterMappings<String, Operator, Object> indexedParameterMappings = IndexedParameterMappings
+				.of(parameterMappings);
+		List<Binding> bindings = new ArrayList<Binding>();
+		ConverterRegistry converterRegistry = typeGenerator instanceof ConverterRegistry
+				? (ConverterRegistry) typeGenerator : null;
+
+		for (SearchParameterGroup group : SearchParameterGroup.group(classMetadata, indexedParameterMappings)) {
+			bindings.add(new Binding(group, converterRegistry == null ? null
+					: converterRegistry.getConverter(group.getPropertyMetadata().getType())));
+		}
+
+		// group by the plain fields only, as RestService does
+		List<FieldMapping<PropertyDescriptor>> groupMappings = new ArrayList<FieldMapping<PropertyDescriptor>>();
+		if (indexedParameterMappings.find(parameterMapper.getGroupParameterIdentifier()) != null) {
+			for (FieldMapping<PropertyDescriptor> groupMapping : fieldMapper.generateFieldMappings(rootClass,
+					indexedParameterMappings, typeGenerator, parameterMapper.getGroupParameterIdentifier())) {
+				if (groupMapping.getAggregate() == null) {
+					groupMappings.add(groupMapping);
+				}
+			}
+		}
+
+		return new QueryPlan(rootClass, bindings,
+				fieldMapper.generateFieldMappings(rootClass, indexedParameterMappings, typeGenerator,
+						parameterMapper.getFieldsParameterIdentifier()),
+				orderMapper.generateOrderMappings(rootClass, indexedParameterMappings, typeGenerator,
+						parameterMapper.getOrderParameterIdentifier()),
+				groupMappings,
+				positionOf(indexedParameterMappings, parameterMapper.getStartParameterIdentifier()),
+				positionOf(indexedParameterMappings, parameterMapper.getLimitParameterIdentifier()),
+				positionOf(indexedParameterMappings, parameterMapper.getAfterParameterIdentifier()),
+				positionOf(indexedParameterMappings, parameterMapper.getTotalParameterIdentifier()),
+				filterMapper != null && indexedParameterMappings.find(parameterMapper.getFilterParameterIdentifier()) != null
+						? filterMapper : null,
+				parameterMapper.getFilterParameterIdentifier());
+	}
+
+	private static int positionOf(IndexedParameterMappings<String, Operator, Object> parameterMappings,
+			String identifier) {
+		ParameterMapping<String, Operator, Object> parameterMapping = parameterMappings.find(identifier);
+		return parameterMapping == null ? -1 : parameterMappings.indexOf(parameterMapping);
+	}
+
+	/**
+	 * @param parameterMappings
+	 *            the parameters of a query with the shape of this plan
+	 * @param typeGenerator
+	 * @param defaultStart
+	 * @param defaultLimit
+	 * @return a new request with the values of parameterMappings
+	 * @throws ConversionException
+	 * @throws ParameterException
+	 *             if the cursor, a filter or the total is malformed
+	 * @throws IntrospectionException
+	 */
+	public RestRequest<PropertyDescriptor, Operator, Object> bind(
+			List<ParameterMapping<String, Operator, Object>> parameterMappings, TypeGenerator typeGenerator,
+			int defaultStart, int defaultLimit) throws ConversionException, ParameterException, IntrospectionException {
+		RestRequest<PropertyDescriptor, Operator, Object> restRequest = new RestRequest<PropertyDescriptor, Operator, Object>();
+		restRequest.setRootClass(rootClass);
+
+		List<SearchCriterion<PropertyDescriptor, Operator, Object>> searchCriteria = new LinkedList<SearchCriterion<PropertyDescriptor, Operator, Object>>();
+		for (Binding binding : bindings) {
+			Object value;
+
+			if (binding.list) {
+				List<Object> values = new ArrayList<Object>();
+				for (int position : binding.positions) {
+					Object element = parameterMappings.get(position).getValue();
+
+					if (element instanceof Collection) {
+						for (Object listElement : (Collection<?>) element) {
+							values.add(binding.convert(listElement, typeGenerator));
+						}
+					} else {
+						values.add(binding.convert(element, typeGenerator));
+					}
+				}
+				value = values;
+			} else {
+				value = binding.convert(parameterMappings.get(binding.positions.get(0)).getValue(), typeGenerator);
+			}
+
+			searchCriteria.add(new SearchCriterion<PropertyDescriptor, Operator, Object>(binding.propertyDescriptor,
+					binding.operator, value));
+		}
+
+		if (filterMapper != null) {
+			SearchCriterion<PropertyDescriptor, Operator, Object> filter = filterMapper.generateFilter(rootClass,
+					parameterMappings, typeGenerator, filterParameterIdentifier);
+
+			if (filter != null) {
+				searchCriteria.add(filter);
+			}
+		}
+		restRequest.setSearchCriteria(searchCriteria);
+
+		// the mappings are mutable, so every request gets its own
+		List<FieldMapping<PropertyDescriptor>> fieldMappings = new LinkedList<FieldMapping<PropertyDescriptor>>();
+		for (FieldMapping<PropertyDescriptor> fieldMapping : this.fieldMappings) {
+			fieldMappings.add(new FieldMapping<PropertyDescriptor>(fieldMapping.getIdentifier(),
+					fieldMapping.getAggregate()));
+		}
+		restRequest.setFieldMappings(fieldMappings);
+
+		for (FieldMapping<PropertyDescriptor> groupMapping : this.groupMappings) {
+			restRequest.getGroupMappings().add(new FieldMapping<PropertyDescriptor>(groupMapping.getIdentifier()));
+		}
+
+		List<OrderMapping<PropertyDescriptor>> orderMappings = new LinkedList<OrderMapping<PropertyDescriptor>>();
+		for (OrderMapping<PropertyDescriptor> orderMapping : this.orderMappings) {
+			orderMappings.add(new OrderMapping<PropertyDescriptor>(orderMapping.getIdentifier(), orderMapping.getSort()));
+		}
+		restRequest.setOrderMappings(orderMappings);
+
+		restRequest.setStart(startPosition < 0 ? defaultStart
+				: typeGenerator.generateType(int.class, parameterMappings.get(startPosition).getValue()));
+		restRequest.setLimit(limitPosition < 0 ? defaultLimit
+				: typeGenerator.generateType(int.class, parameterMappings.get(limitPosition).getValue()));
+
+		if (afterPosition >= 0) {
+			restRequest.setAfter(Cursor.decode(
+					typeGenerator.generateType(String.class, parameterMappings.get(afterPosition).getValue())));
+		}
+
+		if (totalPosition >= 0) {
+			restRequest.setTotal(Total.of(
+					typeGenerator.generateType(String.class, parameterMappings.get(totalPosition).getValue())));
+		}
+
+		return restRequest;
+	}
+
+	public Class<?> getRootClass() {
+		return rootClass;
+	}
+
+	/**
+	 * A search criterion waiting for the values at its parameter positions. Only
+	 * in and not in filters have more than one position.
+	 */
+	private static final class Binding {
+		private final List<Integer> positions;
+		private final PropertyDescriptor propertyDescriptor;
+		private final Class<?> type;
+		private final Operator operator;
+		private final boolean list;
+		private final ValueConverter<?> converter;
+
+		private Binding(SearchParameterGroup group, ValueConverter<?> converter) {
+			this.positions = group.getPositions();
+			this.propertyDescriptor = group.getPropertyMetadata().getPropertyDescriptor();
+			this.type = group.getPropertyMetadata().getType();
+			this.operator = group.getOperator();
+			this.list = group.isList();
+			this.converter = converter;
+		}
+
+		private Object convert(Object value, TypeGenerator typeGenerator) throws ConversionException {
+			return converter != null && value instanceof CharSequence ? converter.convert((CharSequence) value)
+					: typeGenerator.generateType(type, value);
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package usgaard.jacob.rest.plan;
+
+import java.util.Arrays;
+import java.util.List;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * The normalized form of a query: its root class and, for each parameter in
+ * order, the case-insensitive name and the operator. Values are left out
+ * except for the structural parameters (e.g. fields and order) that change the
+ * plan, so {@code age>=10&fields=age} and {@code age>=99&fields=age} have the
+ * same shape.
+ *
+ * @see QueryPlan
+ */
+public final class QueryShape {
+
+	private final Class<?> rootClass;
+	private final String[] identifiers;
+	private final Operator[] operators;
+	private final String[] structuralValues;
+	private final int hashCode;
+
+	private QueryShape(Class<?> rootClass, String[] identifiers, Operator[] operators, String[] structuralValues) {
+		this.rootClass = rootClass;
+		this.identifiers = identifiers;
+		this.operators = operators;
+		this.structuralValues = structuralValues;
+
+		int hashCode = rootClass.hashCode();
+		hashCode = 31 * hashCode + Arrays.hashCode(identifiers);
+		hashCode = 31 * hashCode + Arrays.hashCode(operators);
+		hashCode = 31 * hashCode + Arrays.hashCode(structuralValues);
+		this.hashCode = hashCode;
+	}
+
+	/**
+	 * @param rootClass
+	 * @param parameterMappings
+	 * @param structuralIdentifiers
+	 *            the names of the parameters whose values are part of the shape
+	 * @return the shape of the query
+	 */
+	public static QueryShape of(Class<?> rootClass, List<ParameterMapping<String, Operator, Object>> parameterMappings,
+			String... structuralIdentifiers) {
+		int size = parameterMappings.size();
+		String[] identifiers = new String[size];
+		Operator[] operators = new Operator[size];
+		String[] structuralValues = new String[size];
+
+		for (int index = 0; index < size; index++) {
+			ParameterMapping<String, Operator, Object> parameterMapping = parameterMappings.get(index);
+			identifiers[index] = PropertyMetadata.toLookupKey(parameterMapping.getIdentifier());
+			operators[index] = parameterMapping.getOperator();
+
+			for (String structuralIdentifier : structuralIdentifiers) {
+				if (identifiers[index] != null && identifiers[index].equalsIgnoreCase(structuralIdentifier)) {
+					Object value = parameterMapping.getValue();
+					structuralValues[index] = value == null ? null : value.toString();
+					break;
+				}
+			}
+		}
+
+		return new QueryShape(rootClass, identifiers, operators, structuralValues);
+	}
+
+	public Class<?> getRootClass() {
+		return rootClass;
+	}
+
+	/**
+	 * @return the number of parameters in the query
+	 */
+	public int size() {
+		return identifiers.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof QueryShape)) {
+			return false;
+		}
+
+		QueryShape other = (QueryShape) obj;
+		return hashCode == other.hashCode && rootClass == other.rootClass
+				&& Arrays.equals(identifiers, other.identifiers) && Arrays.equals(operators, other.operators)
+				&& Arrays.equals(structuralValues, other.structuralValues);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(rootClass.getSimpleName()).append('[');
+
+		for (int index = 0; index < identifiers.length; index++) {
+			if (index > 0) {
+				builder.append('&');
+			}
+
+			builder.append(identifiers[index]).append(operators[index])
+					.append(structuralValues[index] == null ? "?" : structuralValues[index]);
+		}
+
+		return builder.append(']').toString();
+	}
+
+}
@@ -0,0 +1,119 @@
+package usgaard.jacob.rest.plan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import usgaard.jacob.rest.RestService.Operator;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+import usgaard.jacob.rest.request.ParameterMapping;
+
+/**
+ * The positions of the parameters of a query that make up one search
+ * criterion. A name prefixed with {@code !} negates the operator, and equal
+ * filters on one property mean any of them, not all, so they are merged into
+ * one in filter, as are not equal filters into one not in filter.
+ *
+ * <p>
+ * Both the search criteria generator of {@link usgaard.jacob.rest.RestService}
+ * and {@link QueryPlan} group parameters this way, so a query is read the same
+ * whether its plan is cached or not.
+ * </p>
+ */
+public final class SearchParameterGroup {
+
+	private final PropertyMetadata propertyMetadata;
+	private Operator operator;
+	private final List<Integer> positions = new ArrayList<Integer>(1);
+
+	private SearchParameterGroup(PropertyMetadata propertyMetadata, Operator operator, int position) {
+		this.propertyMetadata = propertyMetadata;
+		this.operator = operator;
+		this.positions.add(position);
+	}
+
+	/**
+	 * @param classMetadata
+	 * @param parameterMappings
+	 * @return the groups of the parameters filtering on a property of
+	 *         classMetadata, in the order of their first parameter
+	 */
+	public static List<SearchParameterGroup> group(ClassMetadata classMetadata,
+			List<? extends ParameterMapping<?, ?, ?>> parameterMappings) {
+		List<SearchParameterGroup> groups = new ArrayList<SearchParameterGroup>();
+		Map<String, SearchParameterGroup> listGroups = new HashMap<String, SearchParameterGroup>();
+
+		for (int position = 0; position < parameterMappings.size(); position++) {
+			ParameterMapping<?, ?, ?> parameterMapping = parameterMappings.get(position);
+
+			if (!(parameterMapping.getIdentifier() instanceof String)) {
+				continue;
+			}
+
+			String name = (String) parameterMapping.getIdentifier();
+			boolean negated = name.startsWith("!");
+			PropertyMetadata propertyMetadata = classMetadata.findProperty(negated ? name.substring(1) : name);
+
+			if (propertyMetadata == null) {
+				continue;
+			}
+
+			Operator operator = parameterMapping.getOperator() instanceof Operator
+					? (Operator) parameterMapping.getOperator() : null;
+			if (negated && operator != null) {
+				operator = operator.negate();
+			}
+			Operator listOperator = operator == null ? null : operator.getListOperator();
+
+			if (listOperator != null) {
+				String key = propertyMetadata.getName() + ' ' + listOperator;
+				SearchParameterGroup listGroup = listGroups.get(key);
+
+				if (listGroup != null) {
+					listGroup.operator = listOperator;
+					listGroup.positions.add(position);
+					continue;
+				}
+			}
+
+			SearchParameterGroup group = new SearchParameterGroup(propertyMetadata, operator, position);
+			groups.add(group);
+
+			if (listOperator != null) {
+				listGroups.put(propertyMetadata.getName() + ' ' + listOperator, group);
+			}
+		}
+
+		return groups;
+	}
+
+	public PropertyMetadata getPropertyMetadata() {
+		return propertyMetadata;
+	}
+
+	/**
+	 * @return the operator of the criterion, in or not in if parameters were
+	 *         merged
+	 */
+	public Operator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * @return whether the values at every position are collected into one list
+	 */
+	public boolean isList() {
+		return operator == Operator.IN || operator == Operator.NOT_IN;
+	}
+
+	/**
+	 * @return the positions of the parameters, in order
+	 */
+	public List<Integer> getPositions() {
+		return Collections.unmodifiableList(positions);
+	}
+
+}
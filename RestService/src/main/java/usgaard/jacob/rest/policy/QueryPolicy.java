@@ -0,0 +1,390 @@
+package usgaard.jacob.rest.policy;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.request.CompositeSearchCriterion;
+import usgaard.jacob.rest.request.FieldMapping;
+import usgaard.jacob.rest.request.OrderMapping;
+import usgaard.jacob.rest.request.RestRequest;
+import usgaard.jacob.rest.request.SearchCriterion;
+
+/**
+ * Limits the cost of a request before any criteria are generated for it: the
+ * number of rows of a page, the number of search criteria, the number of
+ * projected columns and the properties that may be filtered or sorted by. A
+ * request breaking a rule is rejected with a {@link QueryPolicyException};
+ * only a limit above the maximum may be clamped instead.
+ *
+ * <p>
+ * With {@link Builder#indexedFilters(boolean)} or
+ * {@link Builder#indexedOrders(boolean)}, only the properties indexed according
+ * to {@link ClassMetadata#getIndexedProperties()} and those allowed through
+ * {@link Builder#allow(Class, String...)} may be used.
+ * </p>
+ *
+ * <p>
+ * A policy is immutable and may be shared.
+ * </p>
+ */
+public final class QueryPolicy {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(QueryPolicy.class);
+
+	private final int maximumLimit;
+	private final Map<Class<?>, Integer> maximumLimits;
+	private final boolean clampLimit;
+	private final int maximumCriteria;
+	private final int maximumProjectionWidth;
+	private final boolean indexedFilters;
+	private final boolean indexedOrders;
+	private final Map<Class<?>, Set<String>> allowedProperties;
+
+	private QueryPolicy(Builder builder) {
+		this.maximumLimit = builder.maximumLimit;
+		this.maximumLimits = new HashMap<Class<?>, Integer>(builder.maximumLimits);
+		this.clampLimit = builder.clampLimit;
+		this.maximumCriteria = builder.maximumCriteria;
+		this.maximumProjectionWidth = builder.maximumProjectionWidth;
+		this.indexedFilters = builder.indexedFilters;
+		this.indexedOrders = builder.indexedOrders;
+
+		this.allowedProperties = new HashMap<Class<?>, Set<String>>();
+		for (Map.Entry<Class<?>, Set<String>> entry : builder.allowedProperties.entrySet()) {
+			this.allowedProperties.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<String>(entry.getValue())));
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Checks every rule against restRequest, clamping its limit if so
+	 * configured.
+	 *
+	 * @param restRequest
+	 * @throws QueryPolicyException
+	 *             if restRequest breaks a rule
+	 * @throws IntrospectionException
+	 */
+	public void apply(RestRequest<PropertyDescriptor, ?, ?> restRequest)
+			throws QueryPolicyException, IntrospectionException {
+		Class<?> rootClass = restRequest.getRootClass();
+		int limit = this.getMaximumLimit(rootClass);
+
+		// a limit of 0 or less reads every row
+		if (limit > 0 && (restRequest.getLimit() <= 0 || restRequest.getLimit() > limit)) {
+			if (!clampLimit) {
+				throw new QueryPolicyException(QueryPolicyException.Violation.LIMIT,
+						"Limit: " + restRequest.getLimit() + " exceeds: " + limit + " for: " + rootClass);
+			}
+
+			LOGGER.debug("limit: {} clamped to: {} for: {}", restRequest.getLimit(), limit, rootClass);
+			restRequest.setLimit(limit);
+		}
+
+		this.applyToLookup(restRequest);
+	}
+
+	/**
+	 * Checks every rule but the limit, e.g. for a lookup by identifiers, whose
+	 * number rather than the limit bounds the rows read.
+	 *
+	 * @param restRequest
+	 * @throws QueryPolicyException
+	 *             if restRequest breaks a rule
+	 * @throws IntrospectionException
+	 */
+	public void applyToLookup(RestRequest<PropertyDescriptor, ?, ?> restRequest)
+			throws QueryPolicyException, IntrospectionException {
+		Class<?> rootClass = restRequest.getRootClass();
+
+		if (maximumProjectionWidth > 0) {
+			int width = getProjectionWidth(restRequest);
+			if (width > maximumProjectionWidth) {
+				throw new QueryPolicyException(QueryPolicyException.Violation.PROJECTION_WIDTH,
+						"Columns: " + width + " exceed: " + maximumProjectionWidth + " for: " + rootClass);
+			}
+		}
+
+		if (indexedOrders) {
+			ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(rootClass);
+
+			for (OrderMapping<PropertyDescriptor> orderMapping : restRequest.getOrderMappings()) {
+				String name = orderMapping.getIdentifier().getName();
+
+				if (orderMapping.getSort() != null && !this.isAllowed(classMetadata, name)) {
+					throw new QueryPolicyException(QueryPolicyException.Violation.ORDER,
+							"Unindexed property: " + name + " cannot be sorted by in: " + rootClass);
+				}
+			}
+		}
+
+		this.applyToCriteria(restRequest);
+	}
+
+	/**
+	 * Checks the rules on search criteria only, e.g. for counting.
+	 *
+	 * @param restRequest
+	 * @throws QueryPolicyException
+	 *             if the search criteria of restRequest break a rule
+	 * @throws IntrospectionException
+	 */
+	public void applyToCriteria(RestRequest<PropertyDescriptor, ?, ?> restRequest)
+			throws QueryPolicyException, IntrospectionException {
+		if (maximumCriteria <= 0 && !indexedFilters) {
+			return;
+		}
+
+		Class<?> rootClass = restRequest.getRootClass();
+		ClassMetadata classMetadata = indexedFilters ? ClassMetadataRegistry.getClassMetadata(rootClass) : null;
+		int criteria = this.checkCriteria(classMetadata, restRequest.getSearchCriteria(), rootClass);
+
+		if (maximumCriteria > 0 && criteria > maximumCriteria) {
+			throw new QueryPolicyException(QueryPolicyException.Violation.CRITERIA,
+					"Search criteria: " + criteria + " exceed: " + maximumCriteria + " for: " + rootClass);
+		}
+	}
+
+	/**
+	 * @return the number of leaf criteria of searchCriteria, a criterion on a
+	 *         list of values, e.g. IN, counting each value
+	 */
+	private <Operator, Value> int checkCriteria(ClassMetadata classMetadata,
+			List<? extends SearchCriterion<PropertyDescriptor, Operator, Value>> searchCriteria, Class<?> rootClass)
+			throws QueryPolicyException {
+		int criteria = 0;
+
+		for (SearchCriterion<PropertyDescriptor, Operator, Value> searchCriterion : searchCriteria) {
+			if (searchCriterion instanceof CompositeSearchCriterion) {
+				criteria += this.checkCriteria(classMetadata,
+						((CompositeSearchCriterion<PropertyDescriptor, Operator, Value>) searchCriterion).getChildren(),
+						rootClass);
+				continue;
+			}
+
+			String name = searchCriterion.getIdentifier().getName();
+			if (classMetadata != null && !this.isAllowed(classMetadata, name)) {
+				throw new QueryPolicyException(QueryPolicyException.Violation.FILTER,
+						"Unindexed property: " + name + " cannot be filtered by in: " + rootClass);
+			}
+
+			Value value = searchCriterion.getValue();
+			criteria += value instanceof Collection ? Math.max(1, ((Collection<?>) value).size()) : 1;
+		}
+
+		return criteria;
+	}
+
+	private boolean isAllowed(ClassMetadata classMetadata, String name) {
+		if (classMetadata.isIndexed(name)) {
+			return true;
+		}
+
+		for (Class<?> clazz = classMetadata.getType(); clazz != null; clazz = clazz.getSuperclass()) {
+			Set<String> names = allowedProperties.get(clazz);
+			if (names != null && names.contains(name)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return the number of columns selected by restRequest, grouped properties
+	 *         missing from the fields included
+	 */
+	private static int getProjectionWidth(RestRequest<PropertyDescriptor, ?, ?> restRequest) {
+		Set<String> plainFields = new HashSet<String>();
+		for (FieldMapping<PropertyDescriptor> fieldMapping : restRequest.getFieldMappings()) {
+			if (fieldMapping.getAggregate() == null) {
+				plainFields.add(fieldMapping.getIdentifier().getName());
+			}
+		}
+
+		int width = restRequest.getFieldMappings().size();
+		for (FieldMapping<PropertyDescriptor> groupMapping : restRequest.getGroupMappings()) {
+			if (plainFields.add(groupMapping.getIdentifier().getName())) {
+				width++;
+			}
+		}
+
+		return width;
+	}
+
+	/**
+	 * @param rootClass
+	 * @return the maximum limit of rootClass or of its nearest superclass with
+	 *         one, otherwise the default, 0 for no maximum
+	 */
+	public int getMaximumLimit(Class<?> rootClass) {
+		for (Class<?> clazz = rootClass; clazz != null; clazz = clazz.getSuperclass()) {
+			Integer limit = maximumLimits.get(clazz);
+			if (limit != null) {
+				return limit;
+			}
+		}
+
+		return maximumLimit;
+	}
+
+	public boolean isClampLimit() {
+		return clampLimit;
+	}
+
+	public int getMaximumCriteria() {
+		return maximumCriteria;
+	}
+
+	public int getMaximumProjectionWidth() {
+		return maximumProjectionWidth;
+	}
+
+	public boolean isIndexedFilters() {
+		return indexedFilters;
+	}
+
+	public boolean isIndexedOrders() {
+		return indexedOrders;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryPolicy [maximumLimit=" + maximumLimit + ", maximumLimits=" + maximumLimits + ", clampLimit="
+				+ clampLimit + ", maximumCriteria=" + maximumCriteria + ", maximumProjectionWidth="
+				+ maximumProjectionWidth + ", indexedFilters=" + indexedFilters + ", indexedOrders=" + indexedOrders
+				+ "]";
+	}
+
+	/**
+	 * Every rule is off until set; 0 means no maximum.
+	 */
+	public static final class Builder {
+		private int maximumLimit;
+		private final Map<Class<?>, Integer> maximumLimits = new HashMap<Class<?>, Integer>();
+		private boolean clampLimit;
+		private int maximumCriteria;
+		private int maximumProjectionWidth;
+		private boolean indexedFilters;
+		private boolean indexedOrders;
+		private final Map<Class<?>, Set<String>> allowedProperties = new HashMap<Class<?>, Set<String>>();
+
+		private Builder() {
+		}
+
+		/**
+		 * @param maximumLimit
+		 *            the largest page of a class without a maximum of its own
+		 * @return this builder
+		 */
+		public Builder maximumLimit(int maximumLimit) {
+			this.maximumLimit = maximumLimit;
+			return this;
+		}
+
+		/**
+		 * @param rootClass
+		 *            the class, including its subclasses without a maximum of
+		 *            their own
+		 * @param maximumLimit
+		 * @return this builder
+		 */
+		public Builder maximumLimit(Class<?> rootClass, int maximumLimit) {
+			this.maximumLimits.put(rootClass, maximumLimit);
+			return this;
+		}
+
+		/**
+		 * @param clampLimit
+		 *            whether a limit above the maximum is lowered to it rather
+		 *            than rejected
+		 * @return this builder
+		 */
+		public Builder clampLimit(boolean clampLimit) {
+			this.clampLimit = clampLimit;
+			return this;
+		}
+
+		/**
+		 * @param maximumCriteria
+		 *            the number of search criteria, counted across filter
+		 *            expressions, each value of an IN or NOT IN list counting
+		 *            as one
+		 * @return this builder
+		 */
+		public Builder maximumCriteria(int maximumCriteria) {
+			this.maximumCriteria = maximumCriteria;
+			return this;
+		}
+
+		/**
+		 * @param maximumProjectionWidth
+		 *            the number of columns selected
+		 * @return this builder
+		 */
+		public Builder maximumProjectionWidth(int maximumProjectionWidth) {
+			this.maximumProjectionWidth = maximumProjectionWidth;
+			return this;
+		}
+
+		/**
+		 * @param indexedFilters
+		 *            whether only indexed or allowed properties may be filtered
+		 *            by
+		 * @return this builder
+		 */
+		public Builder indexedFilters(boolean indexedFilters) {
+			this.indexedFilters = indexedFilters;
+			return this;
+		}
+
+		/**
+		 * @param indexedOrders
+		 *            whether only indexed or allowed properties may be sorted by
+		 * @return this builder
+		 */
+		public Builder indexedOrders(boolean indexedOrders) {
+			this.indexedOrders = indexedOrders;
+			return this;
+		}
+
+		/**
+		 * @param rootClass
+		 *            the class, including its subclasses
+		 * @param propertyNames
+		 *            properties that may be filtered and sorted by although not
+		 *            indexed, e.g. of small tables
+		 * @return this builder
+		 */
+		public Builder allow(Class<?> rootClass, String... propertyNames) {
+			Set<String> names = this.allowedProperties.get(rootClass);
+			if (names == null) {
+				names = new HashSet<String>();
+				this.allowedProperties.put(rootClass, names);
+			}
+			names.addAll(Arrays.asList(propertyNames));
+			return this;
+		}
+
+		public QueryPolicy build() {
+			return new QueryPolicy(this);
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package usgaard.jacob.rest.policy;
+
+import usgaard.jacob.rest.exception.ParameterException;
+
+/**
+ * Thrown when a request is rejected by a {@link QueryPolicy} before it reaches
+ * the database.
+ */
+public class QueryPolicyException extends ParameterException {
+
+	private static final long serialVersionUID = 4103725964214310917L;
+
+	/**
+	 * The rule a request broke.
+	 */
+	public enum Violation {
+		LIMIT, CRITERIA, PROJECTION_WIDTH, FILTER, ORDER
+	}
+
+	private final Violation violation;
+
+	/**
+	 * @param violation
+	 * @param message
+	 */
+	public QueryPolicyException(Violation violation, String message) {
+		super(message);
+		this.violation = violation;
+	}
+
+	public Violation getViolation() {
+		return violation;
+	}
+
+}
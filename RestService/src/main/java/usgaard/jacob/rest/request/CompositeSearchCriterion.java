@@ -0,0 +1,162 @@
+package usgaard.jacob.rest.request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A node of a filter expression combining other search criteria. The
+ * identifier, operator and value of a composite are always null.
+ *
+ * <p>
+ * The factory methods fold while building: nested nodes of the same kind are
+ * flattened, duplicate children dropped, double negation removed and
+ * constants propagated. An {@link LogicalOperator#AND} without children is
+ * always true and an {@link LogicalOperator#OR} without children always false.
+ * </p>
+ *
+ * @param <Identifier>
+ * @param <Operator>
+ * @param <Value>
+ */
+public class CompositeSearchCriterion<Identifier, Operator, Value> extends SearchCriterion<Identifier, Operator, Value> {
+
+	public enum LogicalOperator {
+		AND, OR, NOT
+	}
+
+	private final LogicalOperator logicalOperator;
+	private final List<SearchCriterion<Identifier, Operator, Value>> children;
+
+	public CompositeSearchCriterion(LogicalOperator logicalOperator,
+			List<? extends SearchCriterion<Identifier, Operator, Value>> children) {
+		super();
+		this.logicalOperator = logicalOperator;
+		this.children = Collections.unmodifiableList(new ArrayList<SearchCriterion<Identifier, Operator, Value>>(children));
+	}
+
+	/**
+	 * @return the conjunction of children, folded
+	 */
+	public static <Identifier, Operator, Value> SearchCriterion<Identifier, Operator, Value> and(
+			Collection<? extends SearchCriterion<Identifier, Operator, Value>> children) {
+		return combine(LogicalOperator.AND, children);
+	}
+
+	/**
+	 * @return the disjunction of children, folded
+	 */
+	public static <Identifier, Operator, Value> SearchCriterion<Identifier, Operator, Value> or(
+			Collection<? extends SearchCriterion<Identifier, Operator, Value>> children) {
+		return combine(LogicalOperator.OR, children);
+	}
+
+	/**
+	 * @return the negation of child, folded
+	 */
+	public static <Identifier, Operator, Value> SearchCriterion<Identifier, Operator, Value> not(
+			SearchCriterion<Identifier, Operator, Value> child) {
+		if (child instanceof CompositeSearchCriterion) {
+			CompositeSearchCriterion<Identifier, Operator, Value> composite = (CompositeSearchCriterion<Identifier, Operator, Value>) child;
+
+			switch (composite.logicalOperator) {
+			case NOT:
+				return composite.children.get(0);
+			case AND:
+				if (composite.children.isEmpty()) {
+					return or(composite.children);
+				}
+				break;
+			case OR:
+				if (composite.children.isEmpty()) {
+					return and(composite.children);
+				}
+				break;
+			}
+		}
+
+		return new CompositeSearchCriterion<Identifier, Operator, Value>(LogicalOperator.NOT,
+				Collections.singletonList(child));
+	}
+
+	private static <Identifier, Operator, Value> SearchCriterion<Identifier, Operator, Value> combine(
+			LogicalOperator logicalOperator, Collection<? extends SearchCriterion<Identifier, Operator, Value>> children) {
+		LogicalOperator absorbing = logicalOperator == LogicalOperator.AND ? LogicalOperator.OR : LogicalOperator.AND;
+		Set<SearchCriterion<Identifier, Operator, Value>> folded = new LinkedHashSet<SearchCriterion<Identifier, Operator, Value>>();
+
+		for (SearchCriterion<Identifier, Operator, Value> child : children) {
+			if (child instanceof CompositeSearchCriterion) {
+				CompositeSearchCriterion<Identifier, Operator, Value> composite = (CompositeSearchCriterion<Identifier, Operator, Value>) child;
+
+				// children of a folded node are folded already
+				if (composite.logicalOperator == logicalOperator) {
+					folded.addAll(composite.children);
+					continue;
+				}
+
+				if (composite.logicalOperator == absorbing && composite.children.isEmpty()) {
+					return composite;
+				}
+			}
+
+			folded.add(child);
+		}
+
+		if (folded.size() == 1) {
+			return folded.iterator().next();
+		}
+
+		return new CompositeSearchCriterion<Identifier, Operator, Value>(logicalOperator,
+				new ArrayList<SearchCriterion<Identifier, Operator, Value>>(folded));
+	}
+
+	public LogicalOperator getLogicalOperator() {
+		return logicalOperator;
+	}
+
+	public List<SearchCriterion<Identifier, Operator, Value>> getChildren() {
+		return children;
+	}
+
+	/**
+	 * @return whether this criterion matches every row
+	 */
+	public boolean isTrue() {
+		return logicalOperator == LogicalOperator.AND && children.isEmpty();
+	}
+
+	/**
+	 * @return whether this criterion matches no row
+	 */
+	public boolean isFalse() {
+		return logicalOperator == LogicalOperator.OR && children.isEmpty();
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * logicalOperator.hashCode() + children.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (!(obj instanceof CompositeSearchCriterion)) {
+			return false;
+		}
+
+		CompositeSearchCriterion<?, ?, ?> other = (CompositeSearchCriterion<?, ?, ?>) obj;
+		return logicalOperator == other.logicalOperator && children.equals(other.children);
+	}
+
+	@Override
+	public String toString() {
+		return logicalOperator + " " + children;
+	}
+
+}
@@ -0,0 +1,186 @@
+package usgaard.jacob.rest.request;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import usgaard.jacob.rest.exception.ParameterException;
+
+/**
+ * The position of a page in keyset pagination: the sort key values of the last
+ * row of the previous page, ending with the identifier. Clients only see the
+ * opaque token produced by {@link #encode()}. An empty cursor asks for the
+ * first page.
+ */
+public final class Cursor {
+
+	private static final char SEPARATOR = ',';
+	private static final char ESCAPE = '\\';
+	private static final char NULL = '0';
+
+	private final List<Object> values;
+
+	/**
+	 * @param values
+	 *            the sort key values, in sort order
+	 */
+	public Cursor(List<?> values) {
+		this.values = Collections.unmodifiableList(new ArrayList<Object>(values));
+	}
+
+	/**
+	 * @param token
+	 *            a token produced by {@link #encode()}, or the empty string for
+	 *            the first page
+	 * @return the cursor with the values of token as strings
+	 * @throws ParameterException
+	 *             if token was not produced by {@link #encode()}
+	 */
+	public static Cursor decode(String token) throws ParameterException {
+		List<Object> values = new ArrayList<Object>();
+
+		if (token == null || token.isEmpty()) {
+			return new Cursor(values);
+		}
+
+		String decoded;
+		try {
+			decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new ParameterException("Malformed cursor: " + token);
+		}
+
+		StringBuilder value = new StringBuilder();
+		boolean isNull = false;
+		for (int index = 0; index < decoded.length(); index++) {
+			char c = decoded.charAt(index);
+
+			if (c == SEPARATOR) {
+				values.add(isNull ? null : value.toString());
+				value.setLength(0);
+				isNull = false;
+				continue;
+			}
+
+			if (c == ESCAPE) {
+				if (++index == decoded.length()) {
+					throw new ParameterException("Malformed cursor: " + token);
+				}
+
+				c = decoded.charAt(index);
+				if (c == NULL) {
+					isNull = true;
+					continue;
+				}
+			}
+
+			value.append(c);
+		}
+		values.add(isNull ? null : value.toString());
+
+		return new Cursor(values);
+	}
+
+	/**
+	 * @return an opaque, URL safe token holding the string form of each value,
+	 *         dates as read by {@link #parseDate(Class, String)}
+	 */
+	public String encode() {
+		StringBuilder encoded = new StringBuilder();
+
+		for (int index = 0; index < values.size(); index++) {
+			if (index > 0) {
+				encoded.append(SEPARATOR);
+			}
+
+			Object value = values.get(index);
+			if (value == null) {
+				encoded.append(ESCAPE).append(NULL);
+				continue;
+			}
+
+			String string = toString(value);
+			for (int character = 0; character < string.length(); character++) {
+				char c = string.charAt(character);
+				if (c == SEPARATOR || c == ESCAPE) {
+					encoded.append(ESCAPE);
+				}
+				encoded.append(c);
+			}
+		}
+
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(encoded.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String toString(Object value) {
+		if (value instanceof java.sql.Date || value instanceof Time) {
+			return value.toString();
+		}
+
+		// Date.toString() is neither parseable nor precise to the millisecond
+		if (value instanceof Date) {
+			return ((Date) value).toInstant().toString();
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * Reads a date value of a decoded cursor.
+	 *
+	 * @param type
+	 *            {@link Date} or a subclass
+	 * @param value
+	 *            an ISO-8601 instant, or the string form of a {@link java.sql.Date}
+	 *            or {@link Time}
+	 * @return the date, a {@link Timestamp} unless type or value is a
+	 *         {@link java.sql.Date} or {@link Time}
+	 * @throws ParameterException
+	 *             if value is not a date
+	 */
+	public static Date parseDate(Class<?> type, String value) throws ParameterException {
+		try {
+			if (type == java.sql.Date.class) {
+				return java.sql.Date.valueOf(value);
+			}
+
+			if (type == Time.class) {
+				return Time.valueOf(value);
+			}
+
+			// a Date property may hold either, depending on its temporal type
+			if (value.indexOf('T') < 0) {
+				return value.indexOf(':') < 0 ? java.sql.Date.valueOf(value) : Time.valueOf(value);
+			}
+
+			return Timestamp.from(Instant.parse(value));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new ParameterException("Malformed cursor date: " + value, e);
+		}
+	}
+
+	public List<Object> getValues() {
+		return values;
+	}
+
+	/**
+	 * @return whether this cursor asks for the first page
+	 */
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "Cursor " + values;
+	}
+
+}
@@ -1,7 +1,10 @@
 package usgaard.jacob.rest.request;
 
+import usgaard.jacob.rest.FieldMapper.Aggregate;
+
 public class FieldMapping<Identifier> {
 	private Identifier identifier;
+	private Aggregate aggregate;
 
 	public FieldMapping() {
 		super();
@@ -12,6 +15,17 @@ public class FieldMapping<Identifier> {
 		this.identifier = identifier;
 	}
 
+	/**
+	 * @param identifier
+	 *            the aggregated field, or null to count rows
+	 * @param aggregate
+	 */
+	public FieldMapping(Identifier identifier, Aggregate aggregate) {
+		super();
+		this.identifier = identifier;
+		this.aggregate = aggregate;
+	}
+
 	public Identifier getIdentifier() {
 		return identifier;
 	}
@@ -20,4 +34,15 @@ public class FieldMapping<Identifier> {
 		this.identifier = identifier;
 	}
 
+	/**
+	 * @return the function aggregating the field, or null for the plain field
+	 */
+	public Aggregate getAggregate() {
+		return aggregate;
+	}
+
+	public void setAggregate(Aggregate aggregate) {
+		this.aggregate = aggregate;
+	}
+
 }
@@ -0,0 +1,131 @@
+package usgaard.jacob.rest.request;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import usgaard.jacob.rest.metadata.PropertyMetadata;
+
+/**
+ * An immutable list of {@link ParameterMapping}s that can also be searched by
+ * identifier in constant time. {@link String} identifiers are matched without
+ * regard to case. When an identifier occurs more than once, the first mapping
+ * is the one found.
+ *
+ * <p>
+ * The index is built once per request and handed to every generator, which
+ * call {@link #of(List)} to reuse it instead of scanning the list.
+ * </p>
+ *
+ * @param <Identifier>
+ * @param <Operator>
+ * @param <Value>
+ */
+public final class IndexedParameterMappings<Identifier, Operator, Value>
+		extends AbstractList<ParameterMapping<Identifier, Operator, Value>> implements RandomAccess {
+
+	private final List<ParameterMapping<Identifier, Operator, Value>> parameterMappings;
+	private final Map<Object, ParameterMapping<Identifier, Operator, Value>> index;
+
+	private IndexedParameterMappings(List<ParameterMapping<Identifier, Operator, Value>> parameterMappings) {
+		this.parameterMappings = parameterMappings == null ? new ArrayList<ParameterMapping<Identifier, Operator, Value>>()
+				: new ArrayList<ParameterMapping<Identifier, Operator, Value>>(parameterMappings);
+		this.index = new HashMap<Object, ParameterMapping<Identifier, Operator, Value>>(
+				this.parameterMappings.size() * 2);
+
+		for (ParameterMapping<Identifier, Operator, Value> parameterMapping : this.parameterMappings) {
+			Object key = toKey(parameterMapping.getIdentifier());
+			if (!this.index.containsKey(key)) {
+				this.index.put(key, parameterMapping);
+			}
+		}
+	}
+
+	/**
+	 * @param parameterMappings
+	 * @return parameterMappings itself if it is already indexed, otherwise a new
+	 *         index over a copy of it; null is treated as an empty list
+	 */
+	public static <Identifier, Operator, Value> IndexedParameterMappings<Identifier, Operator, Value> of(
+			List<ParameterMapping<Identifier, Operator, Value>> parameterMappings) {
+		if (parameterMappings instanceof IndexedParameterMappings) {
+			return (IndexedParameterMappings<Identifier, Operator, Value>) parameterMappings;
+		}
+
+		return new IndexedParameterMappings<Identifier, Operator, Value>(parameterMappings);
+	}
+
+	private static Object toKey(Object identifier) {
+		if (identifier instanceof String) {
+			return PropertyMetadata.toLookupKey((String) identifier);
+		}
+
+		return identifier;
+	}
+
+	/**
+	 * @param identifier
+	 * @return the first mapping with the given identifier, or null if there is
+	 *         none
+	 */
+	public ParameterMapping<Identifier, Operator, Value> find(Object identifier) {
+		if (identifier == null) {
+			return null;
+		}
+
+		return index.get(toKey(identifier));
+	}
+
+	/**
+	 * @param identifier
+	 * @return the value of the first mapping with the given identifier, or null
+	 *         if there is none
+	 */
+	public Value findValue(Object identifier) {
+		ParameterMapping<Identifier, Operator, Value> parameterMapping = find(identifier);
+		return parameterMapping == null ? null : parameterMapping.getValue();
+	}
+
+	/**
+	 * @param identifier
+	 * @return every mapping with the given identifier, in order of appearance
+	 */
+	public List<ParameterMapping<Identifier, Operator, Value>> findAll(Object identifier) {
+		List<ParameterMapping<Identifier, Operator, Value>> found = new ArrayList<ParameterMapping<Identifier, Operator, Value>>(1);
+
+		if (identifier == null || find(identifier) == null) {
+			return found;
+		}
+
+		Object key = toKey(identifier);
+		for (ParameterMapping<Identifier, Operator, Value> parameterMapping : parameterMappings) {
+			if (key.equals(toKey(parameterMapping.getIdentifier()))) {
+				found.add(parameterMapping);
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * @param parameterMapping
+	 * @return whether parameterMapping is the first one with its identifier
+	 */
+	public boolean isFirst(ParameterMapping<Identifier, Operator, Value> parameterMapping) {
+		return find(parameterMapping.getIdentifier()) == parameterMapping;
+	}
+
+	@Override
+	public ParameterMapping<Identifier, Operator, Value> get(int index) {
+		return parameterMappings.get(index);
+	}
+
+	@Override
+	public int size() {
+		return parameterMappings.size();
+	}
+
+}
@@ -4,6 +4,13 @@ import java.util.regex.Pattern;
 
 import usgaard.jacob.rest.RestService.Operator;
 
+/**
+ * A mapping between a pattern and the operator it denotes.
+ *
+ * @deprecated operators are recognised by {@link usgaard.jacob.rest.QueryTokenizer}
+ *             without regular expressions; this class is no longer used.
+ */
+@Deprecated
 public class OperatorMapping {
 	private Pattern pattern;
 	private Operator operator;
@@ -3,6 +3,8 @@ package usgaard.jacob.rest.request;
 import java.util.LinkedList;
 import java.util.List;
 
+import usgaard.jacob.rest.hibernate.ExecutionProfile;
+
 /**
  * Wrapper class for information contained in the original request.
  * 
@@ -17,6 +19,11 @@ public class RestRequest<Identifier, Operator, Value> {
 	private List<FieldMapping<Identifier>> fieldMappings = new LinkedList<FieldMapping<Identifier>>();
 	private List<SearchCriterion<Identifier, Operator, Value>> searchCriteria = new LinkedList<SearchCriterion<Identifier, Operator, Value>>();
 	private List<OrderMapping<Identifier>> orderMappings = new LinkedList<OrderMapping<Identifier>>();
+	private List<FieldMapping<Identifier>> groupMappings = new LinkedList<FieldMapping<Identifier>>();
+	private Cursor after;
+	private Total total;
+	private Integer timeout;
+	private ExecutionProfile executionProfile;
 
 	public int getStart() {
 		return start;
@@ -65,4 +72,63 @@ public class RestRequest<Identifier, Operator, Value> {
 	public void setOrderMappings(List<OrderMapping<Identifier>> orderMappings) {
 		this.orderMappings = orderMappings;
 	}
+
+	/**
+	 * @return the position to continue after in keyset pagination, or null if
+	 *         the request pages by start and limit
+	 */
+	public Cursor getAfter() {
+		return after;
+	}
+
+	public void setAfter(Cursor after) {
+		this.after = after;
+	}
+
+	/**
+	 * @return the fields to group by, empty unless aggregating
+	 */
+	public List<FieldMapping<Identifier>> getGroupMappings() {
+		return groupMappings;
+	}
+
+	public void setGroupMappings(List<FieldMapping<Identifier>> groupMappings) {
+		this.groupMappings = groupMappings;
+	}
+
+	/**
+	 * @return how to count the rows over all pages, or null to not count them
+	 */
+	public Total getTotal() {
+		return total;
+	}
+
+	public void setTotal(Total total) {
+		this.total = total;
+	}
+
+	/**
+	 * @return the number of seconds the database may spend on each statement of
+	 *         this request, or null for no limit
+	 */
+	public Integer getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Integer timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * @return the settings overriding the execution profile of the root class
+	 *         for this request, or null
+	 */
+	public ExecutionProfile getExecutionProfile() {
+		return executionProfile;
+	}
+
+	public void setExecutionProfile(ExecutionProfile executionProfile) {
+		this.executionProfile = executionProfile;
+	}
+
 }
\ No newline at end of file
@@ -49,4 +49,33 @@ public class SearchCriterion<Identifier, Operator, Value> {
 		this.value = value;
 	}
 
+	@Override
+	public int hashCode() {
+		int hashCode = identifier == null ? 0 : identifier.hashCode();
+		hashCode = 31 * hashCode + (operator == null ? 0 : operator.hashCode());
+		hashCode = 31 * hashCode + (value == null ? 0 : value.hashCode());
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+
+		SearchCriterion<?, ?, ?> other = (SearchCriterion<?, ?, ?>) obj;
+		return (identifier == null ? other.identifier == null : identifier.equals(other.identifier))
+				&& (operator == null ? other.operator == null : operator.equals(other.operator))
+				&& (value == null ? other.value == null : value.equals(other.value));
+	}
+
+	@Override
+	public String toString() {
+		return identifier + " " + operator + " " + value;
+	}
+
 }
@@ -0,0 +1,41 @@
+package usgaard.jacob.rest.request;
+
+import usgaard.jacob.rest.exception.ParameterException;
+
+/**
+ * How the total number of rows matching a request is counted, alongside its
+ * page.
+ */
+public enum Total {
+	/** Counted on every request. */
+	EXACT,
+	/**
+	 * Counted once and then reused for requests with the same search criteria
+	 * until it expires, so it may lag behind the table.
+	 */
+	APPROXIMATE;
+
+	/**
+	 * @param value
+	 *            {@code true}, {@code exact} or empty for {@link #EXACT},
+	 *            {@code approximate} for {@link #APPROXIMATE} or {@code false}
+	 * @return the total, or null if none is wanted
+	 * @throws ParameterException
+	 *             if value is none of the above
+	 */
+	public static Total of(String value) throws ParameterException {
+		if (value.isEmpty() || "true".equalsIgnoreCase(value) || "exact".equalsIgnoreCase(value)) {
+			return EXACT;
+		}
+
+		if ("approximate".equalsIgnoreCase(value)) {
+			return APPROXIMATE;
+		}
+
+		if ("false".equalsIgnoreCase(value)) {
+			return null;
+		}
+
+		throw new ParameterException("Unknown total: " + value);
+	}
+}
@@ -0,0 +1,171 @@
+package usgaard.jacob.rest.response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import usgaard.jacob.rest.RowHandler;
+
+/**
+ * Writes projected rows as a JSON array of objects, one member per column in
+ * column order, straight to a {@link Writer}. Nothing but the current row is
+ * held, and the writer is flushed every few rows so the client receives the
+ * result while it is read.
+ *
+ * <p>
+ * Strings, characters, enums and temporal values are written as strings, dates
+ * as ISO-8601 instants and byte arrays as Base64. Numbers that are not finite
+ * are written as null.
+ * </p>
+ */
+public final class JsonRowWriter implements RowHandler<Object[]> {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Writer writer;
+	private final String[] names;
+	private final int flushRows;
+	private int rows;
+
+	/**
+	 * @param writer
+	 *            the writer to write to, neither buffered nor closed by this
+	 *            writer
+	 * @param columns
+	 *            the column names, one per value of a row
+	 * @param flushRows
+	 *            the number of rows written between flushes, or 0 to flush only
+	 *            at the end
+	 */
+	public JsonRowWriter(Writer writer, List<String> columns, int flushRows) {
+		this.writer = writer;
+		this.flushRows = flushRows;
+
+		// escaped once rather than per row
+		this.names = new String[columns.size()];
+		for (int index = 0; index < names.length; index++) {
+			StringBuilder name = new StringBuilder();
+			appendString(name, columns.get(index));
+			names[index] = name.append(':').toString();
+		}
+	}
+
+	public void begin() throws IOException {
+		writer.write('[');
+	}
+
+	/**
+	 * @param row
+	 *            one value per column; trailing values, e.g. hidden sort keys,
+	 *            are skipped
+	 * @throws UncheckedIOException
+	 *             if the row cannot be written
+	 */
+	@Override
+	public void handleRow(Object[] row) {
+		try {
+			writer.write(rows == 0 ? "{" : ",{");
+
+			for (int index = 0; index < names.length; index++) {
+				if (index > 0) {
+					writer.write(',');
+				}
+				writer.write(names[index]);
+				writeValue(row[index]);
+			}
+
+			writer.write('}');
+			rows++;
+
+			if (flushRows > 0 && rows % flushRows == 0) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Closes the array and flushes the writer.
+	 *
+	 * @throws IOException
+	 */
+	public void end() throws IOException {
+		writer.write(']');
+		writer.flush();
+	}
+
+	/**
+	 * @return the number of rows written
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			writer.write("null");
+		} else if (value instanceof Boolean) {
+			writer.write(value.toString());
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			writer.write(Double.isNaN(number) || Double.isInfinite(number) ? "null" : value.toString());
+		} else if (value instanceof Number) {
+			writer.write(value.toString());
+		} else if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+			writeString(value.toString());
+		} else if (value instanceof java.util.Date) {
+			writeString(Instant.ofEpochMilli(((java.util.Date) value).getTime()).toString());
+		} else if (value instanceof byte[]) {
+			writeString(Base64.getEncoder().encodeToString((byte[]) value));
+		} else {
+			writeString(value.toString());
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		StringBuilder string = new StringBuilder(value.length() + 2);
+		appendString(string, value);
+		writer.write(string.toString());
+	}
+
+	private static void appendString(StringBuilder string, String value) {
+		string.append('"');
+
+		for (int index = 0; index < value.length(); index++) {
+			char c = value.charAt(index);
+
+			switch (c) {
+			case '"':
+				string.append("\\\"");
+				break;
+			case '\\':
+				string.append("\\\\");
+				break;
+			case '\n':
+				string.append("\\n");
+				break;
+			case '\r':
+				string.append("\\r");
+				break;
+			case '\t':
+				string.append("\\t");
+				break;
+			default:
+				// control characters and the separators JavaScript rejects
+				if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+					string.append("\\u").append(HEX[c >> 12 & 0xf]).append(HEX[c >> 8 & 0xf]).append(HEX[c >> 4 & 0xf])
+							.append(HEX[c & 0xf]);
+				} else {
+					string.append(c);
+				}
+			}
+		}
+
+		string.append('"');
+	}
+
+}
@@ -0,0 +1,107 @@
+package usgaard.jacob.rest.response;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * One row of a projection, e.g. of an aggregating query, holding only the
+ * projected values. The column names are shared by every row of a result, so a
+ * row costs one array of its values.
+ *
+ * <p>
+ * A row is a read only {@link Map} from column name to value, in column order,
+ * so serializers write it as an object without knowing this class.
+ * </p>
+ */
+public final class ProjectionRow extends AbstractMap<String, Object> {
+
+	private final List<String> columns;
+	private final Object[] values;
+
+	/**
+	 * @param columns
+	 *            the column names, shared and not copied
+	 * @param values
+	 *            one value per column, not copied
+	 */
+	public ProjectionRow(List<String> columns, Object[] values) {
+		this.columns = columns;
+		this.values = values;
+	}
+
+	/**
+	 * @return the column names, e.g. {@code name} or {@code sum(age)}
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public Object get(int index) {
+		return values[index];
+	}
+
+	/**
+	 * @param column
+	 * @return the value of column, or null if there is no such column
+	 */
+	@Override
+	public Object get(Object column) {
+		int index = columns.indexOf(column);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public boolean containsKey(Object column) {
+		return columns.contains(column);
+	}
+
+	@Override
+	public int size() {
+		return columns.size();
+	}
+
+	/**
+	 * @return the columns and their values, created on iteration
+	 */
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<String, Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, Object>> iterator() {
+				return new Iterator<Map.Entry<String, Object>>() {
+
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < columns.size();
+					}
+
+					@Override
+					public Map.Entry<String, Object> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+
+						Map.Entry<String, Object> entry = new SimpleImmutableEntry<String, Object>(columns.get(index),
+								values[index]);
+						index++;
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return columns.size();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,64 @@
+package usgaard.jacob.rest.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import usgaard.jacob.rest.request.Cursor;
+
+/**
+ * One page of results together with the information needed to fetch the next
+ * one.
+ *
+ * @param <T>
+ */
+public class RestResponse<T> {
+
+	private List<T> results = new ArrayList<T>();
+	private Cursor next;
+	private Long total;
+	private boolean totalApproximate;
+
+	public List<T> getResults() {
+		return results;
+	}
+
+	public void setResults(List<T> results) {
+		this.results = results;
+	}
+
+	/**
+	 * @return the cursor of the next page, or null if this is the last page or
+	 *         the request did not use keyset pagination
+	 */
+	public Cursor getNext() {
+		return next;
+	}
+
+	public void setNext(Cursor next) {
+		this.next = next;
+	}
+
+	/**
+	 * @return the number of rows matching the request over all pages, or null
+	 *         if the request did not ask for it
+	 */
+	public Long getTotal() {
+		return total;
+	}
+
+	public void setTotal(Long total) {
+		this.total = total;
+	}
+
+	/**
+	 * @return whether the total was taken from an earlier count
+	 */
+	public boolean isTotalApproximate() {
+		return totalApproximate;
+	}
+
+	public void setTotalApproximate(boolean totalApproximate) {
+		this.totalApproximate = totalApproximate;
+	}
+
+}
@@ -0,0 +1,269 @@
+package usgaard.jacob.rest;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import usgaard.jacob.rest.cache.SingleFlight;
+import usgaard.jacob.rest.domain.MockObject;
+import usgaard.jacob.rest.domain.MockServletRequest;
+import usgaard.jacob.rest.metrics.InMemoryRestMetrics;
+import usgaard.jacob.rest.metrics.Stage;
+import usgaard.jacob.rest.request.RestRequest;
+
+/**
+ * Shares differently configured {@link RestService} instances between many
+ * threads and checks that no instance sees the configuration of another.
+ */
+public class RestServiceConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int ITERATIONS = 200;
+	private static final int SESSIONS = 8;
+
+	@Test
+	public void testConcurrentConfigurations() throws Exception {
+		final RestService[] restServices = new RestService[] { new RestService(),
+				RestService.builder().fieldsParameterName("f").startParameterName("s").limitParameterName("l")
+						.orderParameterName("o").start(5).limit(50).build(),
+				RestService.builder().fieldsParameterName("select").startParameterName("offset")
+						.limitParameterName("max").limit(25).queryPlanCacheSize(0).build() };
+		final String[] queries = new String[] { "age>=%d&fields=age&limit=%d", "age>=%d&f=age&l=%d",
+				"age>=%d&select=age&max=%d" };
+		final int[] starts = new int[] { RestService.DEFAULT_START, 5, RestService.DEFAULT_START };
+
+		final CountDownLatch startGate = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+
+		try {
+			for (int thread = 0; thread < THREADS; thread++) {
+				final int seed = thread;
+
+				futures.add(executorService.submit(new Callable<Integer>() {
+
+					@Override
+					public Integer call() throws Exception {
+						startGate.await();
+						int conversions = 0;
+
+						for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+							int configuration = (seed + iteration) % restServices.length;
+							int value = seed * ITERATIONS + iteration;
+
+							RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = restServices[configuration]
+									.convert(String.format(queries[configuration], value, value + 1),
+											MockObject.class);
+
+							Assert.assertEquals(1, restRequest.getSearchCriteria().size());
+							Assert.assertEquals(Integer.valueOf(value),
+									restRequest.getSearchCriteria().get(0).getValue());
+							Assert.assertEquals(1, restRequest.getFieldMappings().size());
+							Assert.assertEquals("age", restRequest.getFieldMappings().get(0).getIdentifier().getName());
+							Assert.assertEquals(value + 1, restRequest.getLimit());
+							Assert.assertEquals(starts[configuration], restRequest.getStart());
+							conversions++;
+						}
+
+						// the servlet mapper of the default instance must keep its own names
+						RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = restServices[0]
+								.convert(new MockServletRequest(), MockObject.class);
+						Assert.assertEquals(99, restRequest.getStart());
+						Assert.assertEquals(100, restRequest.getLimit());
+
+						return conversions + 1;
+					}
+				}));
+			}
+
+			startGate.countDown();
+
+			int conversions = 0;
+			for (Future<Integer> future : futures) {
+				conversions += future.get(1, TimeUnit.MINUTES);
+			}
+			Assert.assertEquals(THREADS * (ITERATIONS + 1), conversions);
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		Assert.assertEquals(RestService.DEFAULT_FIELDS_PARAMETER_NAME,
+				restServices[0].getQueryParameterMapper().getFieldsParameterIdentifier());
+		Assert.assertEquals("f", restServices[1].getQueryParameterMapper().getFieldsParameterIdentifier());
+		Assert.assertEquals("select", restServices[2].getServletRequestParameterMapper().getFieldsParameterIdentifier());
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		final RestService[] restServices = new RestService[1];
+		final InMemoryRestMetrics metrics = new InMemoryRestMetrics() {
+
+			@Override
+			public void recordStage(Class<?> rootClass, Stage stage, long nanos) {
+				// holds the first execution until every other request waits for it
+				long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+				while (stage == Stage.CRITERIA && restServices[0].getCoalescedCount() < SESSIONS - 1
+						&& System.nanoTime() < deadline) {
+					Thread.yield();
+				}
+
+				super.recordStage(rootClass, stage, nanos);
+			}
+		};
+		final RestService restService = RestService.builder().coalescing(true).metrics(metrics).build();
+		restServices[0] = restService;
+		Configuration configuration = new Configuration().configure("hibernate-test.cfg.xml");
+		configuration.addAnnotatedClass(MockObject.class);
+		final SessionFactory sessionFactory = configuration.buildSessionFactory(
+				new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build());
+
+		Session session = sessionFactory.openSession();
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 1f));
+			session.getTransaction().commit();
+		} finally {
+			session.close();
+		}
+
+		final CyclicBarrier barrier = new CyclicBarrier(SESSIONS);
+		ExecutorService executorService = Executors.newFixedThreadPool(SESSIONS);
+		List<Future<List<MockObject>>> futures = new ArrayList<Future<List<MockObject>>>();
+
+		try {
+			for (int thread = 0; thread < SESSIONS; thread++) {
+				futures.add(executorService.submit(new Callable<List<MockObject>>() {
+
+					@Override
+					public List<MockObject> call() throws Exception {
+						Session session = sessionFactory.openSession();
+
+						try {
+							barrier.await();
+							return restService.convert("age>=10&fields=name,age&order=name", MockObject.class, session);
+						} finally {
+							session.close();
+						}
+					}
+				}));
+			}
+
+			List<MockObject> previous = null;
+			for (Future<List<MockObject>> future : futures) {
+				List<MockObject> mockObjects = future.get(1, TimeUnit.MINUTES);
+
+				Assert.assertEquals(2, mockObjects.size());
+				Assert.assertEquals("A", mockObjects.get(0).getName());
+				Assert.assertEquals(Integer.valueOf(20), mockObjects.get(1).getAge());
+				if (previous != null) {
+					Assert.assertNotSame(previous, mockObjects);
+					Assert.assertNotSame(previous.get(0), mockObjects.get(0));
+				}
+				previous = mockObjects;
+			}
+		} finally {
+			executorService.shutdownNow();
+			sessionFactory.close();
+		}
+
+		// every request but the first shared its execution
+		InMemoryRestMetrics.ClassMetrics classMetrics = metrics.getClassMetrics(MockObject.class);
+		Assert.assertEquals(1, classMetrics.getStage(Stage.EXECUTION).getCount());
+		Assert.assertEquals(SESSIONS - 1, classMetrics.getCoalescedCount());
+		Assert.assertEquals(classMetrics.getCoalescedCount(), restService.getCoalescedCount());
+	}
+
+	@Test
+	public void testSingleFlightFailure() throws Exception {
+		final SingleFlight<String, String> singleFlight = new SingleFlight<String, String>();
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+		try {
+			Future<String> leader = executorService.submit(new Callable<String>() {
+
+				@Override
+				public String call() throws Exception {
+					return singleFlight.execute("key", new Callable<String>() {
+
+						@Override
+						public String call() throws Exception {
+							release.await();
+							throw new IllegalStateException("leader failed");
+						}
+					});
+				}
+			});
+
+			long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+			while (singleFlight.size() == 0 && System.nanoTime() < deadline) {
+				Thread.yield();
+			}
+
+			// a follower waits no longer than its own timeout
+			try {
+				singleFlight.execute("key", new Callable<String>() {
+
+					@Override
+					public String call() throws Exception {
+						return "follower";
+					}
+				}, 10, TimeUnit.MILLISECONDS);
+				Assert.fail("TimeoutException expected");
+			} catch (TimeoutException e) {
+				Assert.assertEquals(0, singleFlight.getSharedCount());
+			}
+
+			// a follower of a failed call runs its own
+			Future<String> follower = executorService.submit(new Callable<String>() {
+
+				@Override
+				public String call() throws Exception {
+					return singleFlight.execute("key", new Callable<String>() {
+
+						@Override
+						public String call() throws Exception {
+							return "follower";
+						}
+					}, 1, TimeUnit.MINUTES);
+				}
+			});
+
+			while (singleFlight.getSharedCount() == 0 && System.nanoTime() < deadline) {
+				Thread.yield();
+			}
+			release.countDown();
+
+			Assert.assertEquals("follower", follower.get(1, TimeUnit.MINUTES));
+			Assert.assertEquals(0, singleFlight.getSharedCount());
+			Assert.assertEquals(0, singleFlight.size());
+
+			try {
+				leader.get(1, TimeUnit.MINUTES);
+				Assert.fail("ExecutionException expected");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+}
@@ -3,12 +3,33 @@ package usgaard.jacob.rest;
 import static org.junit.Assert.fail;
 
 import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.service.ServiceRegistry;
@@ -17,9 +38,37 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import usgaard.jacob.rest.batch.BatchItem;
+import usgaard.jacob.rest.batch.BatchResult;
+import usgaard.jacob.rest.cache.BoundedCache;
+import usgaard.jacob.rest.cache.RestRequestKey;
+import usgaard.jacob.rest.conversion.CharSlice;
+import usgaard.jacob.rest.conversion.ConverterRegistry;
+import usgaard.jacob.rest.conversion.ValueConverter;
+import usgaard.jacob.rest.conversion.ValueConverters;
+import usgaard.jacob.rest.domain.MockAsyncContext;
 import usgaard.jacob.rest.domain.MockObject;
 import usgaard.jacob.rest.domain.MockServletRequest;
+import usgaard.jacob.rest.domain.MockServletResponse;
+import usgaard.jacob.rest.exception.ConversionException;
+import usgaard.jacob.rest.exception.ParameterException;
+import usgaard.jacob.rest.hibernate.CacheInvalidationListener;
+import usgaard.jacob.rest.hibernate.ExecutionProfile;
+import usgaard.jacob.rest.hydration.HydratorFactory;
+import usgaard.jacob.rest.hydration.RowHydrator;
+import usgaard.jacob.rest.metadata.ClassMetadata;
+import usgaard.jacob.rest.metadata.ClassMetadataRegistry;
+import usgaard.jacob.rest.metrics.InMemoryRestMetrics;
+import usgaard.jacob.rest.metrics.Stage;
+import usgaard.jacob.rest.policy.QueryPolicy;
+import usgaard.jacob.rest.policy.QueryPolicyException;
+import usgaard.jacob.rest.request.CompositeSearchCriterion;
+import usgaard.jacob.rest.request.Cursor;
+import usgaard.jacob.rest.request.ParameterMapping;
 import usgaard.jacob.rest.request.RestRequest;
+import usgaard.jacob.rest.request.SearchCriterion;
+import usgaard.jacob.rest.response.ProjectionRow;
+import usgaard.jacob.rest.response.RestResponse;
 
 public class RestServiceTest {
 
@@ -46,6 +95,77 @@ public class RestServiceTest {
 		Assert.assertEquals(999, restRequest.getLimit());
 	}
 
+	@Test
+	public void testConvertServletRequestBody() throws Exception {
+		RestService[] restServices = new RestService[] { new RestService(),
+				RestService.builder().queryPlanCacheSize(0).build() };
+
+		for (RestService restService : restServices) {
+			RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = restService.convert(
+					new MockServletRequest("fields=age", "POST", "application/x-www-form-urlencoded; charset=UTF-8",
+							"age>=10&name!=Jacob+Usgaard&order=age%2B"),
+					MockObject.class);
+
+			Assert.assertEquals(2, restRequest.getSearchCriteria().size());
+			Assert.assertEquals(RestService.Operator.GREATER_THAN_OR_EQUAL,
+					restRequest.getSearchCriteria().get(0).getOperator());
+			Assert.assertEquals("Jacob Usgaard", restRequest.getSearchCriteria().get(1).getValue());
+			Assert.assertEquals(1, restRequest.getFieldMappings().size());
+			Assert.assertEquals(1, restRequest.getOrderMappings().size());
+			Assert.assertEquals(OrderMapper.Sort.ASCENDING, restRequest.getOrderMappings().get(0).getSort());
+
+			restRequest = restService.convert(new MockServletRequest(null, "POST", "application/json",
+					"{ \"age<\": 30, \"name\": [\"A\", \"B\\u0043\"], \"fields\": \"age,name\", \"limit\": 5 }"),
+					MockObject.class);
+
+			Assert.assertEquals(2, restRequest.getSearchCriteria().size());
+			Assert.assertEquals(RestService.Operator.LESS_THAN, restRequest.getSearchCriteria().get(0).getOperator());
+			Assert.assertEquals(30, restRequest.getSearchCriteria().get(0).getValue());
+			Assert.assertEquals(RestService.Operator.IN, restRequest.getSearchCriteria().get(1).getOperator());
+			Assert.assertEquals(Arrays.asList("A", "BC"), restRequest.getSearchCriteria().get(1).getValue());
+			Assert.assertEquals(2, restRequest.getFieldMappings().size());
+			Assert.assertEquals(5, restRequest.getLimit());
+
+			// the lists of reserved parameters are joined as in a query string
+			restRequest = restService.convert(new MockServletRequest(null, "POST", "application/json",
+					"{\"fields\": [\"age\", \"name\"], \"order\": [\"age-\", \"name+\"]}"), MockObject.class);
+			Assert.assertEquals(2, restRequest.getFieldMappings().size());
+			Assert.assertEquals(2, restRequest.getOrderMappings().size());
+
+			for (String body : new String[] { "{\"limit\": [1, 2]}", "{\"fields!=\": [\"age\"]}",
+					"{\"name\": \"\\x\"}" }) {
+				try {
+					restService.convert(new MockServletRequest(null, "POST", "application/json", body),
+							MockObject.class);
+					fail("rejected: " + body);
+				} catch (ParameterException e) {
+					LOGGER.debug("expected", e);
+				}
+			}
+
+			// the body of other methods and media types is not read
+			restRequest = restService.convert(new MockServletRequest("age=10", "GET", "application/json", "{"),
+					MockObject.class);
+			Assert.assertEquals(1, restRequest.getSearchCriteria().size());
+
+			try {
+				restService.convert(new MockServletRequest(null, "POST", "application/json", "{\"age\": {}}"),
+						MockObject.class);
+				fail("nested objects are not parameters");
+			} catch (ParameterException e) {
+				LOGGER.debug("expected", e);
+			}
+		}
+
+		try {
+			RestService.builder().maximumBodyLength(4).build().convert(
+					new MockServletRequest(null, "POST", "application/json", "{\"age\": 10}"), MockObject.class);
+			fail("the body is too long");
+		} catch (ParameterException e) {
+			LOGGER.debug("expected", e);
+		}
+	}
+
 	@Test
 	public void testConvertServletRequestClassOfT() {
 		ServletRequest servletRequest = new MockServletRequest();
@@ -64,6 +184,128 @@ public class RestServiceTest {
 		Assert.assertEquals(2, restRequest.getSearchCriteria().size());
 		Assert.assertNotNull(restRequest.getFieldMappings());
 		Assert.assertEquals(2, restRequest.getFieldMappings().size());
+		Assert.assertEquals(99, restRequest.getStart());
+		Assert.assertEquals(100, restRequest.getLimit());
+	}
+
+	@Test
+	public void testQueryParameterMapper() throws Exception {
+		List<ParameterMapping<String, RestService.Operator, Object>> parameterMappings = new RestService()
+				.getQueryParameterMapper()
+				.generateParameterMappings("name!=Jacob%20Usgaard&&age<=25&pi>3=x&n%C3%A4me<a&order=name+");
+
+		Assert.assertEquals(5, parameterMappings.size());
+		Assert.assertEquals(RestService.Operator.NOT_EQUAL, parameterMappings.get(0).getOperator());
+		Assert.assertEquals("Jacob Usgaard", parameterMappings.get(0).getValue());
+		Assert.assertEquals(RestService.Operator.LESS_THAN_OR_EQUAL, parameterMappings.get(1).getOperator());
+		Assert.assertEquals("age", parameterMappings.get(1).getIdentifier());
+		Assert.assertEquals(RestService.Operator.GREATER_THAN, parameterMappings.get(2).getOperator());
+		Assert.assertEquals("3=x", parameterMappings.get(2).getValue());
+		Assert.assertEquals("n\u00e4me", parameterMappings.get(3).getIdentifier());
+		Assert.assertEquals(RestService.Operator.LESS_THAN, parameterMappings.get(3).getOperator());
+		Assert.assertEquals("name+", parameterMappings.get(4).getValue());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testQueryParameterMapperReadOnly() throws Exception {
+		RestService restService = RestService.builder().fieldsParameterName("f").build();
+		ParameterMapper<String, RestService.Operator, Object> parameterMapper = restService.getQueryParameterMapper();
+		Assert.assertEquals("f", parameterMapper.getFieldsParameterIdentifier());
+		parameterMapper.setFieldsParameterIdentifier("select");
+	}
+
+	@Test(expected = ParameterException.class)
+	public void testQueryParameterMapperMalformedEscape() throws Exception {
+		new RestService().getQueryParameterMapper().generateParameterMappings("name=%4");
+	}
+
+	@Test
+	public void testBoundedCache() throws Exception {
+		BoundedCache<Integer, String> boundedCache = new BoundedCache<Integer, String>(100);
+		for (int key = 0; key < 1000; key++) {
+			boundedCache.put(key, String.valueOf(key));
+			Assert.assertEquals(String.valueOf(key), boundedCache.get(key));
+		}
+
+		Assert.assertEquals(100, boundedCache.size());
+		Assert.assertEquals(900, boundedCache.getStatistics().getEvictionCount());
+		Assert.assertEquals(1000, boundedCache.getStatistics().getHitCount());
+
+		// the entry put last outlives the ones put before it
+		BoundedCache<Integer, String> singleCache = new BoundedCache<Integer, String>(1);
+		singleCache.put(1, "1");
+		singleCache.put(2, "2");
+		Assert.assertNull(singleCache.get(1));
+		Assert.assertEquals("2", singleCache.get(2));
+	}
+
+	@Test
+	public void testQueryPlanCache() throws Exception {
+		RestService restService = new RestService();
+		String query = "age>=10&name=Jacob Usgaard&fields=name,age&order=age-&pi=3.14&limit=%d";
+
+		RestRequest<PropertyDescriptor, RestService.Operator, Object> first = restService
+				.convert(String.format(query, 5), MockObject.class);
+		RestRequest<PropertyDescriptor, RestService.Operator, Object> second = restService
+				.convert(String.format(query, 7), MockObject.class);
+
+		Assert.assertEquals(1, restService.getQueryPlanCacheStatistics().getMissCount());
+		Assert.assertEquals(1, restService.getQueryPlanCacheStatistics().getHitCount());
+		Assert.assertEquals(5, first.getLimit());
+		Assert.assertEquals(7, second.getLimit());
+		Assert.assertNotSame(first.getFieldMappings(), second.getFieldMappings());
+
+		RestService uncachedRestService = RestService.builder().queryPlanCacheSize(0).build();
+		RestRequest<PropertyDescriptor, RestService.Operator, Object> uncached = uncachedRestService
+				.convert(String.format(query, 7), MockObject.class);
+
+		Assert.assertNull(uncachedRestService.getQueryPlanCacheStatistics());
+		Assert.assertEquals(uncached.getSearchCriteria().size(), second.getSearchCriteria().size());
+		for (int index = 0; index < uncached.getSearchCriteria().size(); index++) {
+			Assert.assertEquals(uncached.getSearchCriteria().get(index).getIdentifier(),
+					second.getSearchCriteria().get(index).getIdentifier());
+			Assert.assertEquals(uncached.getSearchCriteria().get(index).getOperator(),
+					second.getSearchCriteria().get(index).getOperator());
+			Assert.assertEquals(uncached.getSearchCriteria().get(index).getValue(),
+					second.getSearchCriteria().get(index).getValue());
+		}
+		Assert.assertEquals(uncached.getFieldMappings().size(), second.getFieldMappings().size());
+		Assert.assertEquals(uncached.getOrderMappings().get(0).getSort(), second.getOrderMappings().get(0).getSort());
+	}
+
+	@Test
+	public void testRowHydrator() throws Exception {
+		RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = new RestService()
+				.convert("fields=name,pi,age", MockObject.class);
+		RowHydrator<MockObject> rowHydrator = HydratorFactory.getRowHydrator(MockObject.class,
+				restRequest.getFieldMappings());
+
+		Assert.assertSame(rowHydrator,
+				HydratorFactory.getRowHydrator(MockObject.class, restRequest.getFieldMappings()));
+
+		MockObject mockObject = rowHydrator.hydrate(new Object[] { "Jacob Usgaard", null, 25 });
+		Assert.assertEquals("Jacob Usgaard", mockObject.getName());
+		Assert.assertEquals(0.0f, mockObject.getPi(), 0.0f);
+		Assert.assertEquals(Integer.valueOf(25), mockObject.getAge());
+
+		try {
+			rowHydrator.hydrate(new Object[] { "Jacob Usgaard", 3.14f, "25" });
+			fail();
+		} catch (ConversionException e) {
+			Assert.assertTrue(e.getMessage().contains("age"));
+		}
+	}
+
+	@Test
+	public void testClassMetadataRegistry() throws Exception {
+		ClassMetadataRegistry.warmUp(MockObject.class);
+		ClassMetadata classMetadata = ClassMetadataRegistry.getClassMetadata(MockObject.class);
+
+		Assert.assertSame(classMetadata, ClassMetadataRegistry.getClassMetadata(MockObject.class));
+		Assert.assertEquals(3, classMetadata.getProperties().size());
+		Assert.assertNull(classMetadata.getProperty("class"));
+		Assert.assertSame(classMetadata.getProperty("age"), classMetadata.findProperty("AGE"));
+		Assert.assertNotNull(classMetadata.getProperty("pi").getSetter());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -110,6 +352,964 @@ public class RestServiceTest {
 		}
 	}
 
+	@Test
+	public void testConvertRowHandler() throws Exception {
+		RestService restService = RestService.builder().fetchSize(1).build();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+		final List<MockObject> mockObjects = new ArrayList<MockObject>();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("Jacob Usgaard", 25, 3.14f));
+			session.saveOrUpdate(new MockObject("John Smith", 45, 3.14f));
+			session.getTransaction().commit();
+
+			int rowCount = restService.convert("age>=30&fields=age", MockObject.class, session,
+					new RowHandler<MockObject>() {
+
+						@Override
+						public void handleRow(MockObject row) {
+							mockObjects.add(row);
+						}
+					});
+
+			Assert.assertEquals(1, rowCount);
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+
+		Assert.assertEquals(1, mockObjects.size());
+		Assert.assertEquals(Integer.valueOf(45), mockObjects.get(0).getAge());
+		Assert.assertNull(mockObjects.get(0).getName());
+	}
+
+	@Test
+	public void testConvertPage() throws Exception {
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+		List<String> names = new ArrayList<String>();
+		int pages = 0;
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 30, 3.14f));
+			session.saveOrUpdate(new MockObject("B", 20, 3.14f));
+			session.saveOrUpdate(new MockObject("C", 30, 3.14f));
+			session.saveOrUpdate(new MockObject("D", 10, 3.14f));
+			session.saveOrUpdate(new MockObject("E", 20, 3.14f));
+			session.getTransaction().commit();
+
+			String after = "";
+			do {
+				RestResponse<MockObject> restResponse = restService.convertPage(
+						"fields=name&order=age-&limit=2&after=" + after, MockObject.class, session);
+
+				for (MockObject mockObject : restResponse.getResults()) {
+					names.add(mockObject.getName());
+					Assert.assertNull(mockObject.getAge());
+				}
+
+				after = restResponse.getNext() == null ? null : restResponse.getNext().encode();
+				pages++;
+			} while (after != null);
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+
+		Assert.assertEquals(Arrays.asList("A", "C", "B", "E", "D"), names);
+		Assert.assertEquals(3, pages);
+	}
+
+	@Test
+	public void testConvertPageNulls() throws Exception {
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 30, 3.14f));
+			session.saveOrUpdate(new MockObject("B", null, 3.14f));
+			session.saveOrUpdate(new MockObject("C", 10, 3.14f));
+			session.saveOrUpdate(new MockObject("D", null, 3.14f));
+			session.saveOrUpdate(new MockObject("E", 20, 3.14f));
+			session.getTransaction().commit();
+
+			// nulls sort lowest on every database
+			Assert.assertEquals(Arrays.asList("B", "D", "C", "E", "A"), this.pageNames(restService, session, "age+"));
+			Assert.assertEquals(Arrays.asList("A", "E", "C", "B", "D"), this.pageNames(restService, session, "age-"));
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+
+		// dates survive the cursor to the millisecond
+		Timestamp timestamp = new Timestamp(1457000000123L);
+		timestamp.setNanos(123456789);
+		Cursor cursor = Cursor.decode(
+				new Cursor(Arrays.asList(timestamp, new Date(42), java.sql.Date.valueOf("2016-03-01"), null)).encode());
+		Assert.assertEquals(timestamp, Cursor.parseDate(Date.class, (String) cursor.getValues().get(0)));
+		Assert.assertEquals(new Date(42).getTime(),
+				Cursor.parseDate(Date.class, (String) cursor.getValues().get(1)).getTime());
+		Assert.assertEquals(java.sql.Date.valueOf("2016-03-01"),
+				Cursor.parseDate(Date.class, (String) cursor.getValues().get(2)));
+		Assert.assertNull(cursor.getValues().get(3));
+	}
+
+	private List<String> pageNames(RestService restService, Session session, String order) throws Exception {
+		List<String> names = new ArrayList<String>();
+		String after = "";
+
+		do {
+			RestResponse<MockObject> restResponse = restService.convertPage(
+					"fields=name&order=" + order + "&limit=2&after=" + after, MockObject.class, session);
+
+			for (MockObject mockObject : restResponse.getResults()) {
+				names.add(mockObject.getName());
+			}
+
+			after = restResponse.getNext() == null ? null : restResponse.getNext().encode();
+		} while (after != null);
+
+		return names;
+	}
+
+	@Test
+	public void testConvertPageTotal() throws Exception {
+		RestService restService = RestService.builder().totalTimeToLive(MockObject.class, 1, TimeUnit.HOURS).build();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 30, 3.14f));
+			session.saveOrUpdate(new MockObject("B", 20, 3.14f));
+			session.saveOrUpdate(new MockObject("C", 30, 3.14f));
+			session.getTransaction().commit();
+
+			RestResponse<MockObject> restResponse = restService.convertPage("limit=1&age>=20&total=true",
+					MockObject.class, session);
+			Assert.assertEquals(1, restResponse.getResults().size());
+			Assert.assertEquals(Long.valueOf(3), restResponse.getTotal());
+			Assert.assertFalse(restResponse.isTotalApproximate());
+			Assert.assertEquals(2, restService.count("age=30&start=5&limit=1", MockObject.class, session));
+			Assert.assertNull(restService.convertPage("limit=1", MockObject.class, session).getTotal());
+			Assert.assertEquals(Long.valueOf(3),
+					restService.convertPage("start=1&limit=5&total=", MockObject.class, session).getTotal());
+
+			String query = "limit=1&age=30&total=approximate";
+			Assert.assertEquals(Long.valueOf(2), restService.convertPage(query, MockObject.class, session).getTotal());
+
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("D", 30, 3.14f));
+			session.getTransaction().commit();
+
+			restResponse = restService.convertPage(query, MockObject.class, session);
+			Assert.assertEquals(Long.valueOf(2), restResponse.getTotal());
+			Assert.assertTrue(restResponse.isTotalApproximate());
+			Assert.assertEquals(1, restService.getTotalCacheStatistics().getHitCount());
+
+			restService.invalidateTotals();
+			Assert.assertEquals(Long.valueOf(3), restService.convertPage(query, MockObject.class, session).getTotal());
+
+			// the time to live of a superclass applies to its subclasses
+			RestService inheritingRestService = RestService.builder().totalTimeToLive(0, TimeUnit.SECONDS)
+					.totalTimeToLive(Object.class, 1, TimeUnit.HOURS).build();
+			Assert.assertEquals(Long.valueOf(3),
+					inheritingRestService.convertPage(query, MockObject.class, session).getTotal());
+
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("E", 30, 3.14f));
+			session.getTransaction().commit();
+
+			restResponse = inheritingRestService.convertPage(query, MockObject.class, session);
+			Assert.assertEquals(Long.valueOf(3), restResponse.getTotal());
+			Assert.assertTrue(restResponse.isTotalApproximate());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testResultCache() throws Exception {
+		InMemoryRestMetrics metrics = new InMemoryRestMetrics();
+		RestService restService = RestService.builder().resultCacheSize(16).resultTimeToLive(1, TimeUnit.HOURS)
+				.coalescing(true).metrics(metrics).build();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		CacheInvalidationListener.register(sessionFactory, restService);
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.getTransaction().commit();
+
+			List<MockObject> first = restService.convert("fields=name,age&age>=10", MockObject.class, session);
+			List<MockObject> second = restService.convert("age>=10&fields=name,age", MockObject.class, session);
+			Assert.assertEquals(1, second.size());
+			Assert.assertEquals("A", second.get(0).getName());
+			Assert.assertNotSame(first.get(0), second.get(0));
+			Assert.assertEquals(1, restService.getResultCacheStatistics().getHitCount());
+
+			// rows changed behind the back of Hibernate stay until invalidated
+			session.createSQLQuery("update MockObject set age = 5").executeUpdate();
+			Assert.assertEquals(1, restService.convert("fields=name,age&age>=10", MockObject.class, session).size());
+			restService.invalidate(MockObject.class);
+			Assert.assertEquals(0, restService.convert("fields=name,age&age>=10", MockObject.class, session).size());
+			Assert.assertEquals(0, restService.convert("fields=name&age>=10", MockObject.class, session).size());
+
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("B", 20, 1f));
+			session.getTransaction().commit();
+			Assert.assertEquals(1, restService.convert("fields=name&age>=10", MockObject.class, session).size());
+
+			// rows of an open transaction are neither cached nor taken from the cache
+			long hits = restService.getResultCacheStatistics().getHitCount();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("C", 30, 1f));
+			Assert.assertEquals(2, restService.convert("fields=name&age>=10", MockObject.class, session).size());
+			session.getTransaction().rollback();
+			session.clear();
+			Assert.assertEquals(1, restService.convert("fields=name&age>=10", MockObject.class, session).size());
+			Assert.assertEquals(hits + 1, restService.getResultCacheStatistics().getHitCount());
+			// rows found but stale count as a miss
+			Assert.assertEquals(2, metrics.getClassMetrics(MockObject.class).getResultCacheHitCount());
+			Assert.assertEquals(5, metrics.getClassMetrics(MockObject.class).getResultCacheMissCount());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRestRequestKey() throws Exception {
+		RestService restService = new RestService();
+		RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = restService
+				.convert("age=in:1,2&filter=(name=A|pi=1)", MockObject.class);
+		Assert.assertEquals(2, restRequest.getSearchCriteria().size());
+		RestRequestKey restRequestKey = RestRequestKey.of(restRequest);
+
+		// changing the criteria of the request leaves its key alone
+		((List<Object>) restRequest.getSearchCriteria().get(0).getValue()).add(3);
+		Assert.assertEquals(restRequestKey,
+				RestRequestKey.of(restService.convert("age=in:1,2&filter=(name=A|pi=1)", MockObject.class)));
+		Assert.assertNotEquals(restRequestKey, RestRequestKey.of(restRequest));
+
+		// so does the flush mode of the request
+		restRequest = restService.convert("age=in:1,2&filter=(name=A|pi=1)", MockObject.class);
+		restRequest.setExecutionProfile(ExecutionProfile.builder().flushMode(FlushMode.AUTO).build());
+		Assert.assertNotEquals(restRequestKey, RestRequestKey.of(restRequest));
+		restRequestKey = RestRequestKey.of(restRequest);
+		restRequest.setExecutionProfile(ExecutionProfile.builder().flushMode(FlushMode.AUTO).build());
+		Assert.assertEquals(restRequestKey, RestRequestKey.of(restRequest));
+	}
+
+	@Test(expected = ParameterException.class)
+	public void testConvertMalformedCursor() throws Exception {
+		new RestService().convert("after=a%2Cb", MockObject.class);
+	}
+
+	@Test
+	public void testConvertBatch() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		RestService restService = RestService.builder().batchExecutor(executorService).build();
+		List<BatchItem> batchItems = new ArrayList<BatchItem>();
+
+		for (int age = 0; age < 20; age++) {
+			batchItems.add(new BatchItem("age>=" + age + "&fields=name", MockObject.class));
+		}
+		batchItems.add(new BatchItem("after=a%2Cb", MockObject.class));
+
+		List<BatchResult<RestRequest<PropertyDescriptor, RestService.Operator, Object>>> batchResults;
+		try {
+			batchResults = restService.convertBatch(batchItems);
+		} finally {
+			executorService.shutdown();
+		}
+
+		Assert.assertEquals(batchItems.size(), batchResults.size());
+		for (int age = 0; age < 20; age++) {
+			RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = batchResults.get(age)
+					.getValue();
+			Assert.assertEquals(Integer.valueOf(age), restRequest.getSearchCriteria().get(0).getValue());
+			Assert.assertEquals(1, restRequest.getFieldMappings().size());
+		}
+
+		BatchResult<RestRequest<PropertyDescriptor, RestService.Operator, Object>> failure = batchResults.get(20);
+		Assert.assertFalse(failure.isSuccess());
+		Assert.assertTrue(failure.getException() instanceof ParameterException);
+	}
+
+	@Test
+	public void testMetrics() throws Exception {
+		InMemoryRestMetrics metrics = new InMemoryRestMetrics();
+		RestService restService = RestService.builder().metrics(metrics).build();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("Jacob Usgaard", 25, 3.14f));
+			session.saveOrUpdate(new MockObject("John Smith", 45, 3.14f));
+			session.getTransaction().commit();
+
+			Assert.assertEquals(2, restService.convert("age>=10&fields=name,age", MockObject.class, session).size());
+			Assert.assertEquals(1, restService.convert("age>=30&fields=name,age", MockObject.class, session).size());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+
+		try {
+			restService.convert("after=a%2Cb", MockObject.class);
+			fail();
+		} catch (ParameterException e) {
+			LOGGER.debug("expected", e);
+		}
+
+		InMemoryRestMetrics.ClassMetrics classMetrics = metrics.getClassMetrics(MockObject.class);
+		Assert.assertEquals(3, classMetrics.getStage(Stage.PARSE).getCount());
+		Assert.assertEquals(2, classMetrics.getStage(Stage.PLAN).getCount());
+		Assert.assertEquals(2, classMetrics.getStage(Stage.EXECUTION).getCount());
+		Assert.assertEquals(2, classMetrics.getStage(Stage.HYDRATION).getCount());
+		Assert.assertEquals(3, classMetrics.getRows().getSum());
+		Assert.assertEquals(2, classMetrics.getProjectionWidth().getMax());
+		Assert.assertEquals(1, classMetrics.getQueryPlanCacheHitCount());
+		Assert.assertEquals(2, classMetrics.getQueryPlanCacheMissCount());
+		Assert.assertEquals(1, classMetrics.getFailureCount(Stage.PLAN));
+		Assert.assertTrue(classMetrics.getStage(Stage.EXECUTION).getPercentile(50) > 0);
+
+		// parsing is measured on its own without a query plan cache too
+		InMemoryRestMetrics uncachedMetrics = new InMemoryRestMetrics();
+		RestService.builder().queryPlanCacheSize(0).metrics(uncachedMetrics).build().convert("age>=10",
+				MockObject.class);
+		Assert.assertEquals(1, uncachedMetrics.getClassMetrics(MockObject.class).getStage(Stage.PARSE).getCount());
+		Assert.assertEquals(1, uncachedMetrics.getClassMetrics(MockObject.class).getStage(Stage.PLAN).getCount());
+	}
+
+	@Test
+	public void testConverterRegistry() throws Exception {
+		ConverterRegistry converterRegistry = ConverterRegistry.builder()
+				.register(Date.class, new ValueConverter<Date>() {
+
+					@Override
+					public Date convert(CharSequence value) throws ConversionException {
+						return new Date(ValueConverters.LONG.convert(value));
+					}
+				}).build();
+		String query = "x=-2147483648&x=0.1&x=123456.789&x=1e3";
+
+		Assert.assertEquals(Integer.valueOf(Integer.MIN_VALUE), converterRegistry.generateType(int.class,
+				new CharSlice(query, query.indexOf('-'), query.indexOf('&'))));
+		for (String value : new String[] { "0.1", "-3.14", "123456.789", "1e3", "0.30000000000000004", "-0" }) {
+			Assert.assertEquals(Double.valueOf(value), converterRegistry.generateType(double.class, value));
+			Assert.assertEquals(Float.valueOf(value), converterRegistry.generateType(Float.class, value));
+		}
+		Assert.assertEquals(Long.valueOf(Long.MAX_VALUE),
+				converterRegistry.generateType(long.class, String.valueOf(Long.MAX_VALUE)));
+		Assert.assertEquals(Boolean.TRUE, converterRegistry.generateType(boolean.class, "TRUE"));
+		Assert.assertEquals(RestService.Operator.NOT_EQUAL,
+				converterRegistry.generateType(RestService.Operator.class, "not_equal"));
+		Assert.assertEquals(LocalDate.of(2016, 3, 1), converterRegistry.generateType(LocalDate.class, "2016-03-01"));
+		Assert.assertEquals(new BigDecimal("1.10"), converterRegistry.generateType(BigDecimal.class, "1.10"));
+		Assert.assertEquals(new Date(42), converterRegistry.generateType(Date.class, "42"));
+		Assert.assertEquals(Integer.valueOf(7), converterRegistry.generateType(Integer.class, Integer.valueOf(7)));
+
+		for (String value : new String[] { "2147483648", "", "-", "1.5", "12a" }) {
+			try {
+				converterRegistry.generateType(int.class, value);
+				fail(value);
+			} catch (ConversionException e) {
+				LOGGER.debug("expected", e);
+			}
+		}
+
+		try {
+			ConverterRegistry.getDefault().generateType(Date.class, "42");
+			fail();
+		} catch (ConversionException e) {
+			LOGGER.debug("expected", e);
+		}
+	}
+
+	@Test
+	public void testInOperator() throws Exception {
+		List<ParameterMapping<String, RestService.Operator, Object>> parameterMappings = new RestService()
+				.getQueryParameterMapper().generateParameterMappings("name=in:a,b%2Cc&age!=in:1&pi=in%3A");
+
+		Assert.assertEquals(RestService.Operator.IN, parameterMappings.get(0).getOperator());
+		Assert.assertEquals(Arrays.asList("a", "b,c"), parameterMappings.get(0).getValue());
+		Assert.assertEquals(RestService.Operator.NOT_IN, parameterMappings.get(1).getOperator());
+		Assert.assertEquals(RestService.Operator.EQUAL, parameterMappings.get(2).getOperator());
+		Assert.assertEquals("in:", parameterMappings.get(2).getValue());
+
+		String query = "age=10&age>=5&age=in:20,30&age<=40&age!=15&name=Jacob Usgaard";
+		for (RestService restService : new RestService[] { new RestService(),
+				RestService.builder().queryPlanCacheSize(0).build() }) {
+			List<SearchCriterion<PropertyDescriptor, RestService.Operator, Object>> searchCriteria = restService
+					.convert(query, MockObject.class).getSearchCriteria();
+
+			Assert.assertEquals(5, searchCriteria.size());
+			Assert.assertEquals(RestService.Operator.IN, searchCriteria.get(0).getOperator());
+			Assert.assertEquals(Arrays.asList(10, 20, 30), searchCriteria.get(0).getValue());
+			Assert.assertEquals(RestService.Operator.GREATER_THAN_OR_EQUAL, searchCriteria.get(1).getOperator());
+			Assert.assertEquals(RestService.Operator.LESS_THAN_OR_EQUAL, searchCriteria.get(2).getOperator());
+			Assert.assertEquals(RestService.Operator.NOT_EQUAL, searchCriteria.get(3).getOperator());
+			Assert.assertEquals(RestService.Operator.EQUAL, searchCriteria.get(4).getOperator());
+		}
+
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 25, 3.14f));
+			session.saveOrUpdate(new MockObject("B", 35, 3.14f));
+			session.saveOrUpdate(new MockObject("C", 45, 3.14f));
+			session.getTransaction().commit();
+
+			Assert.assertEquals(2, restService.convert("age=in:25,45,55", MockObject.class, session).size());
+			Assert.assertEquals(2, restService.convert("age=25&age=35", MockObject.class, session).size());
+			Assert.assertEquals(1, restService.convert("name!=in:A,B", MockObject.class, session).size());
+
+			List<String> ids = new ArrayList<String>();
+			for (int id = 0; id < 2 * RestService.MAXIMUM_IN_LIST_SIZE + 1; id++) {
+				ids.add("missing" + id);
+			}
+			ids.add("C");
+			ids.add(1000, "A");
+
+			List<MockObject> mockObjects = restService.convertByIds(ids, "fields=name&order=name+", MockObject.class,
+					session);
+			Assert.assertEquals(2, mockObjects.size());
+			Assert.assertEquals("A", mockObjects.get(0).getName());
+			Assert.assertEquals("C", mockObjects.get(1).getName());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testFilterExpression() throws Exception {
+		for (RestService restService : new RestService[] { new RestService(),
+				RestService.builder().queryPlanCacheSize(0).build() }) {
+			List<SearchCriterion<PropertyDescriptor, RestService.Operator, Object>> searchCriteria = restService
+					.convert("filter=(age>=10|name=Bob|(age>=10))%26!(pi=0|pi=0)&!age<5", MockObject.class)
+					.getSearchCriteria();
+
+			Assert.assertEquals(2, searchCriteria.size());
+			Assert.assertEquals(RestService.Operator.GREATER_THAN_OR_EQUAL, searchCriteria.get(0).getOperator());
+
+			CompositeSearchCriterion<PropertyDescriptor, RestService.Operator, Object> filter = (CompositeSearchCriterion<PropertyDescriptor, RestService.Operator, Object>) searchCriteria
+					.get(1);
+			Assert.assertEquals(CompositeSearchCriterion.LogicalOperator.AND, filter.getLogicalOperator());
+			Assert.assertEquals(2, filter.getChildren().size());
+			Assert.assertEquals(2, ((CompositeSearchCriterion<?, ?, ?>) filter.getChildren().get(0)).getChildren().size());
+			Assert.assertEquals(RestService.Operator.NOT_EQUAL, filter.getChildren().get(1).getOperator());
+
+			Assert.assertTrue(((CompositeSearchCriterion<?, ?, ?>) restService
+					.convert("filter=age=1;(false|!!(age=3;false))", MockObject.class).getSearchCriteria().get(0))
+							.getChildren().isEmpty());
+		}
+
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 25, 3.14f));
+			session.saveOrUpdate(new MockObject("B", 35, 0f));
+			session.saveOrUpdate(new MockObject("C", 45, 3.14f));
+			session.getTransaction().commit();
+
+			Assert.assertEquals(2, restService.convert("filter=age<30|name=C", MockObject.class, session).size());
+			Assert.assertEquals(1,
+					restService.convert("filter=(age<30|name=B);!pi=0", MockObject.class, session).size());
+			Assert.assertEquals(2, restService.convert("filter!=name=B", MockObject.class, session).size());
+			Assert.assertEquals(0, restService.convert("filter=false", MockObject.class, session).size());
+			Assert.assertEquals(3, restService.convert("filter=!false|age=1", MockObject.class, session).size());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testAggregate() throws Exception {
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 1f));
+			session.saveOrUpdate(new MockObject("C", 30, 2f));
+			session.getTransaction().commit();
+
+			for (int run = 0; run < 2; run++) {
+				List<ProjectionRow> rows = restService.convertRows(
+						"fields=sum(age),max(name),count(),median(age)&group=pi&order=pi-", MockObject.class, session);
+
+				Assert.assertEquals(2, rows.size());
+				Assert.assertEquals(Arrays.asList("pi", "sum(age)", "max(name)", "count()"), rows.get(0).getColumns());
+				Assert.assertSame(rows.get(0).getColumns(), rows.get(1).getColumns());
+				Assert.assertEquals(2f, rows.get(0).get("pi"));
+				Assert.assertEquals(30L, ((Number) rows.get(0).get("sum(age)")).longValue());
+				Assert.assertEquals(30L, ((Number) rows.get(1).get("sum(age)")).longValue());
+				Assert.assertEquals("B", rows.get(1).get("max(name)"));
+				Assert.assertEquals(2L, ((Number) rows.get(1).get(3)).longValue());
+			}
+
+			List<ProjectionRow> rows = restService.convertRows("fields=avg(age),min(age)&age>10", MockObject.class,
+					session);
+			Assert.assertEquals(1, rows.size());
+			Assert.assertEquals(25d, ((Number) rows.get(0).get("avg(age)")).doubleValue(), 0);
+			Assert.assertEquals(20, rows.get(0).get("min(age)"));
+
+			rows = restService.convertRows("fields=name&order=name-&limit=2", MockObject.class, session);
+			Assert.assertEquals(Arrays.asList("name"), rows.get(0).getColumns());
+			Assert.assertEquals("C", rows.get(0).get(0));
+
+			try {
+				restService.convert("fields=count()", MockObject.class, session);
+				fail("aggregates cannot be hydrated into entities");
+			} catch (ParameterException e) {
+				LOGGER.debug("expected", e);
+			}
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testProjectionRows() throws Exception {
+		RestService restService = new RestService();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 2f));
+			session.getTransaction().commit();
+
+			final List<ProjectionRow> rows = new ArrayList<ProjectionRow>();
+			int count = restService.convertRows("fields=age,name&order=pi-", MockObject.class, session,
+					new RowHandler<ProjectionRow>() {
+
+						@Override
+						public void handleRow(ProjectionRow row) {
+							rows.add(row);
+						}
+					});
+
+			Assert.assertEquals(2, count);
+			Assert.assertSame(rows.get(0).getColumns(), rows.get(1).getColumns());
+
+			// the hidden sort key is not a column
+			Map<String, Object> expected = new LinkedHashMap<String, Object>();
+			expected.put("age", 20);
+			expected.put("name", "B");
+			Assert.assertEquals(expected, rows.get(0));
+			Assert.assertEquals(Arrays.asList("age", "name"), new ArrayList<String>(rows.get(0).keySet()));
+			Assert.assertFalse(rows.get(0).containsKey("pi"));
+			Assert.assertEquals("{age=10, name=A}", rows.get(1).toString());
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testWriteJson() throws Exception {
+		RestService restService = RestService.builder().flushRows(1).build();
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		Session session = sessionFactory.openSession();
+
+		try {
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A \"quoted\"\n", 10, 1.5f));
+			session.saveOrUpdate(new MockObject("B", null, 2.5f));
+			session.saveOrUpdate(new MockObject("C", 30, 2f));
+			session.getTransaction().commit();
+
+			StringWriter writer = new StringWriter();
+			int rows = restService.write(
+					restService.convert(new MockServletRequest("fields=age,name&order=name&limit=2"), MockObject.class),
+					MockObject.class, session, writer);
+			Assert.assertEquals(2, rows);
+			Assert.assertEquals("[{\"age\":10,\"name\":\"A \\\"quoted\\\"\\n\"},{\"age\":null,\"name\":\"B\"}]",
+					writer.toString());
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			Assert.assertEquals(0, restService.write("age>30&fields=name", MockObject.class, session, outputStream));
+			Assert.assertEquals("[]", outputStream.toString("UTF-8"));
+
+			outputStream.reset();
+			restService.write("fields=count(),max(age)&group=name&name=C", MockObject.class, session, outputStream);
+			Assert.assertEquals("[{\"name\":\"C\",\"count()\":1,\"max(age)\":30}]", outputStream.toString("UTF-8"));
+		} finally {
+			session.close();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testConvertAsync() throws Exception {
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		ExecutorService executorService = AsyncRestService.newBoundedExecutor(2, 4);
+		AsyncRestService asyncRestService = new AsyncRestService(new RestService(), sessionFactory, executorService);
+
+		final List<Runnable> queued = new ArrayList<Runnable>();
+		AsyncRestService queueingRestService = new AsyncRestService(new RestService(), sessionFactory,
+				new Executor() {
+
+					@Override
+					public void execute(Runnable command) {
+						queued.add(command);
+					}
+				});
+
+		try {
+			Session session = sessionFactory.openSession();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 1f));
+			session.getTransaction().commit();
+			session.close();
+
+			List<MockObject> mockObjects = asyncRestService
+					.convert("age>=20&fields=name", MockObject.class, 1, TimeUnit.MINUTES).get(1, TimeUnit.MINUTES);
+			Assert.assertEquals(1, mockObjects.size());
+			Assert.assertEquals("B", mockObjects.get(0).getName());
+
+			try {
+				asyncRestService.convert("age=abc", MockObject.class).get(1, TimeUnit.MINUTES);
+				fail("age is not a number");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof ConversionException);
+			}
+
+			// queries cancelled or timed out while queued never run
+			CompletableFuture<List<MockObject>> cancelled = queueingRestService.convert("fields=name",
+					MockObject.class);
+			Assert.assertTrue(cancelled.cancel(true));
+
+			CompletableFuture<List<MockObject>> timedOut = queueingRestService.convert("fields=name",
+					MockObject.class, 10, TimeUnit.MILLISECONDS);
+			try {
+				timedOut.get(1, TimeUnit.MINUTES);
+				fail("the query was never run");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof TimeoutException);
+			}
+
+			Assert.assertEquals(2, queued.size());
+			for (Runnable runnable : queued) {
+				runnable.run();
+			}
+			Assert.assertTrue(cancelled.isCancelled());
+		} finally {
+			executorService.shutdownNow();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testWriteAsync() throws Exception {
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		ExecutorService executorService = AsyncRestService.newBoundedExecutor(2, 4);
+		AsyncRestService asyncRestService = new AsyncRestService(new RestService(), sessionFactory, executorService);
+
+		final List<Runnable> queued = new ArrayList<Runnable>();
+		AsyncRestService queueingRestService = new AsyncRestService(new RestService(), sessionFactory,
+				new Executor() {
+
+					@Override
+					public void execute(Runnable command) {
+						queued.add(command);
+					}
+				});
+
+		try {
+			Session session = sessionFactory.openSession();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 1f));
+			session.getTransaction().commit();
+			session.close();
+
+			MockServletResponse response = new MockServletResponse();
+			MockAsyncContext asyncContext = new MockAsyncContext(new MockServletRequest("age>=20&fields=name"),
+					response);
+			Assert.assertEquals(1, (int) asyncRestService.write(asyncContext, MockObject.class, 1, TimeUnit.MINUTES)
+					.get(1, TimeUnit.MINUTES));
+			Assert.assertTrue(asyncContext.awaitComplete(1, TimeUnit.MINUTES));
+			Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+			Assert.assertEquals("[{\"name\":\"B\"}]", response.getBody());
+
+			response = new MockServletResponse();
+			asyncContext = new MockAsyncContext(new MockServletRequest("filter=(age=10"), response);
+			try {
+				asyncRestService.write(asyncContext, MockObject.class, 1, TimeUnit.MINUTES).get(1, TimeUnit.MINUTES);
+				fail("the filter is not closed");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof ParameterException);
+			}
+			Assert.assertTrue(asyncContext.awaitComplete(1, TimeUnit.MINUTES));
+			Assert.assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.getStatus());
+
+			response = new MockServletResponse();
+			asyncContext = new MockAsyncContext(new MockServletRequest("fields=name"), response);
+			try {
+				queueingRestService.write(asyncContext, MockObject.class, 10, TimeUnit.MILLISECONDS).get(1,
+						TimeUnit.MINUTES);
+				fail("the query was never run");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof TimeoutException);
+			}
+			Assert.assertTrue(asyncContext.awaitComplete(1, TimeUnit.MINUTES));
+			Assert.assertEquals(HttpServletResponse.SC_GATEWAY_TIMEOUT, response.getStatus());
+
+			// the caller gave up on the response, so no status is sent
+			response = new MockServletResponse();
+			asyncContext = new MockAsyncContext(new MockServletRequest("fields=name"), response);
+			CompletableFuture<Integer> cancelled = queueingRestService.write(asyncContext, MockObject.class, 0,
+					TimeUnit.SECONDS);
+			Assert.assertTrue(cancelled.cancel(true));
+			try {
+				cancelled.get(1, TimeUnit.MINUTES);
+				fail("the query was cancelled");
+			} catch (CancellationException e) {
+				Assert.assertTrue(asyncContext.awaitComplete(1, TimeUnit.MINUTES));
+				Assert.assertFalse(response.isCommitted());
+				Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+			}
+
+			Assert.assertEquals(2, queued.size());
+			for (Runnable runnable : queued) {
+				runnable.run();
+			}
+			Assert.assertEquals("", response.getBody());
+		} finally {
+			executorService.shutdownNow();
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testQueryPolicy() throws Exception {
+		Assert.assertTrue(ClassMetadataRegistry.getClassMetadata(MockObject.class).isIndexed("name"));
+		Assert.assertFalse(ClassMetadataRegistry.getClassMetadata(MockObject.class).isIndexed("pi"));
+
+		QueryPolicy.Builder policyBuilder = QueryPolicy.builder().maximumLimit(MockObject.class, 2).maximumCriteria(2)
+				.maximumProjectionWidth(2).indexedFilters(true).indexedOrders(true).allow(MockObject.class, "age");
+		RestService restService = RestService.builder().queryPolicy(policyBuilder.build()).build();
+		RestService clampingRestService = RestService.builder().queryPolicy(policyBuilder.clampLimit(true).build())
+				.build();
+
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		try {
+			Session session = sessionFactory.openSession();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 2f));
+			session.saveOrUpdate(new MockObject("C", 30, 3f));
+			session.getTransaction().commit();
+
+			Assert.assertEquals(2, restService
+					.convert("name!=D&age>=10&fields=name,age&order=age-&limit=2", MockObject.class, session).size());
+
+			Assert.assertEquals(2,
+					restService.convert("age=in:10,20&fields=name&limit=2", MockObject.class, session).size());
+
+			String[] queries = { "limit=3", "name=A&age>=1&age<=2&fields=name&limit=2",
+					"age=in:10,20,30&fields=name&limit=2", "pi=1&fields=name&limit=2", "order=pi+&fields=name&limit=2",
+					"fields=name,age,pi&limit=2" };
+			QueryPolicyException.Violation[] violations = { QueryPolicyException.Violation.LIMIT,
+					QueryPolicyException.Violation.CRITERIA, QueryPolicyException.Violation.CRITERIA,
+					QueryPolicyException.Violation.FILTER,
+					QueryPolicyException.Violation.ORDER, QueryPolicyException.Violation.PROJECTION_WIDTH };
+
+			for (int index = 0; index < queries.length; index++) {
+				try {
+					restService.convert(queries[index], MockObject.class, session);
+					fail("rejected: " + queries[index]);
+				} catch (QueryPolicyException e) {
+					Assert.assertEquals(violations[index], e.getViolation());
+				}
+			}
+
+			try {
+				restService.count("pi=1", MockObject.class, session);
+				fail("pi is not indexed");
+			} catch (QueryPolicyException e) {
+				Assert.assertEquals(QueryPolicyException.Violation.FILTER, e.getViolation());
+			}
+
+			// a lookup by identifiers returns every instance asked for
+			List<String> ids = Arrays.asList("A", "B", "C");
+			Assert.assertEquals(3, restService.convertByIds(ids, "fields=name", MockObject.class, session).size());
+			Assert.assertEquals(3,
+					clampingRestService.convertByIds(ids, "fields=name", MockObject.class, session).size());
+			try {
+				restService.convertByIds(ids, "pi=1&fields=name", MockObject.class, session);
+				fail("pi is not indexed");
+			} catch (QueryPolicyException e) {
+				Assert.assertEquals(QueryPolicyException.Violation.FILTER, e.getViolation());
+			}
+
+			// the default limit of 10 is clamped too
+			Assert.assertEquals(2, clampingRestService.convert("fields=name", MockObject.class, session).size());
+			Assert.assertEquals(2,
+					clampingRestService.convertRows("limit=0&fields=name", MockObject.class, session).size());
+
+			session.close();
+		} finally {
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testExecutionProfile() throws Exception {
+		RestService restService = RestService.builder().fetchSize(50)
+				.executionProfile(ExecutionProfile.builder().timeout(30).build())
+				.executionProfile(MockObject.class, ExecutionProfile.READ_ONLY).build();
+
+		ExecutionProfile executionProfile = restService.getExecutionProfile(MockObject.class);
+		Assert.assertEquals(Integer.valueOf(30), executionProfile.getTimeout());
+		Assert.assertEquals(Integer.valueOf(50), executionProfile.getFetchSize());
+		Assert.assertEquals(Boolean.TRUE, executionProfile.getReadOnly());
+		Assert.assertEquals(FlushMode.MANUAL, executionProfile.getFlushMode());
+		Assert.assertNull(restService.getExecutionProfile(Object.class).getReadOnly());
+
+		// subclasses without a profile of their own take that of their superclass
+		RestService numberRestService = RestService.builder()
+				.executionProfile(Number.class, ExecutionProfile.READ_ONLY).build();
+		Assert.assertEquals(ExecutionProfile.READ_ONLY, numberRestService.getExecutionProfile(Integer.class));
+		Assert.assertNull(numberRestService.getExecutionProfile(String.class).getReadOnly());
+
+		executionProfile = executionProfile.overriddenBy(ExecutionProfile.builder().flushMode(FlushMode.AUTO).build());
+		Assert.assertEquals(FlushMode.AUTO, executionProfile.getFlushMode());
+		Assert.assertEquals(Boolean.TRUE, executionProfile.getReadOnly());
+
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		try {
+			Session session = sessionFactory.openSession();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.getTransaction().commit();
+
+			// a manual flush mode leaves pending changes out of the query
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("B", 20, 2f));
+			Assert.assertEquals(1, restService.convert("fields=name", MockObject.class, session).size());
+
+			RestRequest<PropertyDescriptor, RestService.Operator, Object> restRequest = restService
+					.convert("fields=name", MockObject.class);
+			restRequest.setExecutionProfile(ExecutionProfile.builder().flushMode(FlushMode.AUTO).build());
+			Assert.assertEquals(2, restService.convert(restRequest, MockObject.class, session).size());
+
+			session.getTransaction().rollback();
+			session.close();
+		} finally {
+			sessionFactory.close();
+		}
+	}
+
+	@Test
+	public void testConvertStateless() throws Exception {
+		RestService restService = RestService.builder().executionProfile(ExecutionProfile.READ_ONLY).build();
+		RestService cachingRestService = RestService.builder().resultCacheSize(16).build();
+
+		SessionFactory sessionFactory = this.buildSessionFactory();
+		try {
+			Session session = sessionFactory.openSession();
+			session.beginTransaction();
+			session.saveOrUpdate(new MockObject("A", 10, 1f));
+			session.saveOrUpdate(new MockObject("B", 20, 2f));
+			session.saveOrUpdate(new MockObject("C", 30, 3f));
+			session.getTransaction().commit();
+			session.close();
+
+			StatelessSession statelessSession = sessionFactory.openStatelessSession();
+			try {
+				List<MockObject> mockObjects = restService.convert("age>=20&fields=name,age&order=age-",
+						MockObject.class, statelessSession);
+				Assert.assertEquals(2, mockObjects.size());
+				Assert.assertEquals("C", mockObjects.get(0).getName());
+				Assert.assertEquals(Integer.valueOf(30), mockObjects.get(0).getAge());
+
+				final List<String> names = new ArrayList<String>();
+				Assert.assertEquals(3, restService.convert("fields=name&order=name+", MockObject.class,
+						statelessSession, new RowHandler<MockObject>() {
+
+							@Override
+							public void handleRow(MockObject row) {
+								names.add(row.getName());
+							}
+						}));
+				Assert.assertEquals(Arrays.asList("A", "B", "C"), names);
+
+				Assert.assertEquals(1,
+						cachingRestService.convert("name=B&fields=name", MockObject.class, statelessSession).size());
+				Assert.assertEquals(1,
+						cachingRestService.convert("name=B&fields=name", MockObject.class, statelessSession).size());
+				Assert.assertEquals(1, cachingRestService.getResultCacheStatistics().getHitCount());
+			} finally {
+				statelessSession.close();
+			}
+		} finally {
+			sessionFactory.close();
+		}
+	}
+
+	@Test(expected = ParameterException.class)
+	public void testFilterExpressionMalformed() throws Exception {
+		new RestService().convert("filter=(age>=10|name=Bob", MockObject.class);
+	}
+
+	@Test
+	public void testFilterExpressionNested() throws Exception {
+		RestService restService = new RestService();
+		Assert.assertEquals(1, restService
+				.convert("filter=" + nestedFilter(FilterParser.MAXIMUM_DEPTH), MockObject.class).getSearchCriteria()
+				.size());
+
+		// a client must not exhaust the stack, whatever the nesting
+		for (int depth : new int[] { FilterParser.MAXIMUM_DEPTH + 1, 4000 }) {
+			try {
+				restService.convert("filter=" + nestedFilter(depth), MockObject.class);
+				fail("nested too deep: " + depth);
+			} catch (ParameterException e) {
+				LOGGER.debug("expected", e);
+			}
+		}
+	}
+
+	private static String nestedFilter(int depth) {
+		StringBuilder filter = new StringBuilder();
+		for (int level = 0; level < depth; level++) {
+			filter.append(level % 2 == 0 ? "(" : "!");
+		}
+		filter.append("age>=10");
+		for (int level = 0; level < depth; level += 2) {
+			filter.append(')');
+		}
+		return filter.toString();
+	}
+
 	private SessionFactory buildSessionFactory() {
 		Configuration configuration = new Configuration().configure("hibernate-test.cfg.xml");
 		configuration.addAnnotatedClass(MockObject.class);
@@ -0,0 +1,103 @@
+package usgaard.jacob.rest.domain;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+public class MockAsyncContext implements AsyncContext {
+
+	private final ServletRequest request;
+	private final ServletResponse response;
+	private final CountDownLatch completed = new CountDownLatch(1);
+
+	public MockAsyncContext(ServletRequest request, ServletResponse response) {
+		this.request = request;
+		this.response = response;
+	}
+
+	/**
+	 * @param timeout
+	 * @param unit
+	 * @return whether the context was completed within timeout
+	 * @throws InterruptedException
+	 */
+	public boolean awaitComplete(long timeout, TimeUnit unit) throws InterruptedException {
+		return completed.await(timeout, unit);
+	}
+
+	@Override
+	public ServletRequest getRequest() {
+		return request;
+	}
+
+	@Override
+	public ServletResponse getResponse() {
+		return response;
+	}
+
+	@Override
+	public boolean hasOriginalRequestAndResponse() {
+		return true;
+	}
+
+	@Override
+	public void dispatch() {
+
+	}
+
+	@Override
+	public void dispatch(String path) {
+
+	}
+
+	@Override
+	public void dispatch(ServletContext context, String path) {
+
+	}
+
+	@Override
+	public void complete() {
+		if (completed.getCount() == 0) {
+			throw new IllegalStateException("completed");
+		}
+
+		completed.countDown();
+	}
+
+	@Override
+	public void start(Runnable run) {
+		run.run();
+	}
+
+	@Override
+	public void addListener(AsyncListener listener) {
+
+	}
+
+	@Override
+	public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+
+	}
+
+	@Override
+	public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+		return null;
+	}
+
+	@Override
+	public void setTimeout(long timeout) {
+
+	}
+
+	@Override
+	public long getTimeout() {
+		return 0;
+	}
+
+}
@@ -2,6 +2,7 @@ package usgaard.jacob.rest.domain;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.security.Principal;
 import java.util.Collection;
@@ -26,8 +27,25 @@ import javax.servlet.http.Part;
 
 public class MockServletRequest implements HttpServletRequest {
 
+	private final String queryString;
+	private final String method;
+	private final String contentType;
+	private final String body;
+	private String characterEncoding;
+
 	public MockServletRequest() {
+		this("age=10&name=Jacob Usgaard&fields=age,name&start=99&limit=100");
+	}
+
+	public MockServletRequest(String queryString) {
+		this(queryString, "GET", null, null);
+	}
 
+	public MockServletRequest(String queryString, String method, String contentType, String body) {
+		this.queryString = queryString;
+		this.method = method;
+		this.contentType = contentType;
+		this.body = body;
 	}
 
 	@Override
@@ -42,27 +60,27 @@ public class MockServletRequest implements HttpServletRequest {
 
 	@Override
 	public String getCharacterEncoding() {
-		return null;
+		return characterEncoding;
 	}
 
 	@Override
 	public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
-
+		this.characterEncoding = env;
 	}
 
 	@Override
 	public int getContentLength() {
-		return 0;
+		return body == null ? -1 : body.length();
 	}
 
 	@Override
 	public long getContentLengthLong() {
-		return 0;
+		return getContentLength();
 	}
 
 	@Override
 	public String getContentType() {
-		return null;
+		return contentType;
 	}
 
 	@Override
@@ -112,7 +130,7 @@ public class MockServletRequest implements HttpServletRequest {
 
 	@Override
 	public BufferedReader getReader() throws IOException {
-		return null;
+		return new BufferedReader(new StringReader(body == null ? "" : body));
 	}
 
 	@Override
@@ -260,8 +278,7 @@ public class MockServletRequest implements HttpServletRequest {
 
 	@Override
 	public String getMethod() {
-		// TODO Auto-generated method stub
-		return null;
+		return method;
 	}
 
 	@Override
@@ -284,8 +301,7 @@ public class MockServletRequest implements HttpServletRequest {
 
 	@Override
 	public String getQueryString() {
-		// TODO Auto-generated method stub
-		return "age=10&name=Jacob Usgaard&fields=age,name&start=99&limit=100";
+		return queryString;
 	}
 
 	@Override
@@ -0,0 +1,222 @@
+package usgaard.jacob.rest.domain;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+public class MockServletResponse implements HttpServletResponse {
+
+	private StringWriter body = new StringWriter();
+	private String contentType;
+	private String characterEncoding;
+	private int status = SC_OK;
+	private boolean committed;
+
+	public String getBody() {
+		return body.toString();
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return characterEncoding;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		return null;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		return new PrintWriter(body);
+	}
+
+	@Override
+	public void setCharacterEncoding(String charset) {
+		this.characterEncoding = charset;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+
+	}
+
+	@Override
+	public void setContentType(String type) {
+		this.contentType = type;
+	}
+
+	@Override
+	public void setBufferSize(int size) {
+
+	}
+
+	@Override
+	public int getBufferSize() {
+		return 0;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		committed = true;
+	}
+
+	@Override
+	public void resetBuffer() {
+		if (committed) {
+			throw new IllegalStateException("committed");
+		}
+
+		body = new StringWriter();
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return committed;
+	}
+
+	@Override
+	public void reset() {
+		this.resetBuffer();
+		contentType = null;
+		characterEncoding = null;
+		status = SC_OK;
+	}
+
+	@Override
+	public void setLocale(Locale loc) {
+
+	}
+
+	@Override
+	public Locale getLocale() {
+		return null;
+	}
+
+	@Override
+	public void addCookie(Cookie cookie) {
+
+	}
+
+	@Override
+	public boolean containsHeader(String name) {
+		return false;
+	}
+
+	@Override
+	public String encodeURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String encodeRedirectURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String encodeUrl(String url) {
+		return url;
+	}
+
+	@Override
+	public String encodeRedirectUrl(String url) {
+		return url;
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		this.sendError(sc);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		if (committed) {
+			throw new IllegalStateException("committed");
+		}
+
+		status = sc;
+		committed = true;
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		this.status = sc;
+	}
+
+	@Override
+	public void setStatus(int sc, String sm) {
+		this.status = sc;
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public String getHeader(String name) {
+		return null;
+	}
+
+	@Override
+	public Collection<String> getHeaders(String name) {
+		return null;
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return null;
+	}
+
+}